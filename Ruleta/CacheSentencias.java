@@ -0,0 +1,85 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package Ruleta;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache LRU de sentencias preparadas de una conexion fisica. Vive mientras
+ * la conexion este en el pool, asi que la misma consulta no se vuelve a
+ * preparar cada vez que una ventana presta la conexion.
+ *
+ * @author DESINCO
+ */
+public class CacheSentencias {
+
+    private final Connection Fisica;
+    private final LinkedHashMap<String, PreparedStatement> Sentencias;
+
+    public CacheSentencias(Connection Fisica, final int Capacidad)
+    {
+        this.Fisica = Fisica;
+        this.Sentencias = new LinkedHashMap<String, PreparedStatement>(Capacidad * 2, 0.75f, true)
+        {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> Mayor)
+            {
+                if (size() > Capacidad)
+                {
+                    Cerrar(Mayor.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Devuelve la sentencia preparada para el SQL, creandola si no esta en la
+     * cache. La sentencia pertenece a la cache: quien la usa no debe cerrarla.
+     */
+    public synchronized PreparedStatement Obtener(String Sql) throws SQLException
+    {
+        PreparedStatement Sentencia = Sentencias.get(Sql);
+        if (Sentencia != null && !Sentencia.isClosed())
+        {
+            Sentencia.clearParameters();
+            return Sentencia;
+        }
+        Sentencia = Fisica.prepareStatement(Sql);
+        Sentencias.put(Sql, Sentencia);
+        return Sentencia;
+    }
+
+    public synchronized int Tamano()
+    {
+        return Sentencias.size();
+    }
+
+    public synchronized void Limpiar()
+    {
+        for (PreparedStatement Sentencia : Sentencias.values())
+        {
+            Cerrar(Sentencia);
+        }
+        Sentencias.clear();
+    }
+
+    private static void Cerrar(PreparedStatement Sentencia)
+    {
+        try
+        {
+            Sentencia.close();
+        }
+        catch (SQLException err)
+        {
+            err.printStackTrace();
+        }
+    }
+}
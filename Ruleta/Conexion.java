@@ -4,10 +4,10 @@
  */
 package Ruleta;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
-import java.io.IOException;
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import javax.swing.JOptionPane;
 
 /**
@@ -17,57 +17,517 @@ import javax.swing.JOptionPane;
 public class Conexion {
     
     Connection BD;
-    Statement StmBD;
     ResultSet RstBD;
+    // Sentencia con un lote pendiente (solo uno a la vez)
+    private PreparedStatement Lote;
     String Ruta = "";
     String MsgCone = "";
+    // Ultima tarea encolada por EjecutorBD para esta conexion
+    CompletableFuture<?> Cola = CompletableFuture.completedFuture(null);
+    // IniciarTransaccion() abierta sin Confirmar()/Deshacer()
+    private boolean EnTransaccion = false;
+    // Ventanas de reportes: las lecturas pueden ir a la replica
+    public static final boolean LECTURA = true;
+    final boolean Lectura;
+    Connection BDLectura;
+    private boolean UltimaReplica = false;
+    
+    public Conexion()
+    {
+        this(false);
+    }
+    
+    public Conexion(boolean Lectura)
+    {
+        this.Lectura = Lectura;
+    }
+    
     /**
      * @param args the command line arguments
      */
     public void Coneccion_BD()
     {
-        Archivo();
         try 
         {
-            Class.forName("com.mysql.jdbc.Driver");
-            BD = (Connection) DriverManager.getConnection("jdbc:mysql://"+Ruta+"","root","123"); //localhost/BD_pedidos
-            //BD = (Connection) DriverManager.getConnection("jdbc:mysql://localhost:3306/BD_pedidos","root","123");
-            StmBD = (Statement) BD.createStatement();
-            //BD.close();
+            IniciarPool();
+            Liberar();
+            BD = PoolConexiones.Principal().Prestar();
             //JOptionPane.showMessageDialog(null, "Conneción Exitosa...");
             MsgCone = "Conexion Exitosa BD lotto...";
         } 
-        catch (SQLException e1) 
+        catch (Exception e1) 
         {
+            // Sin dialogo: MonitorConexion muestra el estado y reintenta, y
+            // la siguiente consulta vuelve a pedir la conexion
             MsgCone = "Sin Conexión BD lotto...";
-            JOptionPane.showMessageDialog(null,"No hay Conexión Con El Servidor -  BD"+e1);            
+            System.err.println("No hay Conexión Con El Servidor -  BD"+e1);
+            MonitorConexion.Principal().Reportar(e1);
         }
-        catch (Exception e2)
+    }
+    
+    /**
+     * Arranca el pool la primera vez que alguien lo necesita, con la
+     * configuracion cargada una sola vez por ConfiguracionBD.
+     */
+    static synchronized void IniciarPool()
+    {
+        if (!PoolConexiones.Iniciado())
         {
-            MsgCone = "Sin Conexión BD lotto...";
-            JOptionPane.showMessageDialog(null,"No hay Conexión Con El Servidor -  BD"+e2);
+            ConfiguracionBD Conf = ConfiguracionBD.Actual();
+            Conf.CargarDriver();
+            PoolConexiones.Iniciar(Propiedades(Conf.Url()), Conf.Usuario(), Conf.Clave()); //localhost/BD_pedidos
         }
+        MonitorConexion.Principal();
     }
     
-    void Archivo()
+    /**
+     * Vuelve a pedir la conexion si la ventana se quedo sin ella (caida de
+     * la BD o Coneccion_BD() fallido). Dentro de una transaccion no se
+     * cambia de conexion: el error sube a quien la abrio.
+     */
+    private void Asegurar() throws SQLException
+    {
+        if (BD != null && !BD.isClosed())
+        {
+            return;
+        }
+        if (EnTransaccion)
+        {
+            throw new SQLException("Se perdio la conexion dentro de la transaccion", "08003");
+        }
+        IniciarPool();
+        Liberar();
+        BD = PoolConexiones.Principal().Prestar();
+        MsgCone = "Conexion Exitosa BD lotto...";
+    }
+    
+    /**
+     * Si el error fue de conexion, descarta la conexion fisica y avisa al
+     * monitor. Devuelve true si la operacion se puede repetir con otra
+     * conexion (fuera de transaccion).
+     */
+    private boolean Caida(SQLException Err)
+    {
+        if (!MonitorConexion.EsCaida(Err))
+        {
+            return false;
+        }
+        PoolConexiones.Invalidar(BD);
+        Lote = null;
+        boolean Repetir = !EnTransaccion;
+        if (Repetir)
+        {
+            Liberar();
+        }
+        MonitorConexion.Principal().Reportar(Err);
+        return Repetir;
+    }
+    
+    /**
+     * Activa en el driver la preparacion en el servidor y su cache propia,
+     * para que MySQL no vuelva a analizar cada consulta parametrizada.
+     */
+    static String Propiedades(String Url)
+    {
+        ConfiguracionBD Conf = ConfiguracionBD.Actual();
+        String Props = "useServerPrepStmts=true&cachePrepStmts=true&prepStmtCacheSize=250&prepStmtCacheSqlLimit=2048"
+                + "&rewriteBatchedStatements=true"
+                // Con setFetchSize() > 0 el driver lee con cursor (ver Recorrer)
+                + "&useCursorFetch=true"
+                // Un servidor caido debe fallar en segundos, no colgar la caja
+                + "&connectTimeout=" + Conf.Largo("lotto.bd.conexion.timeout.ms")
+                + "&socketTimeout=" + Conf.Largo("lotto.bd.socket.timeout.ms");
+        return Url + (Url.contains("?") ? "&" : "?") + Props;
+    }
+    
+    /**
+     * Sentencia preparada desde la cache de la conexion prestada. No se debe
+     * cerrar: la cache la reutiliza en la siguiente llamada con el mismo SQL.
+     */
+    public PreparedStatement Preparar(String Sql) throws SQLException
+    {
+        Asegurar();
+        return PoolConexiones.Sentencias(BD).Obtener(Sql);
+    }
+    
+    /**
+     * Una lectura que falla por caida de la conexion se repite una vez con
+     * otra conexion del pool.
+     */
+    public ResultSet Consultar(String Sql, Object... Parametros) throws SQLException
     {
-       String Text = "";       
         try
         {
-            FileReader Ar = new FileReader("C://Rutalotto.dll");//Ruta del Archivo
+            PreparedStatement Sentencia = PrepararLectura(Sql);
+            Asignar(Sentencia, Parametros);
+            return Sentencia.executeQuery();
+        }
+        catch (SQLException err)
+        {
+            if (!Reintentable(err))
+            {
+                throw err;
+            }
+        }
+        PreparedStatement Sentencia = Preparar(Sql);
+        Asignar(Sentencia, Parametros);
+        return Sentencia.executeQuery();
+    }
+    
+    /**
+     * Recorre la consulta con un cursor del servidor, trayendo
+     * lotto.consulta.fetch filas por viaje en lugar del resultado completo.
+     * Cada fila pasa por el lector y se descarta; la lectura termina al
+     * acabarse las filas o cuando Recibir() devuelve false. Devuelve cuantas
+     * filas se entregaron.
+     */
+    public <T> int Recorrer(LectorFilas<T> Lector, String Sql, Object... Parametros) throws SQLException
+    {
+        return Recorrer(Lector, ConfiguracionBD.Actual().Entero("lotto.consulta.fetch"), 0, Sql, Parametros);
+    }
+    
+    // Fetch 0 lee el resultado completo de una vez, sin cursor; Maximo > 0
+    // le dice al servidor cuantas filas mandar como mucho
+    private <T> int Recorrer(LectorFilas<T> Lector, int Fetch, int Maximo, String Sql, Object... Parametros)
+            throws SQLException
+    {
+        PreparedStatement Sentencia = null;
+        ResultSet Rst = null;
+        int Leidas = 0;
+        try
+        {
+            try
+            {
+                Sentencia = PrepararLectura(Sql);
+                Asignar(Sentencia, Parametros);
+                Sentencia.setFetchSize(Fetch);
+                Sentencia.setMaxRows(Maximo);
+                Rst = Sentencia.executeQuery();
+            }
+            catch (SQLException err)
+            {
+                if (!Reintentable(err))
+                {
+                    throw err;
+                }
+                Sentencia = Preparar(Sql);
+                Asignar(Sentencia, Parametros);
+                Sentencia.setFetchSize(Fetch);
+                Sentencia.setMaxRows(Maximo);
+                Rst = Sentencia.executeQuery();
+            }
+            while (Rst.next())
+            {
+                Leidas++;
+                if (!Lector.Recibir(Lector.Mapear(Rst)))
+                {
+                    break;
+                }
+            }
+            return Leidas;
+        }
+        catch (SQLException err)
+        {
+            if (UltimaReplica)
+            {
+                SoltarReplica(err);
+            }
+            else
+            {
+                Caida(err);
+            }
+            throw err;
+        }
+        finally
+        {
+            // Cerrar el ResultSet suelta el cursor aunque queden filas
+            try
+            {
+                if (Rst != null)
+                {
+                    Rst.close();
+                }
+                if (Sentencia != null)
+                {
+                    // La sentencia vuelve a la cache con la lectura normal
+                    Sentencia.setFetchSize(0);
+                    Sentencia.setMaxRows(0);
+                }
+            }
+            catch (SQLException err)
+            {
+                err.printStackTrace();
+            }
+        }
+    }
+    
+    /**
+     * Recorrer() juntando las filas en una lista de hasta Limite elementos
+     * (0 = sin limite). El cursor del servidor solo se usa sin limite o con
+     * un limite mayor que lotto.consulta.fetch; las lecturas cortas y las
+     * FOR UPDATE (que bloquean pocas filas dentro de una transaccion) se
+     * leen de una vez.
+     */
+    public <T> List<T> Listar(final int Limite, final LectorFilas<T> Lector, String Sql, Object... Parametros) throws SQLException
+    {
+        int Fetch = ConfiguracionBD.Actual().Entero("lotto.consulta.fetch");
+        if ((Limite > 0 && Limite <= Fetch) || Sql.endsWith(" FOR UPDATE"))
+        {
+            Fetch = 0;
+        }
+        final List<T> Filas = new ArrayList<T>();
+        Recorrer(new LectorFilas<T>()
+        {
+            public T Mapear(ResultSet Rst) throws SQLException
+            {
+                return Lector.Mapear(Rst);
+            }
             
-            BufferedReader bf = new BufferedReader(Ar);
-            while ((Text=bf.readLine()) != null)
+            public boolean Recibir(T Fila)
+            {
+                Filas.add(Fila);
+                return Lector.Recibir(Fila) && (Limite <= 0 || Filas.size() < Limite);
+            }
+        }, Fetch, Math.max(Limite, 0), Sql, Parametros);
+        return Filas;
+    }
+    
+    /**
+     * En una Conexion de lectura la consulta va a la replica si ReplicaBD
+     * la da por al dia; si no, o dentro de una transaccion, a la principal.
+     */
+    private PreparedStatement PrepararLectura(String Sql) throws SQLException
+    {
+        UltimaReplica = false;
+        if (Lectura && !EnTransaccion && ReplicaBD.Configurada() && ReplicaBD.Principal().Disponible())
+        {
+            try
+            {
+                if (BDLectura == null || BDLectura.isClosed())
+                {
+                    BDLectura = ReplicaBD.Principal().Prestar();
+                }
+                PreparedStatement Sentencia = PoolConexiones.Sentencias(BDLectura).Obtener(Sql);
+                UltimaReplica = true;
+                return Sentencia;
+            }
+            catch (SQLException err)
+            {
+                SoltarReplica(err);
+            }
+        }
+        return Preparar(Sql);
+    }
+    
+    // Una lectura que fallo en la replica, o por caida, se repite en la principal
+    private boolean Reintentable(SQLException Err)
+    {
+        if (UltimaReplica)
+        {
+            SoltarReplica(Err);
+            return true;
+        }
+        return Caida(Err);
+    }
+    
+    private void SoltarReplica(SQLException Err)
+    {
+        if (Err != null && MonitorConexion.EsCaida(Err))
+        {
+            PoolConexiones.Invalidar(BDLectura);
+            ReplicaBD.Principal().Reportar(Err);
+        }
+        try
+        {
+            if (BDLectura != null)
             {
-                Ruta = Text;
+                BDLectura.close();
             }
-            //System.out.println(Ruta);
-            bf.close();
-        }        
-        catch(IOException ex)
+        }
+        catch (SQLException err)
+        {
+            err.printStackTrace();
+        }
+        BDLectura = null;
+        UltimaReplica = false;
+    }
+    
+    // Las escrituras no se repiten: el servidor pudo aplicarla antes de la caida
+    public int Ejecutar(String Sql, Object... Parametros) throws SQLException
+    {
+        try
+        {
+            PreparedStatement Sentencia = Preparar(Sql);
+            Asignar(Sentencia, Parametros);
+            return Sentencia.executeUpdate();
+        }
+        catch (SQLException err)
+        {
+            Caida(err);
+            throw err;
+        }
+    }
+    
+    /**
+     * Agrega una fila al lote de la sentencia; el lote se envia con
+     * EjecutarLote() usando el mismo SQL.
+     */
+    public void AgregarLote(String Sql, Object... Parametros) throws SQLException
+    {
+        PreparedStatement Sentencia = Lote != null ? Lote : Preparar(Sql);
+        Asignar(Sentencia, Parametros);
+        Sentencia.addBatch();
+        Lote = Sentencia;
+    }
+    
+    public int[] EjecutarLote(String Sql) throws SQLException
+    {
+        PreparedStatement Sentencia = Lote != null ? Lote : Preparar(Sql);
+        try
+        {
+            return Sentencia.executeBatch();
+        }
+        catch (SQLException err)
+        {
+            Caida(err);
+            throw err;
+        }
+        finally
+        {
+            Sentencia.clearBatch();
+            Lote = null;
+        }
+    }
+    
+    public void IniciarTransaccion() throws SQLException
+    {
+        Asegurar();
+        BD.setAutoCommit(false);
+        EnTransaccion = true;
+    }
+    
+    public void Confirmar() throws SQLException
+    {
+        try
         {
-            ex.printStackTrace();
-        }                  
+            BD.commit();
+        }
+        catch (SQLException err)
+        {
+            Caida(err);
+            throw err;
+        }
+        BD.setAutoCommit(true);
+        EnTransaccion = false;
+    }
+    
+    public void Deshacer()
+    {
+        try
+        {
+            if (Lote != null)
+            {
+                Lote.clearBatch();
+                Lote = null;
+            }
+            if (BD != null && !BD.isClosed() && !BD.getAutoCommit())
+            {
+                BD.rollback();
+                BD.setAutoCommit(true);
+            }
+        }
+        catch (SQLException err)
+        {
+            // Con la conexion caida el servidor ya descarto la transaccion
+            EnTransaccion = false;
+            Caida(err);
+            err.printStackTrace();
+        }
+        finally
+        {
+            EnTransaccion = false;
+        }
+    }
+    
+    static void Asignar(PreparedStatement Sentencia, Object... Parametros) throws SQLException
+    {
+        for (int i = 0; i < Parametros.length; i++)
+        {
+            Object Valor = Parametros[i];
+            int Pos = i + 1;
+            if (Valor == null)
+            {
+                Sentencia.setNull(Pos, Types.VARCHAR);
+            }
+            else if (Valor instanceof String)
+            {
+                Sentencia.setString(Pos, (String) Valor);
+            }
+            else if (Valor instanceof Integer)
+            {
+                Sentencia.setInt(Pos, (Integer) Valor);
+            }
+            else if (Valor instanceof Long)
+            {
+                Sentencia.setLong(Pos, (Long) Valor);
+            }
+            else if (Valor instanceof Double)
+            {
+                Sentencia.setDouble(Pos, (Double) Valor);
+            }
+            else if (Valor instanceof java.math.BigDecimal)
+            {
+                Sentencia.setBigDecimal(Pos, (java.math.BigDecimal) Valor);
+            }
+            else if (Valor instanceof java.sql.Date)
+            {
+                Sentencia.setDate(Pos, (java.sql.Date) Valor);
+            }
+            else if (Valor instanceof Time)
+            {
+                Sentencia.setTime(Pos, (Time) Valor);
+            }
+            else if (Valor instanceof Timestamp)
+            {
+                Sentencia.setTimestamp(Pos, (Timestamp) Valor);
+            }
+            else
+            {
+                Sentencia.setObject(Pos, Valor);
+            }
+        }
+    }
+    
+    /**
+     * Devuelve la conexion al pool. Las ventanas la llaman al cerrarse.
+     */
+    public void Liberar()
+    {
+        try
+        {
+            if (RstBD != null)
+            {
+                RstBD.close();
+            }
+            if (BD != null)
+            {
+                BD.close();
+            }
+        }
+        catch (SQLException err)
+        {
+            err.printStackTrace();
+        }
+        RstBD = null;
+        BD = null;
+        SoltarReplica(null);
+    }
+    
+    // La ruta ya no se lee del archivo en cada apertura: ConfiguracionBD
+    // lee C://Rutalotto.dll una sola vez junto con lotto.properties
+    void Archivo()
+    {
+        Ruta = ConfiguracionBD.Actual().Ruta();
     }
     
 }
\ No newline at end of file
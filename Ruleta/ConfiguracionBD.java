@@ -0,0 +1,417 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package Ruleta;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Configuracion de la conexion y de las caches, leida una sola vez por
+ * proceso. El orden de carga es: valores por omision, la ruta del archivo
+ * heredado C://Rutalotto.dll, el archivo de propiedades y por ultimo las
+ * propiedades de sistema (-Dlotto.bd.ruta=...), que mandan sobre todo.
+ * <p>
+ * El archivo se busca en -Dlotto.config, en la variable LOTTO_CONFIG y en
+ * ~/.lotto/lotto.properties. Si cambia en disco se recarga solo y se avisa
+ * a los oyentes, sin reiniciar la terminal. Ver lotto.properties.example.
+ *
+ * @author DESINCO
+ */
+public final class ConfiguracionBD {
+
+    private static final Logger REGISTRO = Logger.getLogger(ConfiguracionBD.class.getName());
+
+    /**
+     * Recibe la configuracion nueva despues de una recarga, en el hilo que
+     * la detecto.
+     */
+    public interface Oyente {
+        void Recargada(ConfiguracionBD Anterior, ConfiguracionBD Nueva);
+    }
+
+    public static final String ARCHIVO_HEREDADO = "C://Rutalotto.dll";
+
+    private static volatile ConfiguracionBD Actual;
+    private static final CopyOnWriteArrayList<Oyente> Oyentes = new CopyOnWriteArrayList<Oyente>();
+    private static ScheduledExecutorService Vigilante;
+
+    private final Properties Valores;
+    private final File Archivo;
+    private final long Modificado;
+
+    private ConfiguracionBD(Properties Valores, File Archivo)
+    {
+        this.Valores = Valores;
+        this.Archivo = Archivo;
+        this.Modificado = Archivo != null ? Archivo.lastModified() : 0;
+    }
+
+    public static ConfiguracionBD Actual()
+    {
+        ConfiguracionBD Conf = Actual;
+        if (Conf == null)
+        {
+            synchronized (ConfiguracionBD.class)
+            {
+                if (Actual == null)
+                {
+                    Actual = Cargar();
+                    Vigilar();
+                }
+                Conf = Actual;
+            }
+        }
+        return Conf;
+    }
+
+    /**
+     * Vuelve a leer todas las fuentes y avisa a los oyentes si algo cambio.
+     */
+    public static ConfiguracionBD Recargar()
+    {
+        ConfiguracionBD Anterior, Nueva;
+        synchronized (ConfiguracionBD.class)
+        {
+            Anterior = Actual;
+            Nueva = Cargar();
+            Actual = Nueva;
+        }
+        if (Anterior != null && !Anterior.Valores.equals(Nueva.Valores))
+        {
+            REGISTRO.log(Level.INFO, "Configuracion recargada desde {0}", Nueva.Origen());
+            for (Oyente Oye : Oyentes)
+            {
+                try
+                {
+                    Oye.Recargada(Anterior, Nueva);
+                }
+                catch (Exception err)
+                {
+                    err.printStackTrace();
+                }
+            }
+        }
+        return Nueva;
+    }
+
+    public static void Agregar(Oyente Nuevo)
+    {
+        Oyentes.addIfAbsent(Nuevo);
+    }
+
+    public static void Quitar(Oyente Viejo)
+    {
+        Oyentes.remove(Viejo);
+    }
+
+    private static Properties Omision()
+    {
+        Properties Def = new Properties();
+        Def.setProperty("lotto.bd.ruta", "localhost/bd_lottoa");
+        Def.setProperty("lotto.bd.usuario", "root");
+        Def.setProperty("lotto.bd.clave", "123");
+        Def.setProperty("lotto.bd.driver", "com.mysql.jdbc.Driver");
+        Def.setProperty("lotto.bd.conexion.timeout.ms", "5000");
+        Def.setProperty("lotto.bd.socket.timeout.ms", "60000");
+        Def.setProperty("lotto.pool.minimo", "2");
+        Def.setProperty("lotto.pool.maximo", "10");
+        Def.setProperty("lotto.pool.espera.ms", "10000");
+        Def.setProperty("lotto.pool.inactiva.ms", "600000");
+        Def.setProperty("lotto.pool.fuga.ms", "900000");
+        Def.setProperty("lotto.pool.validacion.s", "2");
+        Def.setProperty("lotto.pool.sentencias", "64");
+        Def.setProperty("lotto.replica.ruta", "");
+        Def.setProperty("lotto.replica.usuario", "");
+        Def.setProperty("lotto.replica.clave", "");
+        Def.setProperty("lotto.replica.pool.maximo", "5");
+        Def.setProperty("lotto.replica.retraso.maximo.s", "30");
+        Def.setProperty("lotto.replica.revision.ms", "5000");
+        Def.setProperty("lotto.monitor.revision.ms", "5000");
+        Def.setProperty("lotto.monitor.espera.minima.ms", "1000");
+        Def.setProperty("lotto.monitor.espera.maxima.ms", "30000");
+        Def.setProperty("lotto.ejecutor.hilos", "4");
+        Def.setProperty("lotto.consulta.fetch", "500");
+        Def.setProperty("lotto.consulta.limite", "5000");
+        Def.setProperty("lotto.cache.ttl.ms", "60000");
+        Def.setProperty("lotto.radicado.bloque", "20");
+        Def.setProperty("lotto.sorteo.cierre.s", "60");
+        Def.setProperty("lotto.config.revision.ms", "10000");
+        return Def;
+    }
+
+    private static ConfiguracionBD Cargar()
+    {
+        Properties Valores = Omision();
+
+        String Heredada = LeerHeredado();
+        if (Heredada != null)
+        {
+            Valores.setProperty("lotto.bd.ruta", Heredada);
+        }
+
+        File Archivo = Ubicar();
+        if (Archivo != null)
+        {
+            InputStream Entrada = null;
+            try
+            {
+                Entrada = new FileInputStream(Archivo);
+                Properties Leidas = new Properties();
+                Leidas.load(Entrada);
+                Valores.putAll(Leidas);
+            }
+            catch (IOException err)
+            {
+                REGISTRO.log(Level.WARNING, "No fue posible leer {0} - {1}", new Object[] {Archivo, err.getMessage()});
+            }
+            finally
+            {
+                Cerrar(Entrada);
+            }
+        }
+
+        for (String Clave : System.getProperties().stringPropertyNames())
+        {
+            if (Clave.startsWith("lotto.") && !Clave.equals("lotto.config"))
+            {
+                Valores.setProperty(Clave, System.getProperty(Clave));
+            }
+        }
+        return new ConfiguracionBD(Valores, Archivo);
+    }
+
+    private static File Ubicar()
+    {
+        String Ruta = System.getProperty("lotto.config");
+        if (Ruta == null || Ruta.trim().isEmpty())
+        {
+            Ruta = System.getenv("LOTTO_CONFIG");
+        }
+        if (Ruta != null && !Ruta.trim().isEmpty())
+        {
+            return new File(Ruta.trim());
+        }
+        File Usuario = new File(System.getProperty("user.home"), ".lotto" + File.separator + "lotto.properties");
+        return Usuario.isFile() ? Usuario : null;
+    }
+
+    // Ultima linea no vacia del archivo de las terminales Windows
+    private static String LeerHeredado()
+    {
+        File Heredado = new File(ARCHIVO_HEREDADO);
+        if (!Heredado.isFile())
+        {
+            return null;
+        }
+        String Text = "", Ruta = null;
+        BufferedReader bf = null;
+        try
+        {
+            bf = new BufferedReader(new FileReader(Heredado));
+            while ((Text = bf.readLine()) != null)
+            {
+                if (!Text.trim().isEmpty())
+                {
+                    Ruta = Text.trim();
+                }
+            }
+        }
+        catch (IOException ex)
+        {
+            ex.printStackTrace();
+        }
+        finally
+        {
+            Cerrar(bf);
+        }
+        return Ruta;
+    }
+
+    private static void Cerrar(java.io.Closeable Recurso)
+    {
+        if (Recurso != null)
+        {
+            try
+            {
+                Recurso.close();
+            }
+            catch (IOException err)
+            {
+                err.printStackTrace();
+            }
+        }
+    }
+
+    // Revisa la fecha del archivo y recarga si cambio
+    private static void Vigilar()
+    {
+        if (Vigilante != null)
+        {
+            return;
+        }
+        Vigilante = Executors.newSingleThreadScheduledExecutor(new ThreadFactory()
+        {
+            public Thread newThread(Runnable r)
+            {
+                Thread Hilo = new Thread(r, "ConfiguracionBD-Vigilante");
+                Hilo.setDaemon(true);
+                return Hilo;
+            }
+        });
+        long Cada = Actual.Largo("lotto.config.revision.ms");
+        Vigilante.scheduleWithFixedDelay(new Runnable()
+        {
+            public void run()
+            {
+                ConfiguracionBD Conf = Actual;
+                File Archivo = Ubicar();
+                long Fecha = Archivo != null ? Archivo.lastModified() : 0;
+                boolean Otro = Archivo == null ? Conf.Archivo != null : !Archivo.equals(Conf.Archivo);
+                if (Otro || Fecha != Conf.Modificado)
+                {
+                    Recargar();
+                }
+            }
+        }, Cada, Cada, TimeUnit.MILLISECONDS);
+    }
+
+    public String Texto(String Clave)
+    {
+        return Valores.getProperty(Clave, "").trim();
+    }
+
+    public int Entero(String Clave)
+    {
+        return (int) Largo(Clave);
+    }
+
+    public long Largo(String Clave)
+    {
+        String Valor = Texto(Clave);
+        try
+        {
+            return Long.parseLong(Valor);
+        }
+        catch (NumberFormatException err)
+        {
+            String Def = Omision().getProperty(Clave);
+            REGISTRO.log(Level.WARNING, "Valor invalido {0}={1}, se usa {2}", new Object[] {Clave, Valor, Def});
+            return Def != null ? Long.parseLong(Def) : 0;
+        }
+    }
+
+    /**
+     * True si alguna clave con el prefijo tiene otro valor en la otra
+     * configuracion.
+     */
+    public boolean Cambio(ConfiguracionBD Otra, String Prefijo)
+    {
+        for (String Clave : Valores.stringPropertyNames())
+        {
+            if (Clave.startsWith(Prefijo) && !Texto(Clave).equals(Otra.Texto(Clave)))
+            {
+                return true;
+            }
+        }
+        for (String Clave : Otra.Valores.stringPropertyNames())
+        {
+            if (Clave.startsWith(Prefijo) && !Valores.containsKey(Clave))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * URL JDBC: lotto.bd.url si viene completa, o armada con lotto.bd.ruta
+     * (servidor/base) como lo hacia Conexion.
+     */
+    public String Url()
+    {
+        String Url = Texto("lotto.bd.url");
+        return Url.isEmpty() ? "jdbc:mysql://" + Ruta() : Url;
+    }
+
+    /**
+     * URL de la replica de lectura (lotto.replica.url o lotto.replica.ruta);
+     * vacia si la terminal no tiene replica configurada.
+     */
+    public String UrlReplica()
+    {
+        String Url = Texto("lotto.replica.url");
+        if (!Url.isEmpty())
+        {
+            return Url;
+        }
+        String Ruta = Texto("lotto.replica.ruta");
+        return Ruta.isEmpty() ? "" : "jdbc:mysql://" + Ruta;
+    }
+
+    // Sin usuario propio la replica usa el de la principal
+    public String UsuarioReplica()
+    {
+        String Usuario = Texto("lotto.replica.usuario");
+        return Usuario.isEmpty() ? Usuario() : Usuario;
+    }
+
+    public String ClaveReplica()
+    {
+        return Texto("lotto.replica.usuario").isEmpty() ? Clave() : Valores.getProperty("lotto.replica.clave", "");
+    }
+
+    public String Ruta()
+    {
+        return Texto("lotto.bd.ruta");
+    }
+
+    public String Usuario()
+    {
+        return Texto("lotto.bd.usuario");
+    }
+
+    public String Clave()
+    {
+        return Valores.getProperty("lotto.bd.clave", "");
+    }
+
+    /**
+     * Los drivers JDBC 4 se registran solos; la clase configurada solo se
+     * carga por compatibilidad con el conector viejo.
+     */
+    public void CargarDriver()
+    {
+        String Driver = Texto("lotto.bd.driver");
+        if (Driver.isEmpty())
+        {
+            return;
+        }
+        try
+        {
+            Class.forName(Driver);
+        }
+        catch (ClassNotFoundException err)
+        {
+            REGISTRO.log(Level.WARNING, "No se encontro el driver {0}, se usa el registrado por JDBC", Driver);
+        }
+    }
+
+    public String Origen()
+    {
+        return Archivo != null ? Archivo.getAbsolutePath() : "valores por omision";
+    }
+}
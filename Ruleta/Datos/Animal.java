@@ -0,0 +1,55 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package Ruleta.Datos;
+
+/**
+ * Animal de la ruleta (tabla lottoruleta). Inmutable.
+ *
+ * @author DESINCO
+ */
+public final class Animal {
+
+    private final int Num;
+    private final String Codigo;
+    private final String Nombre;
+    private final String Color;
+
+    public Animal(int Num, String Codigo, String Nombre, String Color)
+    {
+        this.Num = Num;
+        this.Codigo = Codigo;
+        this.Nombre = Nombre;
+        this.Color = Color;
+    }
+
+    public int Num()
+    {
+        return Num;
+    }
+
+    /**
+     * Codigo de juego ("0", "00", "1".."36").
+     */
+    public String Codigo()
+    {
+        return Codigo;
+    }
+
+    public String Nombre()
+    {
+        return Nombre;
+    }
+
+    public String Color()
+    {
+        return Color;
+    }
+
+    @Override
+    public String toString()
+    {
+        return Codigo + " " + Nombre;
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package Ruleta.Datos;
+
+import Ruleta.Conexion;
+import Ruleta.LectorFilas;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Acceso a la tabla lottoruleta.
+ *
+ * @author DESINCO
+ */
+public class AnimalDAO {
+
+    static final LectorFilas<Animal> LECTOR = new LectorFilas<Animal>()
+    {
+        public Animal Mapear(ResultSet Rst) throws SQLException
+        {
+            return new Animal(Rst.getInt("NUM"), Rst.getString("CODIGOJUEGO"), Rst.getString("VALOR"), Rst.getString("COLOR"));
+        }
+    };
+
+    private final Conexion Cone;
+
+    public AnimalDAO(Conexion Cone)
+    {
+        this.Cone = Cone;
+    }
+
+    public List<Animal> Activos() throws SQLException
+    {
+        return Cone.Listar(0, LECTOR, "SELECT NUM, CODIGOJUEGO, VALOR, COLOR FROM lottoruleta WHERE ESTADO = 'A' ORDER BY NUM");
+    }
+
+    /**
+     * Animal por codigo de juego, o null si no existe.
+     */
+    public Animal Buscar(String Codigo) throws SQLException
+    {
+        List<Animal> Encontrados = Cone.Listar(1, LECTOR,
+                "SELECT NUM, CODIGOJUEGO, VALOR, COLOR FROM lottoruleta WHERE CODIGOJUEGO = ?", Codigo);
+        return Encontrados.isEmpty() ? null : Encontrados.get(0);
+    }
+}
@@ -0,0 +1,292 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package Ruleta.Datos;
+
+import Ruleta.ConfiguracionBD;
+import Ruleta.Conexion;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Animales (lottoruleta) y horarios (horariojuego) activos y sucursales
+ * (BODEGAS), compartidos por todas las ventanas del proceso. Cada carga es
+ * una foto inmutable; las ventanas leen Actual() en lugar de repetir las
+ * consultas al abrirse.
+ * <p>
+ * Un hilo propio compara cada lotto.cache.ttl.ms una firma de las tablas
+ * (cantidad de filas y suma de CRC32) y solo vuelve a cargar si cambio, asi
+ * que lo guardado desde otra terminal se ve a mas tardar en ese tiempo. Las
+ * ventanas que modifican los catalogos llaman Invalidar() despues de guardar.
+ *
+ * @author DESINCO
+ */
+public final class Catalogo {
+
+    private static final Logger REGISTRO = Logger.getLogger(Catalogo.class.getName());
+
+    /**
+     * Recibe cada foto nueva, en el hilo que la cargo.
+     */
+    public interface Oyente {
+        void Recargado(Catalogo Nuevo);
+    }
+
+    // Firma de los catalogos; las tablas son de pocas filas
+    static final String SQL_VERSION = "SELECT "
+            + "(SELECT CONCAT(COUNT(*), ':', COALESCE(SUM(CRC32(CONCAT_WS('|', NUM, CODIGOJUEGO, VALOR, COLOR, ESTADO))), 0)) FROM lottoruleta) AS ANIMALES, "
+            + "(SELECT CONCAT(COUNT(*), ':', COALESCE(SUM(CRC32(CONCAT_WS('|', NUM, DESCRIPCION, HORA, ESTADO))), 0)) FROM horariojuego) AS HORARIOS, "
+            + "(SELECT CONCAT(COUNT(*), ':', COALESCE(SUM(CRC32(CONCAT_WS('|', CODIGO, BODEGA))), 0)) FROM BODEGAS) AS SUCURSALES";
+
+    private static volatile Catalogo Vigente;
+    private static ScheduledExecutorService Hilo;
+    private static final CopyOnWriteArrayList<Oyente> Oyentes = new CopyOnWriteArrayList<Oyente>();
+
+    private final List<Animal> Animales;
+    private final List<Horario> Horarios;
+    private final IndiceAnimales Indice;
+    private final LineaSorteos Linea;
+    private final Sucursales Directorio;
+    private final String Version;
+
+    private Catalogo(List<Animal> Animales, List<Horario> Horarios, Sucursales Directorio, String Version)
+    {
+        this.Animales = Collections.unmodifiableList(new ArrayList<Animal>(Animales));
+        this.Horarios = Collections.unmodifiableList(new ArrayList<Horario>(Horarios));
+        this.Indice = new IndiceAnimales(this.Animales);
+        this.Linea = new LineaSorteos(this.Horarios);
+        this.Directorio = Directorio;
+        this.Version = Version;
+    }
+
+    /**
+     * Foto vigente; la primera vez la carga en el hilo que llama. No llamar
+     * desde el hilo de Swing.
+     */
+    public static Catalogo Actual() throws SQLException
+    {
+        Catalogo Cat = Vigente;
+        return Cat != null ? Cat : Cargar();
+    }
+
+    /**
+     * Foto vigente sin ir a la base de datos, o null si aun no se ha
+     * cargado; sirve para buscar desde el hilo de Swing.
+     */
+    public static Catalogo Cargado()
+    {
+        return Vigente;
+    }
+
+    /**
+     * Carga los catalogos en segundo plano al arrancar la terminal y deja
+     * programada la revision de la firma.
+     */
+    public static synchronized void Precargar()
+    {
+        if (Hilo != null)
+        {
+            return;
+        }
+        Hilo = Executors.newSingleThreadScheduledExecutor(new ThreadFactory()
+        {
+            public Thread newThread(Runnable r)
+            {
+                Thread Nuevo = new Thread(r, "Catalogo");
+                Nuevo.setDaemon(true);
+                return Nuevo;
+            }
+        });
+        Hilo.schedule(new Runnable()
+        {
+            public void run()
+            {
+                Revisar();
+            }
+        }, 0, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Vuelve a cargar la foto despues de modificar los catalogos. Como en la
+     * revision periodica, la foto anterior sigue vigente mientras se lee y
+     * si la lectura falla (la revision la recarga despues, porque la firma
+     * cambio); nunca queda un momento sin foto. No llamar desde el hilo de
+     * Swing.
+     */
+    public static synchronized void Invalidar()
+    {
+        try
+        {
+            Vigente = Leer();
+            Avisar(Vigente);
+        }
+        catch (SQLException err)
+        {
+            REGISTRO.log(Level.WARNING, "No fue posible recargar los catalogos - {0}", err.getMessage());
+        }
+    }
+
+    public List<Animal> Animales()
+    {
+        return Animales;
+    }
+
+    /**
+     * Animal activo con ese codigo de juego, o null; se resuelve en memoria.
+     */
+    public Animal Animal(String Codigo)
+    {
+        return Indice.Buscar(Codigo);
+    }
+
+    public List<Horario> Horarios()
+    {
+        return Horarios;
+    }
+
+    /**
+     * Horarios activos ordenados por hora de sorteo.
+     */
+    public LineaSorteos Linea()
+    {
+        return Linea;
+    }
+
+    public Sucursales Sucursales()
+    {
+        return Directorio;
+    }
+
+    public String Version()
+    {
+        return Version;
+    }
+
+    private static synchronized Catalogo Cargar() throws SQLException
+    {
+        Catalogo Cat = Vigente;
+        if (Cat != null)
+        {
+            // Otro hilo la cargo mientras este esperaba
+            return Cat;
+        }
+        Vigente = Leer();
+        Avisar(Vigente);
+        return Vigente;
+    }
+
+    public static void Agregar(Oyente Nuevo)
+    {
+        Oyentes.addIfAbsent(Nuevo);
+    }
+
+    public static void Quitar(Oyente Viejo)
+    {
+        Oyentes.remove(Viejo);
+    }
+
+    private static void Avisar(Catalogo Nuevo)
+    {
+        for (Oyente Oye : Oyentes)
+        {
+            try
+            {
+                Oye.Recargado(Nuevo);
+            }
+            catch (Exception err)
+            {
+                err.printStackTrace();
+            }
+        }
+    }
+
+    private static Catalogo Leer() throws SQLException
+    {
+        Conexion Cone = new Conexion();
+        try
+        {
+            String Version = LeerVersion(Cone);
+            return new Catalogo(new AnimalDAO(Cone).Activos(), new HorarioDAO(Cone).Activos(), Sucursales.Leer(Cone), Version);
+        }
+        finally
+        {
+            Cone.Liberar();
+        }
+    }
+
+    private static String LeerVersion(Conexion Cone) throws SQLException
+    {
+        ResultSet Rst = Cone.Consultar(SQL_VERSION);
+        try
+        {
+            return Rst.next() ? Rst.getString("ANIMALES") + "/" + Rst.getString("HORARIOS") + "/" + Rst.getString("SUCURSALES") : "";
+        }
+        finally
+        {
+            Rst.close();
+        }
+    }
+
+    // Compara la firma y recarga si alguien modifico los catalogos
+    private static void Revisar()
+    {
+        try
+        {
+            Catalogo Cat = Vigente;
+            if (Cat == null)
+            {
+                Cargar();
+                return;
+            }
+            String Version;
+            Conexion Cone = new Conexion();
+            try
+            {
+                Version = LeerVersion(Cone);
+            }
+            finally
+            {
+                Cone.Liberar();
+            }
+            if (!Version.equals(Cat.Version))
+            {
+                // La foto anterior sigue vigente si la carga falla
+                synchronized (Catalogo.class)
+                {
+                    if (Vigente == Cat)
+                    {
+                        Vigente = Leer();
+                        Avisar(Vigente);
+                        REGISTRO.log(Level.INFO, "Catalogos recargados ({0})", Version);
+                    }
+                }
+            }
+        }
+        catch (Exception err)
+        {
+            // Sin conexion se sigue con la foto anterior hasta la proxima revision
+            REGISTRO.log(Level.WARNING, "No fue posible revisar los catalogos - {0}", err.getMessage());
+        }
+        finally
+        {
+            Hilo.schedule(new Runnable()
+            {
+                public void run()
+                {
+                    Revisar();
+                }
+            }, Math.max(1000, ConfiguracionBD.Actual().Largo("lotto.cache.ttl.ms")), TimeUnit.MILLISECONDS);
+        }
+    }
+}
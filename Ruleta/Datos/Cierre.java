@@ -0,0 +1,136 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package Ruleta.Datos;
+
+import java.time.LocalDate;
+
+/**
+ * Cifras del cierre de un sorteo en una sucursal, calculadas desde los
+ * acumulados de cierreacumulado con las mismas reglas de cerrar-juego.php:
+ * el administrador de la sucursal se lleva PORCENTAJEADMINSUCURSAL de lo
+ * apostado y del resto, despues de pagar, COMISIONSISTEMATIZACION y
+ * COMISIONADMINISTRACION. Las cifras "proyectadas" cuentan todo el premio
+ * del animal ganador; las "reales" solo lo ya pagado. Inmutable.
+ *
+ * @author DESINCO
+ */
+public final class Cierre {
+
+    private final LocalDate Fecha;
+    private final int CodigoHorario;
+    private final int Sucursal;
+    private final long Apostado;
+    private final String CodigoGanador;
+    private final String AnimalGanador;
+    private final long ApostadoGanador;
+    private final int PuntosPago;
+    private final long Pagado;
+    private final long AdminSucursal;
+    private final int ComisionSistematizacion;
+    private final int ComisionAdministracion;
+
+    public Cierre(LocalDate Fecha, int CodigoHorario, int Sucursal, long Apostado, String CodigoGanador, String AnimalGanador,
+            long ApostadoGanador, long Pagado, Parametros Par)
+    {
+        this.Fecha = Fecha;
+        this.CodigoHorario = CodigoHorario;
+        this.Sucursal = Sucursal;
+        this.Apostado = Apostado;
+        this.CodigoGanador = CodigoGanador;
+        this.AnimalGanador = AnimalGanador;
+        this.ApostadoGanador = ApostadoGanador;
+        this.PuntosPago = Par.PuntosPago();
+        this.Pagado = Pagado;
+        this.AdminSucursal = Porcentaje(Apostado, Par.PorcentajeAdminSucursal());
+        this.ComisionSistematizacion = Par.ComisionSistematizacion();
+        this.ComisionAdministracion = Par.ComisionAdministracion();
+    }
+
+    // Puntos basicos redondeados al peso (la mitad hacia afuera), en long;
+    // ArithmeticException si el producto no cabe
+    private static long Porcentaje(long Valor, int PuntosBasicos)
+    {
+        long Producto = Math.multiplyExact(Valor, PuntosBasicos);
+        return Producto < 0 ? -(Math.addExact(-Producto, 5_000) / 10_000) : Math.addExact(Producto, 5_000) / 10_000;
+    }
+
+    public LocalDate Fecha()
+    {
+        return Fecha;
+    }
+
+    public int CodigoHorario()
+    {
+        return CodigoHorario;
+    }
+
+    public int Sucursal()
+    {
+        return Sucursal;
+    }
+
+    public long Apostado()
+    {
+        return Apostado;
+    }
+
+    /**
+     * Codigo del animal ganador, o null si el sorteo aun no tiene resultado.
+     */
+    public String CodigoGanador()
+    {
+        return CodigoGanador;
+    }
+
+    public String AnimalGanador()
+    {
+        return AnimalGanador;
+    }
+
+    public long ApostadoGanador()
+    {
+        return ApostadoGanador;
+    }
+
+    public long PagoPotencial()
+    {
+        return ApostadoGanador * PuntosPago;
+    }
+
+    public long Pagado()
+    {
+        return Pagado;
+    }
+
+    public long Pendiente()
+    {
+        return PagoPotencial() - Pagado;
+    }
+
+    public long AdminSucursal()
+    {
+        return AdminSucursal;
+    }
+
+    public long UtilidadProyectada()
+    {
+        return Apostado - AdminSucursal - PagoPotencial();
+    }
+
+    public long UtilidadReal()
+    {
+        return Apostado - AdminSucursal - Pagado;
+    }
+
+    public long ComisionSistema()
+    {
+        return UtilidadReal() > 0 ? Porcentaje(UtilidadReal(), ComisionSistematizacion) : 0;
+    }
+
+    public long ComisionAdmin()
+    {
+        return UtilidadReal() > 0 ? Porcentaje(UtilidadReal(), ComisionAdministracion) : 0;
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package Ruleta.Datos;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.text.DecimalFormatSymbols;
+
+/**
+ * Valores en pesos enteros guardados en un long: se suman exactos, sin el
+ * redondeo de double ni el de las columnas float(9,3), y se leen y escriben
+ * con separador de miles sin pasar por DecimalFormat. El peso no tiene
+ * centavos en circulacion y los parametros de juego son pesos enteros, asi
+ * que el long es la unidad; en la base de datos las columnas son
+ * DECIMAL(12,2) (migracion valores_decimal.sql).
+ *
+ * @author DESINCO
+ */
+public final class Dinero {
+
+    // Caracteres maximos de Formatear(): signo, 19 digitos y 6 separadores
+    public static final int ANCHO = 26;
+
+    // El mismo separador que usaba DecimalFormat("###,###") en las ventanas
+    private static final char MILES = DecimalFormatSymbols.getInstance().getGroupingSeparator();
+
+    private Dinero()
+    {
+    }
+
+    /**
+     * Pesos escritos en pantalla, enteros y sin separador ("1500") o con
+     * separador de miles ("1.500", "1,500", "1 500"): el separador solo va
+     * antes de grupos de tres cifras y es el mismo en todo el valor.
+     * Cualquier otra cosa, decimales incluidos ("1.5", "1.2345",
+     * "50000.00"), es NumberFormatException.
+     */
+    public static long Pesos(CharSequence Texto)
+    {
+        String Limpio = Texto.toString().trim();
+        if (Limpio.isEmpty())
+        {
+            throw new NumberFormatException("Valor vacio");
+        }
+        long Valor = 0;
+        // Cifras desde el ultimo separador; Separador 0 mientras no haya
+        int Cifras = 0;
+        char Separador = 0;
+        for (int x = 0; x < Limpio.length(); x++)
+        {
+            char c = Limpio.charAt(x);
+            if (c >= '0' && c <= '9')
+            {
+                if (Valor > (Long.MAX_VALUE - (c - '0')) / 10)
+                {
+                    throw new NumberFormatException("Valor fuera de rango: " + Texto);
+                }
+                Valor = Valor * 10 + (c - '0');
+                Cifras++;
+            }
+            else if ((c == '.' || c == ',' || c == ' ') && (Separador == 0 ? Cifras >= 1 && Cifras <= 3
+                    : c == Separador && Cifras == 3))
+            {
+                Separador = c;
+                Cifras = 0;
+            }
+            else
+            {
+                throw new NumberFormatException("Valor invalido: " + Texto);
+            }
+        }
+        if (Cifras == 0 || (Separador != 0 && Cifras != 3))
+        {
+            throw new NumberFormatException("Valor invalido: " + Texto);
+        }
+        return Valor;
+    }
+
+    /**
+     * Escribe el valor con separador de miles desde Destino[Desde] y
+     * devuelve la posicion siguiente al ultimo caracter escrito.
+     */
+    public static int Formatear(long Valor, char[] Destino, int Desde)
+    {
+        int Digitos = 1;
+        for (long Resto = Valor / 10; Resto != 0; Resto /= 10)
+        {
+            Digitos++;
+        }
+        int Fin = Desde + Digitos + (Digitos - 1) / 3 + (Valor < 0 ? 1 : 0);
+        // De derecha a izquierda; Valor % 10 es negativo para negativos, asi
+        // Long.MIN_VALUE no se desborda
+        int Pos = Fin, Grupo = 0;
+        do
+        {
+            if (Grupo == 3)
+            {
+                Destino[--Pos] = MILES;
+                Grupo = 0;
+            }
+            Destino[--Pos] = (char) ('0' + Math.abs(Valor % 10));
+            Valor /= 10;
+            Grupo++;
+        }
+        while (Valor != 0);
+        if (Pos > Desde)
+        {
+            Destino[--Pos] = '-';
+        }
+        return Fin;
+    }
+
+    public static String Texto(long Valor)
+    {
+        char Destino[] = new char[ANCHO];
+        return new String(Destino, 0, Formatear(Valor, Destino, 0));
+    }
+
+    /**
+     * Lee una columna de dinero (DECIMAL o la float vieja) redondeada al peso.
+     */
+    public static long Leer(ResultSet Rst, String Columna) throws SQLException
+    {
+        BigDecimal Valor = Rst.getBigDecimal(Columna);
+        return Valor == null ? 0 : Valor.setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+}
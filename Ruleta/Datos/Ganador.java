@@ -0,0 +1,113 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package Ruleta.Datos;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Ticket ganador de un sorteo ya liquidado (tabla ganadoresliquidados): lo
+ * apostado al animal ganador y el pago con los PUNTOSPAGO del momento de la
+ * liquidacion. Inmutable.
+ *
+ * @author DESINCO
+ */
+public final class Ganador {
+
+    private final LocalDate Fecha;
+    private final int CodigoHorario;
+    private final String Horario;
+    private final String Radicado;
+    private final String CodigoAnimal;
+    private final String Animal;
+    private final long Valor;
+    private final int PuntosPago;
+    private final long Pago;
+    private final String Sucursal;
+    private final LocalTime Hora;
+
+    public Ganador(LocalDate Fecha, int CodigoHorario, String Horario, String Radicado, String CodigoAnimal, String Animal,
+            long Valor, int PuntosPago, long Pago, String Sucursal, LocalTime Hora)
+    {
+        this.Fecha = Fecha;
+        this.CodigoHorario = CodigoHorario;
+        this.Horario = Horario;
+        this.Radicado = Radicado;
+        this.CodigoAnimal = CodigoAnimal;
+        this.Animal = Animal;
+        this.Valor = Valor;
+        this.PuntosPago = PuntosPago;
+        this.Pago = Pago;
+        this.Sucursal = Sucursal;
+        this.Hora = Hora;
+    }
+
+    public LocalDate Fecha()
+    {
+        return Fecha;
+    }
+
+    public int CodigoHorario()
+    {
+        return CodigoHorario;
+    }
+
+    public String Horario()
+    {
+        return Horario;
+    }
+
+    public String Radicado()
+    {
+        return Radicado;
+    }
+
+    public String CodigoAnimal()
+    {
+        return CodigoAnimal;
+    }
+
+    public String Animal()
+    {
+        return Animal;
+    }
+
+    /**
+     * Pesos apostados al animal ganador en el ticket.
+     */
+    public long Valor()
+    {
+        return Valor;
+    }
+
+    public int PuntosPago()
+    {
+        return PuntosPago;
+    }
+
+    /**
+     * Pesos a pagar: Valor por PuntosPago.
+     */
+    public long Pago()
+    {
+        return Pago;
+    }
+
+    /**
+     * SUCURSAL tal como esta en hislottojuego (codigo de BODEGAS).
+     */
+    public String Sucursal()
+    {
+        return Sucursal;
+    }
+
+    /**
+     * Hora de venta del ticket.
+     */
+    public LocalTime Hora()
+    {
+        return Hora;
+    }
+}
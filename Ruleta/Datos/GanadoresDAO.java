@@ -0,0 +1,62 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package Ruleta.Datos;
+
+import Ruleta.Conexion;
+import java.sql.Date;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Consulta de ganadores comun a FrmPrincipal y FrmDGanadores sobre lo ya
+ * liquidado en ganadoresliquidados (MotorLiquidacion): un ticket por fila,
+ * con el PAGO y los PUNTOSPAGO con que se liquido el sorteo, leido en
+ * paginas por la llave primaria (FECHA, CODIGOH, RADICADO). La pagina
+ * siguiente arranca despues del ultimo ganador leido en lugar de saltar
+ * filas con OFFSET, y el orden es el de la llave, sin tabla temporal ni
+ * ordenamiento aparte.
+ *
+ * @author DESINCO
+ */
+public class GanadoresDAO {
+
+    static final String SQL_ORDEN = " ORDER BY FECHA, CODIGOH, RADICADO LIMIT ?";
+    static final String SQL_PRIMERA = MotorLiquidacion.SQL_GANADORES + " WHERE FECHA BETWEEN ? AND ?" + SQL_ORDEN;
+    static final String SQL_SIGUIENTE = MotorLiquidacion.SQL_GANADORES + " WHERE FECHA BETWEEN ? AND ?"
+            + " AND (FECHA > ? OR (FECHA = ? AND (CODIGOH > ? OR (CODIGOH = ? AND RADICADO > ?))))" + SQL_ORDEN;
+
+    private final Conexion Cone;
+
+    public GanadoresDAO(Conexion Cone)
+    {
+        this.Cone = Cone;
+    }
+
+    /**
+     * Hasta Cantidad ganadores entre dos fechas inclusive, despues de
+     * Despues en el orden (FECHA, CODIGOH, RADICADO); Despues null es la
+     * primera pagina. Una pagina con menos de Cantidad filas es la ultima.
+     */
+    public List<Ganador> Entre(LocalDate Desde, LocalDate Hasta, Ganador Despues, int Cantidad) throws SQLException
+    {
+        if (Despues == null)
+        {
+            return Cone.Listar(Cantidad, MotorLiquidacion.LECTOR, SQL_PRIMERA, Date.valueOf(Desde), Date.valueOf(Hasta),
+                    Cantidad);
+        }
+        Date Fecha = Date.valueOf(Despues.Fecha());
+        return Cone.Listar(Cantidad, MotorLiquidacion.LECTOR, SQL_SIGUIENTE, Date.valueOf(Desde), Date.valueOf(Hasta),
+                Fecha, Fecha, Despues.CodigoHorario(), Despues.CodigoHorario(), Despues.Radicado(), Cantidad);
+    }
+
+    /**
+     * Primeros Cantidad ganadores del dia.
+     */
+    public List<Ganador> DelDia(LocalDate Fecha, int Cantidad) throws SQLException
+    {
+        return Entre(Fecha, Fecha, null, Cantidad);
+    }
+}
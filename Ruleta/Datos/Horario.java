@@ -0,0 +1,58 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package Ruleta.Datos;
+
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Horario de sorteo (tabla horariojuego). Inmutable.
+ *
+ * @author DESINCO
+ */
+public final class Horario {
+
+    public static final DateTimeFormatter HORA = DateTimeFormatter.ofPattern("HH:mm:ss");
+
+    private final int Num;
+    private final String Descripcion;
+    private final LocalTime Hora;
+
+    public Horario(int Num, String Descripcion, LocalTime Hora)
+    {
+        this.Num = Num;
+        this.Descripcion = Descripcion;
+        this.Hora = Hora;
+    }
+
+    public int Num()
+    {
+        return Num;
+    }
+
+    public String Descripcion()
+    {
+        return Descripcion;
+    }
+
+    public LocalTime Hora()
+    {
+        return Hora;
+    }
+
+    /**
+     * Hora con segundos, como la mostraba java.sql.Time (16:04:00).
+     */
+    public String HoraTexto()
+    {
+        return Hora.format(HORA);
+    }
+
+    @Override
+    public String toString()
+    {
+        return Descripcion;
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package Ruleta.Datos;
+
+import Ruleta.Conexion;
+import Ruleta.LectorFilas;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * Acceso a la tabla horariojuego.
+ *
+ * @author DESINCO
+ */
+public class HorarioDAO {
+
+    static final LectorFilas<Horario> LECTOR = new LectorFilas<Horario>()
+    {
+        public Horario Mapear(ResultSet Rst) throws SQLException
+        {
+            return new Horario(Rst.getInt("NUM"), Rst.getString("DESCRIPCION"), Rst.getTime("HORA").toLocalTime());
+        }
+    };
+
+    private final Conexion Cone;
+
+    public HorarioDAO(Conexion Cone)
+    {
+        this.Cone = Cone;
+    }
+
+    public List<Horario> Activos() throws SQLException
+    {
+        return Cone.Listar(0, LECTOR, "SELECT NUM, DESCRIPCION, HORA FROM horariojuego WHERE ESTADO = 'A' ORDER BY NUM");
+    }
+
+    /**
+     * Horarios activos que aun no han jugado a la hora dada.
+     */
+    public List<Horario> ActivosDesde(LocalTime Hora) throws SQLException
+    {
+        return Cone.Listar(0, LECTOR, "SELECT NUM, DESCRIPCION, HORA FROM horariojuego WHERE (HORA >= ?) AND ESTADO = 'A' ORDER BY NUM",
+                Time.valueOf(Hora));
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package Ruleta.Datos;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Indice inmutable de animales por codigo de juego. La busqueda compara el
+ * texto exacto: "0" y "00" son animales distintos, asi que el codigo nunca
+ * se convierte a numero.
+ *
+ * @author DESINCO
+ */
+public final class IndiceAnimales {
+
+    private final Map<String, Animal> PorCodigo;
+
+    public IndiceAnimales(List<Animal> Animales)
+    {
+        // Capacidad para que el mapa no crezca mientras se llena
+        Map<String, Animal> Mapa = new HashMap<String, Animal>(Animales.size() * 4 / 3 + 1);
+        for (Animal Ani : Animales)
+        {
+            // Con codigos repetidos queda el de menor NUM, el primero de la lista
+            if (!Mapa.containsKey(Ani.Codigo()))
+            {
+                Mapa.put(Ani.Codigo(), Ani);
+            }
+        }
+        this.PorCodigo = Collections.unmodifiableMap(Mapa);
+    }
+
+    /**
+     * Animal con ese codigo, o null si no existe. Se ignoran los espacios
+     * que el cajero deje antes o despues del codigo.
+     */
+    public Animal Buscar(String Codigo)
+    {
+        return Codigo == null ? null : PorCodigo.get(Codigo.trim());
+    }
+
+    public int Cantidad()
+    {
+        return PorCodigo.size();
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package Ruleta.Datos;
+
+import java.time.LocalTime;
+
+/**
+ * Una linea del ticket: animal, horario de sorteo y valor apostado en pesos.
+ * Inmutable; el valor se guarda como entero y no vuelve a pasar por texto.
+ *
+ * @author DESINCO
+ */
+public final class Jugada {
+
+    private final String CodigoAnimal;
+    private final String Animal;
+    private final int CodigoHorario;
+    private final String Horario;
+    private final LocalTime HoraJuego;
+    private final long Valor;
+
+    public Jugada(String CodigoAnimal, String Animal, int CodigoHorario, String Horario, LocalTime HoraJuego, long Valor)
+    {
+        this.CodigoAnimal = CodigoAnimal;
+        this.Animal = Animal;
+        this.CodigoHorario = CodigoHorario;
+        this.Horario = Horario;
+        this.HoraJuego = HoraJuego;
+        this.Valor = Valor;
+    }
+
+    public Jugada(Animal Ani, Horario Hor, long Valor)
+    {
+        this(Ani.Codigo(), Ani.Nombre(), Hor.Num(), Hor.Descripcion(), Hor.Hora(), Valor);
+    }
+
+    public String CodigoAnimal()
+    {
+        return CodigoAnimal;
+    }
+
+    public String Animal()
+    {
+        return Animal;
+    }
+
+    public int CodigoHorario()
+    {
+        return CodigoHorario;
+    }
+
+    public String Horario()
+    {
+        return Horario;
+    }
+
+    public LocalTime HoraJuego()
+    {
+        return HoraJuego;
+    }
+
+    public long Valor()
+    {
+        return Valor;
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package Ruleta.Datos;
+
+import Ruleta.ConfiguracionBD;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Sorteos del dia ordenados por hora, en arreglos de segundos del dia, para
+ * saber que sorteos siguen abiertos y cual es el proximo cierre con una
+ * busqueda binaria en memoria. Un sorteo cierra para la venta
+ * lotto.sorteo.cierre.s segundos antes de su hora. Inmutable.
+ *
+ * @author DESINCO
+ */
+public final class LineaSorteos {
+
+    // Por hora: segundo del dia de cada sorteo, ascendente, y su horario
+    private final int Segundos[];
+    private final Horario Horarios[];
+    // Por NUM, para revisar un horario ya elegido
+    private final int Ids[];
+    private final int SegundosPorId[];
+
+    public LineaSorteos(List<Horario> Lista)
+    {
+        Horario Orden[] = Lista.toArray(new Horario[Lista.size()]);
+        Arrays.sort(Orden, new Comparator<Horario>()
+        {
+            public int compare(Horario A, Horario B)
+            {
+                int Cmp = A.Hora().compareTo(B.Hora());
+                return Cmp != 0 ? Cmp : Integer.compare(A.Num(), B.Num());
+            }
+        });
+        Horarios = Orden;
+        Segundos = new int[Orden.length];
+        for (int x = 0; x < Orden.length; x++)
+        {
+            Segundos[x] = Orden[x].Hora().toSecondOfDay();
+        }
+
+        long Pares[] = new long[Orden.length];
+        for (int x = 0; x < Orden.length; x++)
+        {
+            Pares[x] = ((long) Orden[x].Num() << 32) | Segundos[x];
+        }
+        Arrays.sort(Pares);
+        Ids = new int[Pares.length];
+        SegundosPorId = new int[Pares.length];
+        for (int x = 0; x < Pares.length; x++)
+        {
+            Ids[x] = (int) (Pares[x] >>> 32);
+            SegundosPorId[x] = (int) Pares[x];
+        }
+    }
+
+    /**
+     * Segundos antes del sorteo en que se deja de vender (lotto.sorteo.cierre.s).
+     */
+    public static int Margen()
+    {
+        return Math.max(0, ConfiguracionBD.Actual().Entero("lotto.sorteo.cierre.s"));
+    }
+
+    /**
+     * Sorteos con hora igual o posterior a la dada, en orden de hora.
+     */
+    public List<Horario> Desde(LocalTime Hora)
+    {
+        int Inicio = Primero(Hora.toSecondOfDay());
+        if (Inicio == Horarios.length)
+        {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(new ArrayList<Horario>(
+                Arrays.asList(Horarios).subList(Inicio, Horarios.length)));
+    }
+
+    /**
+     * Sorteos que aun reciben apuestas a la hora dada.
+     */
+    public List<Horario> Abiertos(LocalTime Ahora, int Margen)
+    {
+        int Limite = Ahora.toSecondOfDay() + Margen;
+        if (Limite >= 86_400)
+        {
+            return Collections.emptyList();
+        }
+        return Desde(LocalTime.ofSecondOfDay(Limite));
+    }
+
+    /**
+     * Hora del proximo cierre de venta, o null si ya no quedan sorteos hoy.
+     */
+    public LocalTime ProximoCierre(LocalTime Ahora, int Margen)
+    {
+        int Pos = Primero(Ahora.toSecondOfDay() + Margen);
+        return Pos == Segundos.length ? null : LocalTime.ofSecondOfDay(Segundos[Pos] - Margen);
+    }
+
+    /**
+     * True si el horario existe y todavia no ha cerrado la venta.
+     */
+    public boolean Abierto(int Num, LocalTime Ahora, int Margen)
+    {
+        int Pos = Arrays.binarySearch(Ids, Num);
+        return Pos >= 0 && Ahora.toSecondOfDay() + Margen <= SegundosPorId[Pos];
+    }
+
+    public int Cantidad()
+    {
+        return Segundos.length;
+    }
+
+    // Primera posicion con Segundos[Pos] >= Desde (Segundos.length si no hay)
+    private int Primero(int Desde)
+    {
+        int Bajo = 0, Alto = Segundos.length;
+        while (Bajo < Alto)
+        {
+            int Medio = (Bajo + Alto) >>> 1;
+            if (Segundos[Medio] < Desde)
+            {
+                Bajo = Medio + 1;
+            }
+            else
+            {
+                Alto = Medio;
+            }
+        }
+        return Bajo;
+    }
+}
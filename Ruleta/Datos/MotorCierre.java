@@ -0,0 +1,188 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package Ruleta.Datos;
+
+import Ruleta.Conexion;
+import Ruleta.LectorFilas;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Acumulados del cierre por (FECHA, CODIGOH, SUCURSAL, CODANIMAL) en la
+ * tabla cierreacumulado: lo apostado se suma al guardar cada ticket y se
+ * resta al anularlo, y lo pagado se suma con cada pago, siempre dentro de la
+ * misma transaccion que escribe el ticket, la anulacion o el pago. Cerrar un
+ * sorteo de una sucursal lee entonces a lo sumo una fila por animal en vez
+ * de recorrer hislottojuego y pagos del dia, y la vista previa del cierre
+ * es la misma lectura sin bloqueo.
+ * <p>
+ * Los acumulados de una transaccion se escriben en orden de (CODIGOH,
+ * CODANIMAL) para que dos cajas que venden los mismos animales no se
+ * bloqueen en cruz.
+ *
+ * @author DESINCO
+ */
+public class MotorCierre {
+
+    static final String SQL_APOSTAR = "INSERT INTO cierreacumulado (FECHA, CODIGOH, SUCURSAL, CODANIMAL, APOSTADO)"
+            + " VALUES (?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE APOSTADO = APOSTADO + VALUES(APOSTADO)";
+    static final String SQL_PAGAR = "INSERT INTO cierreacumulado (FECHA, CODIGOH, SUCURSAL, CODANIMAL, PAGADO)"
+            + " VALUES (?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE PAGADO = PAGADO + VALUES(PAGADO)";
+    static final String SQL_ACUMULADO = "SELECT CODANIMAL, APOSTADO, PAGADO FROM cierreacumulado"
+            + " WHERE FECHA = ? AND CODIGOH = ? AND SUCURSAL = ?";
+    static final String SQL_CERRAR = "INSERT INTO cierrejuego (CODIGOH, HORAJUEGO, FECHA, CODIGO_SUCURSAL, NOMBRE_SUCURSAL,"
+            + " TOTAL_APOSTADO, PAGO_POTENCIAL_GANADORES, TOTAL_PAGADO_REAL, PAGOS_PENDIENTES, PAGO_ADMIN_SUCURSAL,"
+            + " UTILIDAD_PROYECTADA, UTILIDAD_REAL, TOTAL_PAGADO, UTILIDAD, COMISION_SISTEMA, COMISION_ADMIN,"
+            + " GANANCIA_SUCURSAL, CODANIMAL_GANADOR, ANIMAL_GANADOR, ESTADO, FECHA_CIERRE, USUARIO_CIERRE, OBSERVACIONES)"
+            + " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 'C', NOW(), ?, ?)";
+
+    private static final LectorFilas<Object[]> LECTOR = new LectorFilas<Object[]>()
+    {
+        public Object[] Mapear(ResultSet Rst) throws SQLException
+        {
+            return new Object[] {Rst.getString("CODANIMAL"), Dinero.Leer(Rst, "APOSTADO"), Dinero.Leer(Rst, "PAGADO")};
+        }
+    };
+
+    private static final LectorFilas<String[]> LECTOR_RESULTADO = LectorFilas.Textos("CODIGOA", "ANIMAL", "DESCRIOCIONH");
+
+    private final Conexion Cone;
+
+    public MotorCierre(Conexion Cone)
+    {
+        this.Cone = Cone;
+    }
+
+    /**
+     * Suma las jugadas del ticket. Va dentro de la transaccion que lo guarda.
+     */
+    public void Vender(Ticket Tic) throws SQLException
+    {
+        Acumular(Tic, 1);
+    }
+
+    /**
+     * Resta las jugadas del ticket. Va dentro de la transaccion que lo anula.
+     */
+    public void Anular(Ticket Tic) throws SQLException
+    {
+        Acumular(Tic, -1);
+    }
+
+    /**
+     * Suma un premio pagado. Va dentro de la transaccion que escribe pagos.
+     */
+    public void Pagar(LocalDate Fecha, int CodigoH, int Sucursal, String CodAnimal, long Pago) throws SQLException
+    {
+        Cone.Ejecutar(SQL_PAGAR, Date.valueOf(Fecha), CodigoH, Sucursal, CodAnimal, Pago);
+    }
+
+    /**
+     * Como quedaria el cierre ahora mismo, sin bloquear a nadie.
+     */
+    public Cierre Vista(LocalDate Fecha, int CodigoH, int Sucursal) throws SQLException
+    {
+        return Leer(Fecha, CodigoH, Sucursal, Resultado(Fecha, CodigoH), "");
+    }
+
+    /**
+     * Cierra el sorteo en la sucursal: bloquea sus acumulados (las ventas y
+     * pagos que lleguen esperan al cierre), los lee y guarda la fila de
+     * cierrejuego. Falla si el sorteo no tiene resultado o si ya estaba
+     * cerrado (llave unique_horario_fecha_sucursal).
+     */
+    public Cierre Cerrar(LocalDate Fecha, int CodigoH, int Sucursal, String Usuario, String Observaciones) throws SQLException
+    {
+        String Ganador[] = Resultado(Fecha, CodigoH);
+        if (Ganador == null)
+        {
+            throw new SQLException("El sorteo " + CodigoH + " del " + Fecha + " no tiene resultado; no se puede cerrar");
+        }
+        Sucursales Suc = Catalogo.Actual().Sucursales();
+        String Nombre = Suc.Nombre(Sucursal);
+        try
+        {
+            Cone.IniciarTransaccion();
+            Cierre Cie = Leer(Fecha, CodigoH, Sucursal, Ganador, " FOR UPDATE");
+            Cone.Ejecutar(SQL_CERRAR, CodigoH, Ganador[2], Date.valueOf(Fecha), Sucursal,
+                    Nombre == null ? "Sucursal " + Sucursal : Nombre, Cie.Apostado(), Cie.PagoPotencial(), Cie.Pagado(),
+                    Cie.Pendiente(), Cie.AdminSucursal(), Cie.UtilidadProyectada(), Cie.UtilidadReal(), Cie.Pagado(),
+                    Cie.UtilidadReal(), Cie.ComisionSistema(), Cie.ComisionAdmin(), Cie.AdminSucursal(),
+                    Cie.CodigoGanador(), Cie.AnimalGanador(), Usuario, Observaciones);
+            Cone.Confirmar();
+            return Cie;
+        }
+        catch (SQLException err)
+        {
+            Cone.Deshacer();
+            throw err;
+        }
+        catch (RuntimeException err)
+        {
+            Cone.Deshacer();
+            throw err;
+        }
+    }
+
+    private void Acumular(Ticket Tic, long Signo) throws SQLException
+    {
+        // Un valor por (sorteo, animal), en orden fijo
+        Map<String, Long> Valores = new TreeMap<String, Long>();
+        Map<String, Jugada> Claves = new TreeMap<String, Jugada>();
+        for (Jugada Jug : Tic.Jugadas())
+        {
+            String Clave = String.format("%06d|%s", Jug.CodigoHorario(), Jug.CodigoAnimal());
+            Long Valor = Valores.get(Clave);
+            Valores.put(Clave, (Valor == null ? 0 : Valor) + Signo * Jug.Valor());
+            Claves.put(Clave, Jug);
+        }
+        if (Valores.isEmpty())
+        {
+            return;
+        }
+        Date Fecha = Date.valueOf(Tic.Fecha());
+        for (Map.Entry<String, Long> Ent : Valores.entrySet())
+        {
+            Jugada Jug = Claves.get(Ent.getKey());
+            Cone.AgregarLote(SQL_APOSTAR, Fecha, Jug.CodigoHorario(), Tic.Sucursal(), Jug.CodigoAnimal(), Ent.getValue());
+        }
+        Cone.EjecutarLote(SQL_APOSTAR);
+    }
+
+    // CODIGOA, ANIMAL y DESCRIOCIONH del resultado activo, o null sin resultado
+    private String[] Resultado(LocalDate Fecha, int CodigoH) throws SQLException
+    {
+        List<String[]> Filas = Cone.Listar(0, LECTOR_RESULTADO, "SELECT DISTINCT CODIGOA, ANIMAL, DESCRIOCIONH"
+                + " FROM ingresarganadores WHERE FECHA = ? AND CODIGOH = ? AND ESTADO = 'A'", Date.valueOf(Fecha), CodigoH);
+        if (Filas.size() > 1)
+        {
+            throw new SQLException("El sorteo " + CodigoH + " del " + Fecha + " tiene " + Filas.size()
+                    + " resultados activos distintos");
+        }
+        return Filas.isEmpty() ? null : Filas.get(0);
+    }
+
+    private Cierre Leer(LocalDate Fecha, int CodigoH, int Sucursal, String Ganador[], String Bloqueo) throws SQLException
+    {
+        long Apostado = 0, ApostadoGanador = 0, Pagado = 0;
+        String CodGanador = Ganador == null ? null : Ganador[0];
+        for (Object Fila[] : Cone.Listar(0, LECTOR, SQL_ACUMULADO + Bloqueo, Date.valueOf(Fecha), CodigoH, Sucursal))
+        {
+            Apostado += (Long) Fila[1];
+            Pagado += (Long) Fila[2];
+            if (Fila[0].equals(CodGanador))
+            {
+                ApostadoGanador += (Long) Fila[1];
+            }
+        }
+        return new Cierre(Fecha, CodigoH, Sucursal, Apostado, CodGanador, Ganador == null ? null : Ganador[1],
+                ApostadoGanador, Pagado, Parametros.Actual());
+    }
+}
@@ -0,0 +1,252 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package Ruleta.Datos;
+
+import Ruleta.Conexion;
+import Ruleta.LectorFilas;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lo apostado en el dia por sorteo (CODIGOJ) y animal (CODANIMAL), para
+ * saber en todo momento cuanto se pagaria si ese animal sale: apostado por
+ * PUNTOSPAGO. Cada suma es un LongAdder, asi que las cajas que venden al
+ * tiempo no se estorban y leer no bloquea a nadie.
+ * <p>
+ * Se arma desde hislottojuego al abrir la terminal (Reconstruir) y despues
+ * se le suman los tickets a medida que se confirman. Los valores son pesos
+ * enteros como en Jugada.
+ *
+ * @author DESINCO
+ */
+public final class MotorExposicion {
+
+    /**
+     * Se llama en el hilo que vendio o reconstruyo; debe volver enseguida
+     * (PanelExposicion solo anota el cambio y repinta con su Timer).
+     */
+    public interface Oyente {
+        void Sumado(LocalDate Fecha, int CodigoJ, String CodAnimal);
+
+        void Reconstruido(LocalDate Fecha);
+    }
+
+    // Lo apostado a cada animal de un sorteo, mas el total del sorteo
+    private static final class Sorteo {
+        final ConcurrentHashMap<String, LongAdder> PorAnimal = new ConcurrentHashMap<String, LongAdder>();
+        final LongAdder Total = new LongAdder();
+
+        void Sumar(String Animal, long Valor)
+        {
+            LongAdder Suma = PorAnimal.get(Animal);
+            if (Suma == null)
+            {
+                LongAdder Nueva = new LongAdder();
+                Suma = PorAnimal.putIfAbsent(Animal, Nueva);
+                if (Suma == null)
+                {
+                    Suma = Nueva;
+                }
+            }
+            Suma.add(Valor);
+            Total.add(Valor);
+        }
+    }
+
+    private static final LectorFilas<Object[]> LECTOR = new LectorFilas<Object[]>()
+    {
+        public Object[] Mapear(ResultSet Rst) throws SQLException
+        {
+            return new Object[] {Rst.getInt("CODIGOJ"), Rst.getString("CODANIMAL"), Rst.getLong("APOSTADO")};
+        }
+    };
+
+    private static MotorExposicion Principal;
+
+    private final ConcurrentHashMap<LocalDate, ConcurrentHashMap<Integer, Sorteo>> Dias
+            = new ConcurrentHashMap<LocalDate, ConcurrentHashMap<Integer, Sorteo>>();
+    private final CopyOnWriteArrayList<Oyente> Oyentes = new CopyOnWriteArrayList<Oyente>();
+
+    public static synchronized MotorExposicion Principal()
+    {
+        if (Principal == null)
+        {
+            Principal = new MotorExposicion();
+        }
+        return Principal;
+    }
+
+    public void Agregar(Oyente Nuevo)
+    {
+        Oyentes.addIfAbsent(Nuevo);
+    }
+
+    public void Quitar(Oyente Viejo)
+    {
+        Oyentes.remove(Viejo);
+    }
+
+    /**
+     * Suma lo apostado a un animal; un valor negativo lo descuenta (anulaciones).
+     */
+    public void Sumar(LocalDate Fecha, int CodigoJ, String CodAnimal, long Valor)
+    {
+        Buscar(Fecha, CodigoJ, true).Sumar(CodAnimal, Valor);
+        for (Oyente Oye : Oyentes)
+        {
+            Oye.Sumado(Fecha, CodigoJ, CodAnimal);
+        }
+    }
+
+    /**
+     * Suma las jugadas de un ticket ya confirmado.
+     */
+    public void Sumar(Ticket Tic)
+    {
+        for (Jugada Jug : Tic.Jugadas())
+        {
+            Sumar(Tic.Fecha(), Jug.CodigoHorario(), Jug.CodigoAnimal(), Jug.Valor());
+        }
+    }
+
+    /**
+     * Descuenta las jugadas de un ticket anulado.
+     */
+    public void Restar(Ticket Tic)
+    {
+        for (Jugada Jug : Tic.Jugadas())
+        {
+            Sumar(Tic.Fecha(), Jug.CodigoHorario(), Jug.CodigoAnimal(), -Jug.Valor());
+        }
+    }
+
+    public long Apostado(LocalDate Fecha, int CodigoJ, String CodAnimal)
+    {
+        Sorteo Sor = Buscar(Fecha, CodigoJ, false);
+        LongAdder Suma = Sor == null ? null : Sor.PorAnimal.get(CodAnimal);
+        return Suma == null ? 0 : Suma.sum();
+    }
+
+    /**
+     * Lo que se pagaria si el animal gana el sorteo.
+     */
+    public long Exposicion(LocalDate Fecha, int CodigoJ, String CodAnimal, int PuntosPago)
+    {
+        return Apostado(Fecha, CodigoJ, CodAnimal) * PuntosPago;
+    }
+
+    public long Total(LocalDate Fecha, int CodigoJ)
+    {
+        Sorteo Sor = Buscar(Fecha, CodigoJ, false);
+        return Sor == null ? 0 : Sor.Total.sum();
+    }
+
+    /**
+     * Lo apostado a cada animal del sorteo en este momento.
+     */
+    public Map<String, Long> Apostados(LocalDate Fecha, int CodigoJ)
+    {
+        Map<String, Long> Copia = new HashMap<String, Long>();
+        Sorteo Sor = Buscar(Fecha, CodigoJ, false);
+        if (Sor != null)
+        {
+            for (Map.Entry<String, LongAdder> Ent : Sor.PorAnimal.entrySet())
+            {
+                Copia.put(Ent.getKey(), Ent.getValue().sum());
+            }
+        }
+        return Copia;
+    }
+
+    /**
+     * El mayor pago posible del sorteo: el animal con mas apostado.
+     */
+    public long PeorCaso(LocalDate Fecha, int CodigoJ, int PuntosPago)
+    {
+        long Mayor = 0;
+        Sorteo Sor = Buscar(Fecha, CodigoJ, false);
+        if (Sor != null)
+        {
+            for (LongAdder Suma : Sor.PorAnimal.values())
+            {
+                Mayor = Math.max(Mayor, Suma.sum());
+            }
+        }
+        return Mayor * PuntosPago;
+    }
+
+    /**
+     * Vuelve a armar el dia desde hislottojuego (jugadas activas) y olvida
+     * los dias anteriores a ayer. Los tickets confirmados mientras corre la
+     * consulta pueden quedar por fuera; se llama al abrir la terminal.
+     */
+    public void Reconstruir(Conexion Cone, LocalDate Fecha) throws SQLException
+    {
+        List<Object[]> Filas = Cone.Listar(0, LECTOR,
+                "SELECT CODIGOJ, CODANIMAL, ROUND(SUM(VALOR)) AS APOSTADO FROM hislottojuego"
+                + " WHERE FECHA = ? AND ESTADOP = 'A' GROUP BY CODIGOJ, CODANIMAL", java.sql.Date.valueOf(Fecha));
+        ConcurrentHashMap<Integer, Sorteo> Dia = new ConcurrentHashMap<Integer, Sorteo>();
+        for (Object Fila[] : Filas)
+        {
+            Integer CodigoJ = (Integer) Fila[0];
+            Sorteo Sor = Dia.get(CodigoJ);
+            if (Sor == null)
+            {
+                Sor = new Sorteo();
+                Dia.put(CodigoJ, Sor);
+            }
+            Sor.Sumar((String) Fila[1], (Long) Fila[2]);
+        }
+        Dias.put(Fecha, Dia);
+        for (Iterator<LocalDate> It = Dias.keySet().iterator(); It.hasNext();)
+        {
+            if (It.next().isBefore(Fecha.minusDays(1)))
+            {
+                It.remove();
+            }
+        }
+        for (Oyente Oye : Oyentes)
+        {
+            Oye.Reconstruido(Fecha);
+        }
+    }
+
+    private Sorteo Buscar(LocalDate Fecha, int CodigoJ, boolean Crear)
+    {
+        ConcurrentHashMap<Integer, Sorteo> Dia = Dias.get(Fecha);
+        if (Dia == null)
+        {
+            if (!Crear)
+            {
+                return null;
+            }
+            ConcurrentHashMap<Integer, Sorteo> Nuevo = new ConcurrentHashMap<Integer, Sorteo>();
+            Dia = Dias.putIfAbsent(Fecha, Nuevo);
+            if (Dia == null)
+            {
+                Dia = Nuevo;
+            }
+        }
+        Sorteo Sor = Dia.get(CodigoJ);
+        if (Sor == null && Crear)
+        {
+            Sorteo Nuevo = new Sorteo();
+            Sor = Dia.putIfAbsent(CodigoJ, Nuevo);
+            if (Sor == null)
+            {
+                Sor = Nuevo;
+            }
+        }
+        return Sor;
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package Ruleta.Datos;
+
+import Ruleta.Conexion;
+import Ruleta.LectorFilas;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Liquida un sorteo una sola vez: con el animal de ingresarganadores toma de
+ * hislottojuego (indice FECHA, CODIGOJ, CODANIMAL) solo las jugadas activas
+ * de ese animal, las agrupa por radicado y deja en ganadoresliquidados lo
+ * apostado y el pago con PUNTOSPAGO, todo en un INSERT ... SELECT dentro de
+ * una transaccion. Volver a liquidar el mismo (FECHA, CODIGOH) reemplaza lo
+ * anterior, asi que corregir un resultado es liquidar otra vez. Ingresar()
+ * guarda el resultado y lo liquida en la misma transaccion.
+ * <p>
+ * Lo liquidado se lee despues por su llave (FECHA, CODIGOH, RADICADO) o por
+ * RADICADO; las pantallas de ganadores lo paginan con GanadoresDAO.
+ *
+ * @author DESINCO
+ */
+public class MotorLiquidacion {
+
+    private static final Logger REGISTRO = Logger.getLogger(MotorLiquidacion.class.getName());
+
+    static final String SQL_BORRAR = "DELETE FROM ganadoresliquidados WHERE FECHA = ? AND CODIGOH = ?";
+    static final String SQL_LIQUIDAR = "INSERT INTO ganadoresliquidados (FECHA, CODIGOH, RADICADO, CODANIMAL, ANIMAL,"
+            + " DESJUEGO, VALOR, PUNTOSPAGO, PAGO, SUCURSAL, HORA, LIQUIDADO)"
+            + " SELECT FECHA, CODIGOJ, RADICADO, CODANIMAL, MAX(ANIMAL), MAX(DESJUEGO), ROUND(SUM(VALOR)), ?,"
+            + " ROUND(SUM(VALOR)) * ?, MAX(SUCURSAL), MIN(HORA), NOW()"
+            + " FROM hislottojuego WHERE FECHA = ? AND CODIGOJ = ? AND CODANIMAL = ? AND ESTADOP = 'A'"
+            + " GROUP BY FECHA, CODIGOJ, CODANIMAL, RADICADO";
+    static final String SQL_GANADORES = "SELECT FECHA, CODIGOH, DESJUEGO, RADICADO, CODANIMAL, ANIMAL, VALOR, PUNTOSPAGO,"
+            + " PAGO, SUCURSAL, HORA FROM ganadoresliquidados";
+
+    static final LectorFilas<Ganador> LECTOR = new LectorFilas<Ganador>()
+    {
+        public Ganador Mapear(ResultSet Rst) throws SQLException
+        {
+            return new Ganador(Rst.getDate("FECHA").toLocalDate(), Rst.getInt("CODIGOH"), Rst.getString("DESJUEGO"),
+                    Rst.getString("RADICADO"), Rst.getString("CODANIMAL"), Rst.getString("ANIMAL"),
+                    Dinero.Leer(Rst, "VALOR"), Rst.getInt("PUNTOSPAGO"), Dinero.Leer(Rst, "PAGO"),
+                    Rst.getString("SUCURSAL"), Rst.getTime("HORA").toLocalTime());
+        }
+    };
+
+    private static final LectorFilas<String[]> LECTOR_RESULTADO = LectorFilas.Textos("CODIGOA");
+
+    private final Conexion Cone;
+
+    public MotorLiquidacion(Conexion Cone)
+    {
+        this.Cone = Cone;
+    }
+
+    /**
+     * Guarda el resultado en ingresarganadores y liquida su sorteo en una
+     * sola transaccion: si la liquidacion falla tampoco queda el resultado.
+     * Devuelve cuantos tickets ganaron.
+     */
+    public int Ingresar(Resultado Res) throws SQLException
+    {
+        return Liquidar(Res.Fecha(), Res.CodigoHorario(), Res);
+    }
+
+    /**
+     * Liquida el sorteo con el resultado activo de ingresarganadores y
+     * devuelve cuantos tickets ganaron. Sin resultado solo borra lo que
+     * hubiera liquidado.
+     */
+    public int Liquidar(LocalDate Fecha, int CodigoH) throws SQLException
+    {
+        return Liquidar(Fecha, CodigoH, null);
+    }
+
+    private int Liquidar(LocalDate Fecha, int CodigoH, Resultado Nuevo) throws SQLException
+    {
+        Date Dia = Date.valueOf(Fecha);
+        int PuntosPago = Parametros.Actual().PuntosPago();
+
+        long Inicio = System.nanoTime();
+        int Ganadores = 0;
+        try
+        {
+            Cone.IniciarTransaccion();
+            if (Nuevo != null)
+            {
+                new ResultadoDAO(Cone).Guardar(Nuevo);
+            }
+            List<String[]> Filas = Cone.Listar(0, LECTOR_RESULTADO, "SELECT DISTINCT CODIGOA FROM ingresarganadores"
+                    + " WHERE FECHA = ? AND CODIGOH = ? AND ESTADO = 'A'", Dia, CodigoH);
+            if (Filas.size() > 1)
+            {
+                throw new SQLException("El sorteo " + CodigoH + " del " + Fecha + " tiene " + Filas.size()
+                        + " resultados activos distintos; corrija el resultado antes de liquidar");
+            }
+            Cone.Ejecutar(SQL_BORRAR, Dia, CodigoH);
+            if (!Filas.isEmpty())
+            {
+                Ganadores = Cone.Ejecutar(SQL_LIQUIDAR, PuntosPago, PuntosPago, Dia, CodigoH, Filas.get(0)[0]);
+            }
+            Cone.Confirmar();
+        }
+        catch (SQLException err)
+        {
+            Cone.Deshacer();
+            throw err;
+        }
+        catch (RuntimeException err)
+        {
+            Cone.Deshacer();
+            throw err;
+        }
+        long Nanos = Math.max(1, System.nanoTime() - Inicio);
+        REGISTRO.log(Level.INFO, "Sorteo {0} del {1} liquidado: {2} ganadores en {3} ms ({4} filas/s)", new Object[] {
+            CodigoH, Fecha, Ganadores, Nanos / 1_000_000, Ganadores * 1_000_000_000L / Nanos});
+        return Ganadores;
+    }
+
+    /**
+     * Ganadores liquidados de un sorteo, por la llave primaria.
+     */
+    public List<Ganador> Ganadores(LocalDate Fecha, int CodigoH) throws SQLException
+    {
+        return Cone.Listar(0, LECTOR, SQL_GANADORES + " WHERE FECHA = ? AND CODIGOH = ? ORDER BY RADICADO",
+                Date.valueOf(Fecha), CodigoH);
+    }
+
+    /**
+     * Premios liquidados de un ticket (indice por RADICADO).
+     */
+    public List<Ganador> PorRadicado(String Radicado) throws SQLException
+    {
+        return Cone.Listar(0, LECTOR, SQL_GANADORES + " WHERE RADICADO = ? ORDER BY FECHA, CODIGOH", Radicado);
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package Ruleta.Datos;
+
+import Ruleta.Conexion;
+import java.sql.Date;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Pago de premios por radicado. El radicado se resuelve contra
+ * ganadoresliquidados por su indice de RADICADO, quitando lo que ya tiene
+ * pago activo en pagos (indice idx_radicado), y los pagos se escriben en una
+ * sola transaccion junto con el acumulado del cierre. Dos cajas que cobran
+ * el mismo ticket a la vez chocan en la llave unica uq_pagos_premio
+ * (RADICADO, FECHA_SORTEO, CODIGOJ mientras el pago esta activo): la
+ * segunda espera a la primera y falla sin pagar nada.
+ * <p>
+ * Mismas reglas que pagos.php: se cobra hasta DIAS_COBRO dias despues del
+ * sorteo y solo en la sucursal que vendio el ticket.
+ *
+ * @author DESINCO
+ */
+public class PagosDAO {
+
+    public static final int DIAS_COBRO = 3;
+
+    // Error de MySQL por llave unica repetida
+    private static final int LLAVE_DUPLICADA = 1062;
+
+    static final String SQL_PENDIENTES = MotorLiquidacion.SQL_GANADORES + " l WHERE l.RADICADO = ?"
+            + " AND NOT EXISTS (SELECT 1 FROM pagos p WHERE p.RADICADO = l.RADICADO AND p.FECHA_SORTEO = l.FECHA"
+            + " AND p.CODIGOJ = l.CODIGOH AND p.ESTADO = 'A') ORDER BY l.FECHA, l.CODIGOH";
+    static final String SQL_PAGO = "INSERT INTO pagos (RADICADO, FECHA_JUGADA, HORA_JUGADA, FECHA_SORTEO, CODANIMAL, ANIMAL,"
+            + " CODIGOJ, HORAJUEGO, VALOR_APOSTADO, VALOR_GANADO, SUCURSAL, USUARIO_PAGO, ESTADO, FECHA_PAGO)"
+            + " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 'A', NOW())";
+
+    private final Conexion Cone;
+    private final MotorCierre Acumulados;
+
+    public PagosDAO(Conexion Cone)
+    {
+        this.Cone = Cone;
+        this.Acumulados = new MotorCierre(Cone);
+    }
+
+    /**
+     * Premios del radicado que aun no se han pagado.
+     */
+    public List<Ganador> Pendientes(String Radicado) throws SQLException
+    {
+        return Cone.Listar(0, MotorLiquidacion.LECTOR, SQL_PENDIENTES, Radicado);
+    }
+
+    /**
+     * Paga todos los premios pendientes del radicado y devuelve lo pagado.
+     * Falla sin pagar nada si no hay premios pendientes, si alguno vencio,
+     * si el ticket es de otra sucursal o si otra caja lo pago primero.
+     */
+    public List<Ganador> Pagar(String Radicado, int Sucursal, String Usuario) throws SQLException
+    {
+        LocalDate Hoy = LocalDate.now();
+        Sucursales Suc = Catalogo.Actual().Sucursales();
+        try
+        {
+            Cone.IniciarTransaccion();
+            List<Ganador> Premios = Pendientes(Radicado);
+            if (Premios.isEmpty())
+            {
+                throw new SQLException("No hay premios pendientes de pago para el radicado " + Radicado);
+            }
+            for (Ganador Gan : Premios)
+            {
+                if (Hoy.isAfter(Gan.Fecha().plusDays(DIAS_COBRO)))
+                {
+                    throw new SQLException("El plazo de " + DIAS_COBRO + " dias para cobrar el premio del sorteo "
+                            + Gan.Horario() + " del " + Gan.Fecha() + " ya vencio");
+                }
+                // Las ventas anteriores guardan el nombre de la sucursal
+                Integer Vendio = Suc.Resolver(Gan.Sucursal());
+                if (Vendio == null)
+                {
+                    throw new SQLException("No se reconoce la sucursal \"" + Gan.Sucursal() + "\" que vendio el radicado "
+                            + Radicado);
+                }
+                if (Vendio != Sucursal)
+                {
+                    throw new SQLException("El radicado " + Radicado + " se vendio en otra sucursal ("
+                            + Suc.Mostrar(Gan.Sucursal()) + ")");
+                }
+                Cone.AgregarLote(SQL_PAGO, Radicado, Date.valueOf(Gan.Fecha()), Time.valueOf(Gan.Hora()),
+                        Date.valueOf(Gan.Fecha()), Gan.CodigoAnimal(), Gan.Animal(), Gan.CodigoHorario(), Gan.Horario(),
+                        Gan.Valor(), Gan.Pago(), Sucursal, Usuario);
+            }
+            Cone.EjecutarLote(SQL_PAGO);
+            for (Ganador Gan : Premios)
+            {
+                Acumulados.Pagar(Gan.Fecha(), Gan.CodigoHorario(), Sucursal, Gan.CodigoAnimal(), Gan.Pago());
+            }
+            Cone.Confirmar();
+            return Premios;
+        }
+        catch (SQLException err)
+        {
+            Cone.Deshacer();
+            if (Duplicado(err))
+            {
+                throw new SQLException("El radicado " + Radicado + " ya fue pagado en otra caja", err);
+            }
+            throw err;
+        }
+        catch (RuntimeException err)
+        {
+            Cone.Deshacer();
+            throw err;
+        }
+    }
+
+    private static boolean Duplicado(SQLException err)
+    {
+        for (Throwable Causa = err; Causa != null; Causa = Causa.getCause())
+        {
+            if (Causa instanceof SQLException && ((SQLException) Causa).getErrorCode() == LLAVE_DUPLICADA)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package Ruleta.Datos;
+
+import Ruleta.ConfiguracionBD;
+import Ruleta.Conexion;
+import Ruleta.LectorFilas;
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Tabla PARAMETROS leida completa de una vez y convertida a valores con
+ * tipo: pesos como long, porcentajes en puntos basicos (7 % = 700) y el
+ * multiplicador de pago como int. Cada carga es inmutable; FrmDParametros
+ * llama Invalidar() al modificar un valor y las otras terminales la
+ * recargan cuando vence lotto.cache.ttl.ms.
+ * <p>
+ * Algunos conceptos estan dos veces con codigos distintos (4/11, 5/12 y
+ * 1/13); manda el codigo nuevo, el que usa la api por NOMBRE, y el viejo
+ * solo se toma si el nuevo no existe.
+ *
+ * @author DESINCO
+ */
+public final class Parametros {
+
+    private static final Logger REGISTRO = Logger.getLogger(Parametros.class.getName());
+
+    public static final int PUNTOS_PAGO_ANTERIOR = 1;
+    public static final int MAXIMO_JUEGO = 2;
+    public static final int MINIMO_JUEGO = 3;
+    public static final int SISTEMATIZACION_ANTERIOR = 4;
+    public static final int ADMINISTRACION_ANTERIOR = 5;
+    public static final int PORCENTAJE_SUCURSAL = 6;
+    public static final int PORCENTAJE_ADMIN_SUCURSAL = 10;
+    public static final int COMISION_SISTEMATIZACION = 11;
+    public static final int COMISION_ADMINISTRACION = 12;
+    public static final int PUNTOS_PAGO = 13;
+    public static final int TOPE_ANIMAL = 14;
+
+    private static final LectorFilas<String[]> LECTOR = LectorFilas.Textos("CODIGO", "VALOR");
+
+    private static volatile Parametros Vigente;
+
+    private final Map<Integer, String> Valores;
+    private final long Cargado;
+
+    private Parametros(Map<Integer, String> Valores)
+    {
+        this.Valores = Collections.unmodifiableMap(Valores);
+        this.Cargado = System.currentTimeMillis();
+    }
+
+    /**
+     * Parametros vigentes; va a la base de datos la primera vez, despues de
+     * Invalidar() o cuando vencen. No llamar desde el hilo de Swing.
+     */
+    public static Parametros Actual() throws SQLException
+    {
+        Parametros Par = Vigente;
+        if (Par != null && System.currentTimeMillis() - Par.Cargado < ConfiguracionBD.Actual().Largo("lotto.cache.ttl.ms"))
+        {
+            return Par;
+        }
+        return Cargar(Par);
+    }
+
+    public static synchronized void Invalidar()
+    {
+        Vigente = null;
+    }
+
+    private static synchronized Parametros Cargar(Parametros Vencido) throws SQLException
+    {
+        Parametros Par = Vigente;
+        if (Par != null && Par != Vencido)
+        {
+            // Otro hilo la recargo mientras este esperaba
+            return Par;
+        }
+        Map<Integer, String> Valores = new HashMap<Integer, String>();
+        Conexion Cone = new Conexion();
+        try
+        {
+            List<String[]> Filas = Cone.Listar(0, LECTOR, "SELECT CODIGO, VALOR FROM PARAMETROS");
+            for (String Fila[] : Filas)
+            {
+                Valores.put(Integer.valueOf(Fila[0].trim()), Fila[1] == null ? "" : Fila[1].trim());
+            }
+        }
+        finally
+        {
+            Cone.Liberar();
+        }
+        Par = new Parametros(Valores);
+        Par.Comparar(PUNTOS_PAGO, PUNTOS_PAGO_ANTERIOR);
+        Par.Comparar(COMISION_SISTEMATIZACION, SISTEMATIZACION_ANTERIOR);
+        Par.Comparar(COMISION_ADMINISTRACION, ADMINISTRACION_ANTERIOR);
+        Vigente = Par;
+        return Par;
+    }
+
+    public long MinimoJuego()
+    {
+        return Pesos(MINIMO_JUEGO);
+    }
+
+    public long MaximoJuego()
+    {
+        return Pesos(MAXIMO_JUEGO);
+    }
+
+    /**
+     * Veces el valor jugado que se paga al ganador.
+     */
+    public int PuntosPago()
+    {
+        return (int) Pesos(Codigo(PUNTOS_PAGO, PUNTOS_PAGO_ANTERIOR));
+    }
+
+    /**
+     * Maximo apostado a un animal en un sorteo entre todas las terminales;
+     * 0 (o sin el parametro) es sin tope.
+     */
+    public long TopeAnimal()
+    {
+        return Texto(TOPE_ANIMAL).isEmpty() ? 0 : Pesos(TOPE_ANIMAL);
+    }
+
+    public int ComisionSistematizacion()
+    {
+        return PuntosBasicos(Codigo(COMISION_SISTEMATIZACION, SISTEMATIZACION_ANTERIOR));
+    }
+
+    public int ComisionAdministracion()
+    {
+        return PuntosBasicos(Codigo(COMISION_ADMINISTRACION, ADMINISTRACION_ANTERIOR));
+    }
+
+    public int PorcentajeSucursal()
+    {
+        return PuntosBasicos(PORCENTAJE_SUCURSAL);
+    }
+
+    public int PorcentajeAdminSucursal()
+    {
+        return PuntosBasicos(PORCENTAJE_ADMIN_SUCURSAL);
+    }
+
+    /**
+     * Texto del parametro tal como esta en la tabla, o "" si no existe.
+     */
+    public String Texto(int Codigo)
+    {
+        String Valor = Valores.get(Codigo);
+        return Valor == null ? "" : Valor;
+    }
+
+    // Valor entero; acepta separadores de miles como Dinero.Pesos()
+    public long Pesos(int Codigo)
+    {
+        String Valor = Texto(Codigo);
+        if (Valor.isEmpty())
+        {
+            throw new IllegalStateException("No existe el parametro " + Codigo + " en PARAMETROS");
+        }
+        return Dinero.Pesos(Valor);
+    }
+
+    // "7" -> 700, "7.5" -> 750
+    public int PuntosBasicos(int Codigo)
+    {
+        String Valor = Texto(Codigo);
+        if (Valor.isEmpty())
+        {
+            throw new IllegalStateException("No existe el parametro " + Codigo + " en PARAMETROS");
+        }
+        return new BigDecimal(Valor.replace(',', '.')).movePointRight(2).intValueExact();
+    }
+
+    private int Codigo(int Nuevo, int Anterior)
+    {
+        return Valores.containsKey(Nuevo) ? Nuevo : Anterior;
+    }
+
+    private void Comparar(int Nuevo, int Anterior)
+    {
+        String Viejo = Valores.get(Anterior);
+        if (Viejo != null && Valores.containsKey(Nuevo) && !Viejo.equals(Valores.get(Nuevo)))
+        {
+            REGISTRO.log(Level.WARNING, "El codigo {0} ({1}) no coincide con {2} ({3}), se usa {2}",
+                    new Object[] {Anterior, Viejo, Nuevo, Valores.get(Nuevo)});
+        }
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package Ruleta.Datos;
+
+import java.time.LocalDate;
+
+/**
+ * Animal ganador de un sorteo (tabla ingresarganadores). Inmutable.
+ *
+ * @author DESINCO
+ */
+public final class Resultado {
+
+    private final String CodigoAnimal;
+    private final String Animal;
+    private final int CodigoHorario;
+    private final String Horario;
+    private final LocalDate Fecha;
+    private final String Estado;
+
+    public Resultado(String CodigoAnimal, String Animal, int CodigoHorario, String Horario, LocalDate Fecha, String Estado)
+    {
+        this.CodigoAnimal = CodigoAnimal;
+        this.Animal = Animal;
+        this.CodigoHorario = CodigoHorario;
+        this.Horario = Horario;
+        this.Fecha = Fecha;
+        this.Estado = Estado;
+    }
+
+    public String CodigoAnimal()
+    {
+        return CodigoAnimal;
+    }
+
+    public String Animal()
+    {
+        return Animal;
+    }
+
+    public int CodigoHorario()
+    {
+        return CodigoHorario;
+    }
+
+    public String Horario()
+    {
+        return Horario;
+    }
+
+    public LocalDate Fecha()
+    {
+        return Fecha;
+    }
+
+    public String Estado()
+    {
+        return Estado;
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package Ruleta.Datos;
+
+import Ruleta.Conexion;
+import Ruleta.LectorFilas;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Acceso a la tabla ingresarganadores.
+ *
+ * @author DESINCO
+ */
+public class ResultadoDAO {
+
+    static final LectorFilas<Resultado> LECTOR = new LectorFilas<Resultado>()
+    {
+        public Resultado Mapear(ResultSet Rst) throws SQLException
+        {
+            return new Resultado(Rst.getString("CODIGOA"), Rst.getString("ANIMAL"), Rst.getInt("CODIGOH"),
+                    Rst.getString("DESCRIOCIONH"), Rst.getDate("FECHA").toLocalDate(), Rst.getString("ESTADO"));
+        }
+    };
+
+    private final Conexion Cone;
+
+    public ResultadoDAO(Conexion Cone)
+    {
+        this.Cone = Cone;
+    }
+
+    /**
+     * Resultados entre dos fechas inclusive, hasta Limite filas (0 = todas).
+     */
+    public List<Resultado> Entre(LocalDate Desde, LocalDate Hasta, int Limite) throws SQLException
+    {
+        return Cone.Listar(Limite, LECTOR, "SELECT CODIGOA, ANIMAL, CODIGOH, DESCRIOCIONH, FECHA, ESTADO FROM ingresarganadores"
+                + " WHERE FECHA BETWEEN ? AND ?", Date.valueOf(Desde), Date.valueOf(Hasta));
+    }
+
+    public int Guardar(Resultado Res) throws SQLException
+    {
+        return Cone.Ejecutar("INSERT INTO ingresarganadores (CODIGOA, ANIMAL, CODIGOH, DESCRIOCIONH, FECHA, ESTADO)"
+                + " VALUES (?, ?, ?, ?, ?, ?)", Res.CodigoAnimal(), Res.Animal(), Res.CodigoHorario(), Res.Horario(),
+                Date.valueOf(Res.Fecha()), Res.Estado());
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package Ruleta.Datos;
+
+import Ruleta.Conexion;
+import Ruleta.LectorFilas;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Directorio inmutable de sucursales (tabla BODEGAS) con los dos sentidos:
+ * nombre a codigo para el combo del ingreso y codigo a nombre para mostrar
+ * las ventas, que guardan el codigo en SUCURSAL como lo hace la api.
+ *
+ * @author DESINCO
+ */
+public final class Sucursales {
+
+    private static final LectorFilas<Object[]> LECTOR = new LectorFilas<Object[]>()
+    {
+        public Object[] Mapear(ResultSet Rst) throws SQLException
+        {
+            return new Object[] {Rst.getInt("CODIGO"), Rst.getString("BODEGA")};
+        }
+    };
+
+    private final List<String> Nombres;
+    private final Map<String, Integer> PorNombre;
+    private final Map<Integer, String> PorCodigo;
+
+    private Sucursales(List<Object[]> Filas)
+    {
+        List<String> Lista = new ArrayList<String>(Filas.size());
+        Map<String, Integer> Codigos = new HashMap<String, Integer>(Filas.size() * 4 / 3 + 1);
+        Map<Integer, String> Textos = new HashMap<Integer, String>(Filas.size() * 4 / 3 + 1);
+        for (Object Fila[] : Filas)
+        {
+            Integer Codigo = (Integer) Fila[0];
+            String Nombre = (String) Fila[1];
+            Lista.add(Nombre);
+            // Con nombres repetidos queda el de menor codigo, como el combo
+            if (!Codigos.containsKey(Nombre))
+            {
+                Codigos.put(Nombre, Codigo);
+            }
+            Textos.put(Codigo, Nombre);
+        }
+        this.Nombres = Collections.unmodifiableList(Lista);
+        this.PorNombre = Collections.unmodifiableMap(Codigos);
+        this.PorCodigo = Collections.unmodifiableMap(Textos);
+    }
+
+    static Sucursales Leer(Conexion Cone) throws SQLException
+    {
+        return new Sucursales(Cone.Listar(0, LECTOR, "SELECT CODIGO, BODEGA FROM BODEGAS ORDER BY CODIGO"));
+    }
+
+    /**
+     * Nombres en el orden de CODIGO, para llenar los combos.
+     */
+    public List<String> Nombres()
+    {
+        return Nombres;
+    }
+
+    /**
+     * Codigo de la sucursal con ese nombre exacto, o null si no existe.
+     */
+    public Integer Codigo(String Nombre)
+    {
+        return Nombre == null ? null : PorNombre.get(Nombre);
+    }
+
+    /**
+     * Nombre de la sucursal, o null si el codigo no existe.
+     */
+    public String Nombre(int Codigo)
+    {
+        return PorCodigo.get(Codigo);
+    }
+
+    /**
+     * Codigo de la columna SUCURSAL de una venta, guarde el codigo o (las
+     * ventas anteriores) el nombre; null si no es ninguna sucursal.
+     */
+    public Integer Resolver(String Sucursal)
+    {
+        if (Sucursal == null)
+        {
+            return null;
+        }
+        String Texto = Sucursal.trim();
+        if (!Texto.matches("[0-9]+"))
+        {
+            return Codigo(Texto);
+        }
+        try
+        {
+            return Integer.valueOf(Texto);
+        }
+        catch (NumberFormatException err)
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Texto de la columna SUCURSAL de una venta para mostrar: las ventas
+     * nuevas guardan el codigo y las anteriores el nombre, que se deja igual.
+     */
+    public String Mostrar(String Sucursal)
+    {
+        if (Sucursal == null)
+        {
+            return "";
+        }
+        try
+        {
+            String Nombre = PorCodigo.get(Integer.valueOf(Sucursal.trim()));
+            return Nombre != null ? Nombre : Sucursal;
+        }
+        catch (NumberFormatException err)
+        {
+            return Sucursal;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package Ruleta.Datos;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Ticket de venta: cabecera de jugarlotto con sus jugadas de hislottojuego.
+ * Inmutable; el total se calcula de las jugadas.
+ *
+ * @author DESINCO
+ */
+public final class Ticket {
+
+    private final long Numero;
+    private final String Radicado;
+    private final LocalDate Fecha;
+    private final LocalTime Hora;
+    private final int Sucursal;
+    private final String Usuario;
+    private final List<Jugada> Jugadas;
+    private final long Total;
+
+    public Ticket(long Numero, String Radicado, LocalDate Fecha, LocalTime Hora, int Sucursal, String Usuario,
+            List<Jugada> Jugadas)
+    {
+        this.Numero = Numero;
+        this.Radicado = Radicado;
+        this.Fecha = Fecha;
+        this.Hora = Hora;
+        this.Sucursal = Sucursal;
+        this.Usuario = Usuario;
+        this.Jugadas = Collections.unmodifiableList(new ArrayList<Jugada>(Jugadas));
+        long Suma = 0;
+        for (Jugada Jug : this.Jugadas)
+        {
+            Suma += Jug.Valor();
+        }
+        this.Total = Suma;
+    }
+
+    public long Numero()
+    {
+        return Numero;
+    }
+
+    public String Radicado()
+    {
+        return Radicado;
+    }
+
+    public LocalDate Fecha()
+    {
+        return Fecha;
+    }
+
+    public LocalTime Hora()
+    {
+        return Hora;
+    }
+
+    /**
+     * Codigo de la sucursal (BODEGAS.CODIGO).
+     */
+    public int Sucursal()
+    {
+        return Sucursal;
+    }
+
+    public String Usuario()
+    {
+        return Usuario;
+    }
+
+    public List<Jugada> Jugadas()
+    {
+        return Jugadas;
+    }
+
+    public long Total()
+    {
+        return Total;
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package Ruleta.Datos;
+
+import Ruleta.Conexion;
+import Ruleta.LectorFilas;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Escritura y anulacion de tickets en jugarlotto / hislottojuego.
+ *
+ * @author DESINCO
+ */
+public class TicketDAO {
+
+    static final String SQL_CABECERA = "INSERT INTO jugarlotto (NUM, RADICADO, FECHA, HORA, SUCURSAL, TOTALJUEGO, USUARIO, ESTADO)"
+            + " VALUES (?, ?, ?, ?, ?, ?, ?, 'A')";
+    static final String SQL_JUGADA = "INSERT INTO hislottojuego (RADICADO, CODANIMAL, ANIMAL, VALOR, CODIGOJ, HORAJUEGO, DESJUEGO,"
+            + " SUCURSAL, FECHA, HORA, ESTADOP, ESTADOC) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 'A', 'A')";
+    static final String SQL_TICKET = "SELECT NUM, RADICADO, FECHA, HORA, SUCURSAL, USUARIO FROM jugarlotto"
+            + " WHERE RADICADO = ? AND FECHA = ? AND ESTADO = 'A'";
+    static final String SQL_JUGADAS = "SELECT CODANIMAL, ANIMAL, CODIGOJ, DESJUEGO, HORAJUEGO, VALOR FROM hislottojuego"
+            + " WHERE RADICADO = ? AND FECHA = ? AND ESTADOP = 'A' AND ESTADOC = 'A'";
+    static final String SQL_ANULAR = "UPDATE jugarlotto SET ESTADO = 'I', MOTIVO_ANULACION = ?, FECHA_ANULACION = NOW(),"
+            + " USUARIO_ANULACION = ? WHERE RADICADO = ? AND FECHA = ? AND ESTADO = 'A'";
+    static final String SQL_ANULAR_JUGADAS = "UPDATE hislottojuego SET ESTADOP = 'I', ESTADOC = 'I'"
+            + " WHERE RADICADO = ? AND FECHA = ? AND ESTADOP = 'A' AND ESTADOC = 'A'";
+    static final String SQL_LIBERAR = "UPDATE reservasjuego SET RESERVADO = GREATEST(RESERVADO - ?, 0)"
+            + " WHERE FECHA = ? AND CODIGOJ = ? AND CODANIMAL = ?";
+
+    private static final LectorFilas<Object[]> LECTOR_TICKET = new LectorFilas<Object[]>()
+    {
+        public Object[] Mapear(ResultSet Rst) throws SQLException
+        {
+            return new Object[] {Rst.getLong("NUM"), Rst.getString("RADICADO"), Rst.getDate("FECHA").toLocalDate(),
+                Rst.getTime("HORA").toLocalTime(), Rst.getString("SUCURSAL"), Rst.getString("USUARIO")};
+        }
+    };
+
+    private static final LectorFilas<Jugada> LECTOR_JUGADA = new LectorFilas<Jugada>()
+    {
+        public Jugada Mapear(ResultSet Rst) throws SQLException
+        {
+            return new Jugada(Rst.getString("CODANIMAL"), Rst.getString("ANIMAL"), Rst.getInt("CODIGOJ"),
+                    Rst.getString("DESJUEGO"), Rst.getTime("HORAJUEGO").toLocalTime(), Dinero.Leer(Rst, "VALOR"));
+        }
+    };
+
+    private final Conexion Cone;
+    private final MotorCierre Acumulados;
+
+    public TicketDAO(Conexion Cone)
+    {
+        this.Cone = Cone;
+        this.Acumulados = new MotorCierre(Cone);
+    }
+
+    /**
+     * Guarda cabecera y jugadas en una sola transaccion, con las jugadas en
+     * un solo lote, y suma el ticket a los acumulados del cierre: o queda
+     * todo o no queda nada.
+     */
+    public void Guardar(Ticket Tic) throws SQLException
+    {
+        Date Fecha = Date.valueOf(Tic.Fecha());
+        Time Hora = Time.valueOf(Tic.Hora());
+        try
+        {
+            Cone.IniciarTransaccion();
+            Cone.Ejecutar(SQL_CABECERA, Tic.Numero(), Tic.Radicado(), Fecha, Hora, Tic.Sucursal(), Tic.Total(), Tic.Usuario());
+            for (Jugada Jug : Tic.Jugadas())
+            {
+                Cone.AgregarLote(SQL_JUGADA, Tic.Radicado(), Jug.CodigoAnimal(), Jug.Animal(), Jug.Valor(), Jug.CodigoHorario(),
+                        Time.valueOf(Jug.HoraJuego()), Jug.Horario(), Tic.Sucursal(), Fecha, Hora);
+            }
+            Cone.EjecutarLote(SQL_JUGADA);
+            Acumulados.Vender(Tic);
+            Cone.Confirmar();
+        }
+        catch (SQLException err)
+        {
+            Cone.Deshacer();
+            throw err;
+        }
+        catch (RuntimeException err)
+        {
+            Cone.Deshacer();
+            throw err;
+        }
+    }
+
+    /**
+     * Ticket activo con sus jugadas activas, o null si no existe o ya esta
+     * anulado. Por RADICADO (unique_radicado e idx_hislotto_radicado).
+     */
+    public Ticket Leer(String Radicado, LocalDate Fecha) throws SQLException
+    {
+        return Leer(Radicado, Fecha, "");
+    }
+
+    /**
+     * Anula el ticket en una sola transaccion: cabecera y jugadas pasan a
+     * 'I', lo apostado sale de los acumulados del cierre y vuelve a las
+     * reservas del tope por animal. Se rechaza si el ticket es de otra
+     * sucursal o si alguno de sus sorteos ya cerro la venta a la hora Ahora
+     * segun Linea (o si el ticket es de un dia anterior). Devuelve el
+     * ticket anulado para que la terminal descuente su exposicion.
+     */
+    public Ticket Anular(String Radicado, LocalDate Fecha, int Sucursal, String Motivo, String Usuario,
+            LineaSorteos Linea, LocalTime Ahora) throws SQLException
+    {
+        try
+        {
+            Cone.IniciarTransaccion();
+            // Bloquea la cabecera: una segunda anulacion espera y no la encuentra activa
+            Ticket Tic = Leer(Radicado, Fecha, " FOR UPDATE");
+            if (Tic == null)
+            {
+                throw new SQLException("El juego con radicado " + Radicado + " no existe o ya esta anulado");
+            }
+            if (Tic.Sucursal() != Sucursal)
+            {
+                throw new SQLException("El juego con radicado " + Radicado + " se vendio en otra sucursal");
+            }
+            LocalDate Hoy = LocalDate.now();
+            for (Jugada Jug : Tic.Jugadas())
+            {
+                if (Fecha.isBefore(Hoy)
+                        || (Fecha.equals(Hoy) && !Linea.Abierto(Jug.CodigoHorario(), Ahora, LineaSorteos.Margen())))
+                {
+                    throw new SQLException("No se puede anular: el sorteo " + Jug.Horario() + " ya cerro la venta");
+                }
+            }
+            Cone.Ejecutar(SQL_ANULAR, Motivo, Usuario, Radicado, Date.valueOf(Fecha));
+            Cone.Ejecutar(SQL_ANULAR_JUGADAS, Radicado, Date.valueOf(Fecha));
+            Acumulados.Anular(Tic);
+            Liberar(Tic);
+            Cone.Confirmar();
+            return Tic;
+        }
+        catch (SQLException err)
+        {
+            Cone.Deshacer();
+            throw err;
+        }
+        catch (RuntimeException err)
+        {
+            Cone.Deshacer();
+            throw err;
+        }
+    }
+
+    // Devuelve lo apostado a reservasjuego, un valor por (sorteo, animal) y
+    // en el orden de MotorCierre
+    private void Liberar(Ticket Tic) throws SQLException
+    {
+        Map<String, Long> Valores = new TreeMap<String, Long>();
+        Map<String, Jugada> Claves = new TreeMap<String, Jugada>();
+        for (Jugada Jug : Tic.Jugadas())
+        {
+            String Clave = String.format("%06d|%s", Jug.CodigoHorario(), Jug.CodigoAnimal());
+            Long Valor = Valores.get(Clave);
+            Valores.put(Clave, (Valor == null ? 0 : Valor) + Jug.Valor());
+            Claves.put(Clave, Jug);
+        }
+        if (Valores.isEmpty())
+        {
+            return;
+        }
+        Date Fecha = Date.valueOf(Tic.Fecha());
+        for (Map.Entry<String, Long> Ent : Valores.entrySet())
+        {
+            Jugada Jug = Claves.get(Ent.getKey());
+            Cone.AgregarLote(SQL_LIBERAR, Ent.getValue(), Fecha, Jug.CodigoHorario(), Jug.CodigoAnimal());
+        }
+        Cone.EjecutarLote(SQL_LIBERAR);
+    }
+
+    // Las ventas viejas guardan el nombre de la sucursal; la que no se
+    // encuentra queda en 0, como en los acumulados del cierre
+    private static int Codigo(String Sucursal) throws SQLException
+    {
+        Integer Codigo = Catalogo.Actual().Sucursales().Resolver(Sucursal);
+        return Codigo == null ? 0 : Codigo;
+    }
+
+    private Ticket Leer(String Radicado, LocalDate Fecha, String Bloqueo) throws SQLException
+    {
+        Date Dia = Date.valueOf(Fecha);
+        List<Object[]> Cabecera = Cone.Listar(1, LECTOR_TICKET, SQL_TICKET + Bloqueo, Radicado, Dia);
+        if (Cabecera.isEmpty())
+        {
+            return null;
+        }
+        Object Fila[] = Cabecera.get(0);
+        List<Jugada> Jugadas = Cone.Listar(0, LECTOR_JUGADA, SQL_JUGADAS + Bloqueo, Radicado, Dia);
+        return new Ticket((Long) Fila[0], (String) Fila[1], (LocalDate) Fila[2], (LocalTime) Fila[3],
+                Codigo((String) Fila[4]), (String) Fila[5], Jugadas);
+    }
+}
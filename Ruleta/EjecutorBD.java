@@ -0,0 +1,289 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package Ruleta;
+
+import java.awt.Component;
+import java.awt.Cursor;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import javax.swing.JComboBox;
+import javax.swing.JOptionPane;
+import javax.swing.SwingUtilities;
+
+import javax.swing.table.DefaultTableModel;
+
+/**
+ * Ejecuta el acceso a la base de datos fuera del hilo de eventos de Swing.
+ * Las tareas de una misma Conexion se encadenan en el orden en que se piden
+ * (Conexion no es segura entre hilos y un Guardar() seguido de MostrarTabla()
+ * debe ver su propio cambio); las de ventanas distintas corren en paralelo.
+ *
+ * @author DESINCO
+ */
+public final class EjecutorBD {
+
+    private static final AtomicInteger Numero = new AtomicInteger();
+    private static final ExecutorService Hilos = Executors.newFixedThreadPool(ConfiguracionBD.Actual().Entero("lotto.ejecutor.hilos"), new ThreadFactory()
+    {
+        public Thread newThread(Runnable r)
+        {
+            Thread Hilo = new Thread(r, "EjecutorBD-" + Numero.incrementAndGet());
+            Hilo.setDaemon(true);
+            return Hilo;
+        }
+    });
+
+    // Tareas pendientes por ventana, solo se toca desde el hilo de Swing
+    private static final Map<Component, Integer> Pendientes = new WeakHashMap<Component, Integer>();
+
+    private EjecutorBD()
+    {
+    }
+
+    /**
+     * Encola la tarea en la Conexion y devuelve su resultado futuro, sin
+     * pasar por Swing.
+     */
+    public static <T> CompletableFuture<T> Enviar(final Conexion Cone, final TareaBD<T> Tarea)
+    {
+        synchronized (Cone)
+        {
+            CompletableFuture<T> Futuro = Cone.Cola.handle(new BiFunction<Object, Throwable, Object>()
+            {
+                public Object apply(Object Anterior, Throwable Error)
+                {
+                    // El fallo de la tarea anterior no detiene a las siguientes
+                    return null;
+                }
+            }).thenApplyAsync(new Function<Object, T>()
+            {
+                public T apply(Object Nada)
+                {
+                    try
+                    {
+                        return Tarea.Consultar();
+                    }
+                    catch (Exception err)
+                    {
+                        throw new CompletionException(err);
+                    }
+                }
+            }, Hilos);
+            Cone.Cola = Futuro;
+            return Futuro;
+        }
+    }
+
+    /**
+     * Ejecuta la tarea en segundo plano y entrega el resultado a Mostrar() en
+     * el hilo de Swing. Mientras haya tareas pendientes la ventana muestra el
+     * cursor de espera, pero sigue recibiendo eventos.
+     */
+    public static <T> CompletableFuture<T> Ejecutar(final Component Ventana, Conexion Cone, final TareaBD<T> Tarea)
+    {
+        Ocupar(Ventana, +1);
+        final CompletableFuture<T> Futuro = Enviar(Cone, Tarea);
+        Futuro.handle(new BiFunction<T, Throwable, Object>()
+        {
+            public Object apply(final T Resultado, final Throwable Error)
+            {
+                SwingUtilities.invokeLater(new Runnable()
+                {
+                    public void run()
+                    {
+                        Ocupar(Ventana, -1);
+                        if (Error == null)
+                        {
+                            Tarea.Mostrar(Resultado);
+                        }
+                        else
+                        {
+                            Throwable Causa = Error instanceof CompletionException && Error.getCause() != null ? Error.getCause() : Error;
+                            Tarea.Fallo(Causa instanceof Exception ? (Exception) Causa : new Exception(Causa));
+                        }
+                    }
+                });
+                return null;
+            }
+        });
+        return Futuro;
+    }
+
+    /**
+     * Consulta en segundo plano y agrega al modelo una fila por registro con
+     * el texto de las columnas indicadas, en ese orden.
+     */
+    public static CompletableFuture<List<String[]>> Llenar(Component Ventana, Conexion Cone,
+            DefaultTableModel Modelo, String Columnas[], String Sql, Object... Parametros)
+    {
+        return Llenar(Ventana, Cone, Modelo, Columnas, (Runnable) null, Sql, Parametros);
+    }
+
+    /**
+     * Igual que Llenar(), y al terminar de agregar las filas ejecuta Despues
+     * en el hilo de Swing (anchos de columna, seleccion, etc.).
+     */
+    public static CompletableFuture<List<String[]>> Llenar(Component Ventana, final Conexion Cone,
+            final DefaultTableModel Modelo, final String Columnas[], final Runnable Despues,
+            final String Sql, final Object... Parametros)
+    {
+        final int Limite = Limite();
+        return Ejecutar(Ventana, Cone, new TareaBD<List<String[]>>()
+        {
+            public List<String[]> Consultar() throws Exception
+            {
+                // Una fila de mas para saber si la consulta pasaba del limite
+                return Cone.Listar(Limite + 1, LectorFilas.Textos(Columnas), Sql, Parametros);
+            }
+
+            public void Mostrar(List<String[]> Filas)
+            {
+                Recortar(Filas, Limite);
+                for (String Fila[] : Filas)
+                {
+                    Modelo.addRow(Fila);
+                }
+                if (Despues != null)
+                {
+                    Despues.run();
+                }
+            }
+        });
+    }
+
+    /**
+     * Filas maximas que se pintan en una tabla (lotto.consulta.limite).
+     */
+    public static int Limite()
+    {
+        return ConfiguracionBD.Actual().Entero("lotto.consulta.limite");
+    }
+
+    /**
+     * Si la consulta trajo la fila de mas (Limite + 1), la quita y avisa que
+     * la busqueda se corto. Se llama en el hilo de Swing.
+     */
+    public static boolean Recortar(List<?> Filas, int Limite)
+    {
+        if (Filas.size() <= Limite)
+        {
+            return false;
+        }
+        Filas.subList(Limite, Filas.size()).clear();
+        JOptionPane.showMessageDialog(null, "Se muestran solo las primeras " + Limite + " filas, refine la busqueda ...");
+        return true;
+    }
+
+    /**
+     * Consulta en segundo plano y agrega al combo el texto de la columna
+     * indicada de cada registro.
+     */
+    public static CompletableFuture<List<String>> LlenarCombo(Component Ventana, final Conexion Cone,
+            final JComboBox<String> Combo, final String Columna, final String Sql, final Object... Parametros)
+    {
+        return Ejecutar(Ventana, Cone, new TareaBD<List<String>>()
+        {
+            public List<String> Consultar() throws Exception
+            {
+                List<String> Items = new ArrayList<String>();
+                Cone.RstBD = Cone.Consultar(Sql, Parametros);
+                while (Cone.RstBD.next())
+                {
+                    Items.add(Cone.RstBD.getString(Columna));
+                }
+                return Items;
+            }
+
+            public void Mostrar(List<String> Items)
+            {
+                for (String Item : Items)
+                {
+                    Combo.addItem(Item);
+                }
+            }
+        });
+    }
+
+    /**
+     * Presta la conexion de la ventanaen segundo plano; las tareas que se
+     * encolen despues ya la encuentran abierta.
+     */
+    public static CompletableFuture<Object> Conectar(Component Ventana, final Conexion Cone)
+    {
+        return Ejecutar(Ventana, Cone, new TareaBD<Object>()
+        {
+            public Object Consultar()
+            {
+                Cone.Coneccion_BD();
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Devuelve la conexion al pool cuando terminen las tareas pendientes.
+     */
+    public static CompletableFuture<Object> Liberar(final Conexion Cone)
+    {
+        return Enviar(Cone, new TareaBD<Object>()
+        {
+            public Object Consultar()
+            {
+                Cone.Liberar();
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Tarea en segundo plano que no usa una Conexion (por ejemplo red); no
+     * se encola detras de las consultas de la ventana.
+     */
+    public static <T> CompletableFuture<T> Ejecutar(Component Ventana, final TareaBD<T> Tarea)
+    {
+        return Ejecutar(Ventana, new Conexion(), Tarea);
+    }
+
+    private static void Ocupar(final Component Ventana, final int Cambio)
+    {
+        if (Ventana == null)
+        {
+            return;
+        }
+        if (!SwingUtilities.isEventDispatchThread())
+        {
+            SwingUtilities.invokeLater(new Runnable()
+            {
+                public void run()
+                {
+                    Ocupar(Ventana, Cambio);
+                }
+            });
+            return;
+        }
+        Integer Actual = Pendientes.get(Ventana);
+        int Total = (Actual == null ? 0 : Actual) + Cambio;
+        if (Total <= 0)
+        {
+            Pendientes.remove(Ventana);
+            Ventana.setCursor(Cursor.getDefaultCursor());
+        }
+        else
+        {
+            Pendientes.put(Ventana, Total);
+            Ventana.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+        }
+    }
+}
@@ -4,16 +4,43 @@
  */
 package Ruleta;
 
+import Ruleta.Datos.Catalogo;
+import Ruleta.Datos.Dinero;
+import Ruleta.Datos.Jugada;
+import Ruleta.Datos.MotorExposicion;
+import Ruleta.Datos.Ticket;
+import Ruleta.Datos.TicketDAO;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.JOptionPane;
 import javax.swing.UIManager;
+import javax.swing.table.DefaultTableModel;
 
 /**
+ * Anulacion de tickets: Buscar muestra el ticket activo y sus jugadas y
+ * Anular lo anula con TicketDAO (que tambien devuelve lo apostado a las
+ * reservas del tope por animal) y lo descuenta de la exposicion de esta
+ * terminal.
  *
  * @author DESINCO
  */
 public class FrmDAnularJuego extends javax.swing.JDialog {
 
+    private static final Logger REGISTRO = Logger.getLogger(FrmDAnularJuego.class.getName());
+
     Conexion ConeB = new Conexion();
+    TicketDAO Tickets = new TicketDAO(ConeB);
+    
+    DefaultTableModel DatosJuego, DatosApuesta;
+    String SucJuegos = "", UsuarioA = "";
     
+    // Ticket en pantalla; Anular solo anula ese
+    Ticket Mostrado = null;
     
     public FrmDAnularJuego(java.awt.Frame parent, boolean modal) {
         super(parent, modal);
@@ -27,6 +54,37 @@ public class FrmDAnularJuego extends javax.swing.JDialog {
         }
         initComponents();
         this.setLocationRelativeTo(this);
+        // Los botones no tienen evento en el formulario
+        jButton1.addActionListener(new ActionListener()
+        {
+            public void actionPerformed(ActionEvent evt)
+            {
+                BuscarJuego();
+            }
+        });
+        TxtRadicado.addActionListener(new ActionListener()
+        {
+            public void actionPerformed(ActionEvent evt)
+            {
+                BuscarJuego();
+            }
+        });
+        jButton2.addActionListener(new ActionListener()
+        {
+            public void actionPerformed(ActionEvent evt)
+            {
+                AnularJuego();
+            }
+        });
+        LimpiarJuego();
+    }
+    
+    public void Mostrar(String Sucursal, String Usuario)
+    {
+        SucJuegos = Sucursal;
+        UsuarioA = Usuario;
+        FechaJuego.setDate(new java.util.Date());
+        EjecutorBD.Conectar(this, ConeB);
     }
 
     /**
@@ -169,6 +227,124 @@ public class FrmDAnularJuego extends javax.swing.JDialog {
         pack();
     }// </editor-fold>//GEN-END:initComponents
 
+    void LimpiarJuego()
+    {
+        DatosJuego = new DefaultTableModel();
+        TablaJuegos.setModel(DatosJuego);
+        DatosJuego.addColumn("Radicado");
+        DatosJuego.addColumn("Fecha");
+        DatosJuego.addColumn("Hora");
+        DatosJuego.addColumn("Sucursal");
+        DatosJuego.addColumn("Total $");
+        
+        DatosApuesta = new DefaultTableModel();
+        TablaApuesta.setModel(DatosApuesta);
+        DatosApuesta.addColumn("Codigo");
+        DatosApuesta.addColumn("Lotto Animal");
+        DatosApuesta.addColumn("Horario");
+        DatosApuesta.addColumn("Hora Juego");
+        DatosApuesta.addColumn("Valor $");
+        
+        Mostrado = null;
+        jButton2.setEnabled(false);
+    }
+    
+    void BuscarJuego()
+    {
+        final String Radicado = TxtRadicado.getText().trim();
+        LimpiarJuego();
+        if (Radicado.isEmpty() || FechaJuego.getDate() == null)
+        {
+            JOptionPane.showMessageDialog(null, "Debe ingresar el Radicado y la Fecha del Juego ...");
+            return;
+        }
+        final LocalDate Fecha = new java.sql.Date(FechaJuego.getDate().getTime()).toLocalDate();
+        EjecutorBD.Ejecutar(this, ConeB, new TareaBD<Ticket>()
+        {
+            public Ticket Consultar() throws Exception
+            {
+                return Tickets.Leer(Radicado, Fecha);
+            }
+            
+            public void Mostrar(Ticket Tic)
+            {
+                if (Tic == null)
+                {
+                    JOptionPane.showMessageDialog(null, "El Juego con Radicado "+Radicado+" no existe o ya se encuentra anulado ...");
+                    return;
+                }
+                Catalogo Cat = Catalogo.Cargado();
+                String Sucursal = Cat == null ? String.valueOf(Tic.Sucursal())
+                        : Cat.Sucursales().Mostrar(String.valueOf(Tic.Sucursal()));
+                DatosJuego.addRow(new Object[] {Tic.Radicado(), String.valueOf(Tic.Fecha()), String.valueOf(Tic.Hora()),
+                    Sucursal, Dinero.Texto(Tic.Total())});
+                for (Jugada Jug : Tic.Jugadas())
+                {
+                    DatosApuesta.addRow(new Object[] {Jug.CodigoAnimal(), Jug.Animal(), Jug.Horario(),
+                        String.valueOf(Jug.HoraJuego()), Dinero.Texto(Jug.Valor())});
+                }
+                Mostrado = Tic;
+                jButton2.setEnabled(true);
+            }
+        });
+    }
+    
+    void AnularJuego()
+    {
+        if (Mostrado == null)
+        {
+            return;
+        }
+        final String Motivo = JOptionPane.showInputDialog(this, "Motivo de la anulacion del Juego "+Mostrado.Radicado()+":");
+        if (Motivo == null || Motivo.trim().isEmpty())
+        {
+            return;
+        }
+        final String Radicado = Mostrado.Radicado(), Sucursal = SucJuegos, Usuario = UsuarioA;
+        final LocalDate Fecha = Mostrado.Fecha();
+        jButton2.setEnabled(false);
+        EjecutorBD.Ejecutar(this, ConeB, new TareaBD<Ticket>()
+        {
+            public Ticket Consultar() throws Exception
+            {
+                Catalogo Cat = Catalogo.Actual();
+                Integer Codigo = Cat.Sucursales().Codigo(Sucursal);
+                if (Codigo == null)
+                {
+                    throw new SQLException("La sucursal " + Sucursal + " no existe en BODEGAS");
+                }
+                long Inicio = System.nanoTime();
+                Ticket Tic = Tickets.Anular(Radicado, Fecha, Codigo, Motivo.trim(), Usuario, Cat.Linea(), LocalTime.now());
+                MotorExposicion.Principal().Restar(Tic);
+                REGISTRO.log(Level.FINE, "Ticket {0} anulado en {1} ms ({2} jugadas)", new Object[] {Radicado,
+                    (System.nanoTime() - Inicio) / 1_000_000, Tic.Jugadas().size()});
+                return Tic;
+            }
+            
+            public void Mostrar(Ticket Tic)
+            {
+                LimpiarJuego();
+                JOptionPane.showMessageDialog(null, "Juego con Radicado : "+Radicado+" Anulado ...");
+                TxtRadicado.setText("");
+                TxtRadicado.requestFocus();
+            }
+            
+            public void Fallo(Exception err)
+            {
+                jButton2.setEnabled(true);
+                err.printStackTrace();
+                JOptionPane.showMessageDialog(null, "No fue posible anular el Juego ...\n"+err.getMessage());
+            }
+        });
+    }
+    
+    @Override
+    public void dispose()
+    {
+        EjecutorBD.Liberar(ConeB);
+        super.dispose();
+    }
+
     /**
      * @param args the command line arguments
      */
@@ -4,7 +4,9 @@
  */
 package Ruleta;
 
-import java.sql.ResultSet;
+import Ruleta.Datos.Animal;
+import Ruleta.Datos.Catalogo;
+import java.util.List;
 import javax.swing.JOptionPane;
 import javax.swing.UIManager;
 import javax.swing.table.DefaultTableModel;
@@ -262,21 +264,25 @@ public class FrmDAsignarRuleta extends javax.swing.JDialog {
     
     void Consecutivo()
     {
-        String SqlConse = "";
-        try
+        EjecutorBD.Ejecutar(this, ConeBD, new TareaBD<Integer>()
         {
-            SqlConse = "SELECT MAX(NUM) AS CONSECUTIVO FROM lottoruleta";
-            ConeBD.RstBD = (ResultSet) ConeBD.StmBD.executeQuery(SqlConse);
-            if (ConeBD.RstBD.next())
+            public Integer Consultar() throws Exception
             {
-                Consecu = ConeBD.RstBD.getInt("CONSECUTIVO") + 1;                
+                String SqlConse = "SELECT MAX(NUM) AS CONSECUTIVO FROM lottoruleta";
+                ConeBD.RstBD = ConeBD.Consultar(SqlConse);
+                if (ConeBD.RstBD.next())
+                {
+                    return ConeBD.RstBD.getInt("CONSECUTIVO") + 1;                
+                }
+                return Consecu;
             }
-            TxtCodigo.setText(String.valueOf(Consecu));
-        }
-        catch (Exception err)
-        {
-            err.printStackTrace();
-        }
+            
+            public void Mostrar(Integer Numero)
+            {
+                Consecu = Numero;
+                TxtCodigo.setText(String.valueOf(Consecu));
+            }
+        });
     }
     
     private void jButton1ActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jButton1ActionPerformed
@@ -292,7 +298,6 @@ public class FrmDAsignarRuleta extends javax.swing.JDialog {
 
     void MostrarTabla()
     {
-        String SqlMostrarTabla = "";
         TablaRuleta.clearSelection();
         DatosLotto =  new DefaultTableModel();
         TablaRuleta.setModel(DatosLotto);
@@ -302,26 +307,24 @@ public class FrmDAsignarRuleta extends javax.swing.JDialog {
         DatosLotto.addColumn("Animal");
         DatosLotto.addColumn("Color");
         
-        try
+        TablaRuleta.setDefaultRenderer(Object.class,new Render());
+        
+        final DefaultTableModel Modelo = DatosLotto;
+        EjecutorBD.Ejecutar(this, ConeBD, new TareaBD<List<Animal>>()
         {
-            SqlMostrarTabla = "SELECT * FROM lottoruleta WHERE ESTADO = 'A' ORDER BY NUM";
-            ConeBD.RstBD = (ResultSet) ConeBD.StmBD.executeQuery(SqlMostrarTabla);
-            while (ConeBD.RstBD.next())
+            public List<Animal> Consultar() throws Exception
             {
-                DatLotto[0] = String.valueOf(ConeBD.RstBD.getInt("NUM"));
-                DatLotto[1] = ConeBD.RstBD.getString("CODIGOJUEGO");
-                DatLotto[2] = ConeBD.RstBD.getString("VALOR");
-                DatLotto[3] = ConeBD.RstBD.getString("COLOR");
-                TablaRuleta.setDefaultRenderer(Object.class,new Render());
-                DatosLotto.addRow(DatLotto);
-                
+                return Catalogo.Actual().Animales();
             }
-        }
-        catch (Exception err)
-        {
-            err.printStackTrace();
-        }
-        
+            
+            public void Mostrar(List<Animal> Lista)
+            {
+                for (Animal Ani : Lista)
+                {
+                    Modelo.addRow(new Object[] {String.valueOf(Ani.Num()), Ani.Codigo(), Ani.Nombre(), Ani.Color()});
+                }
+            }
+        });
     }
     
     void Guardar()
@@ -338,19 +341,26 @@ public class FrmDAsignarRuleta extends javax.swing.JDialog {
             Color = "R";                    
         }
         
-        try
+        SqlGuardar = "INSERT INTO lottoruleta (NUM, CODIGOJUEGO, VALOR, COLOR, ESTADO) VALUES (?, ?, ?, ?, 'A')";
+        final String Sql = SqlGuardar;
+        final Object Datos[] = {Consecu, TxtCodJuego.getText(), TxtAnimal.getText(), Color};
+        EjecutorBD.Ejecutar(this, ConeBD, new TareaBD<Integer>()
         {
-            SqlGuardar = "INSERT INTO lottoruleta VALUES ("+Consecu+",'"+TxtCodJuego.getText()+"','"
-                    +TxtAnimal.getText()+"','"+Color+"','A')";
-            ConeBD.StmBD.executeUpdate(SqlGuardar);
-            Limpiar();
-            Apagar();
-            JOptionPane.showMessageDialog(null, "Lotto Animal Creado ...");
-        }
-        catch (Exception err)
-        {
-            err.printStackTrace();
-        }
+            public Integer Consultar() throws Exception
+            {
+                int Filas = ConeBD.Ejecutar(Sql, Datos);
+                Catalogo.Invalidar();
+                return Filas;
+            }
+
+            
+            public void Mostrar(Integer Filas)
+            {
+                Limpiar();
+                Apagar();
+                JOptionPane.showMessageDialog(null, "Lotto Animal Creado ...");
+            }
+        });
     }
     
     void Editar()
@@ -378,11 +388,18 @@ public class FrmDAsignarRuleta extends javax.swing.JDialog {
     }//GEN-LAST:event_jButton2ActionPerformed
 
     private void formWindowOpened(java.awt.event.WindowEvent evt) {//GEN-FIRST:event_formWindowOpened
-        ConeBD.Coneccion_BD();
+        EjecutorBD.Conectar(this, ConeBD);
         MostrarTabla();
         Apagar();
     }//GEN-LAST:event_formWindowOpened
 
+    @Override
+    public void dispose()
+    {
+        EjecutorBD.Liberar(ConeBD);
+        super.dispose();
+    }
+
     /**
      * @param args the command line arguments
      */
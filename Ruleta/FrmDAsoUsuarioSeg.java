@@ -4,7 +4,8 @@
  */
 package Ruleta;
 
-import java.sql.ResultSet;
+import Ruleta.Datos.Catalogo;
+import Ruleta.Datos.Sucursales;
 import javax.swing.JOptionPane;
 import javax.swing.UIManager;
 import javax.swing.table.DefaultTableModel;
@@ -16,10 +17,12 @@ import javax.swing.table.DefaultTableModel;
 public class FrmDAsoUsuarioSeg extends javax.swing.JDialog {
 
     Conexion ConeBD =  new Conexion();
+    Sucursales Directorio;
     
     
     DefaultTableModel DatosSeguridad;
     String DatSeguridad[] =  new String[5];
+    final String ColSeguridad[] = {"ID", "NOMBRE", "NICK", "TIPO", "ESTADO"};
     
     public FrmDAsoUsuarioSeg(java.awt.Frame parent, boolean modal) {
         super(parent, modal);
@@ -204,12 +207,19 @@ public class FrmDAsoUsuarioSeg extends javax.swing.JDialog {
     }
     
     private void formWindowOpened(java.awt.event.WindowEvent evt) {//GEN-FIRST:event_formWindowOpened
-        ConeBD.Coneccion_BD();
+        EjecutorBD.Conectar(this, ConeBD);
         IniciarTabla();
         ListarTabla();
         CargarBodegas();
     }//GEN-LAST:event_formWindowOpened
 
+    @Override
+    public void dispose()
+    {
+        EjecutorBD.Liberar(ConeBD);
+        super.dispose();
+    }
+
     private void TxtIdKeyReleased(java.awt.event.KeyEvent evt) {//GEN-FIRST:event_TxtIdKeyReleased
         
         if (!(TxtId.getText().equals("")))
@@ -244,40 +254,43 @@ public class FrmDAsoUsuarioSeg extends javax.swing.JDialog {
     }//GEN-LAST:event_TablaUsuariosMouseClicked
 
     private void CmbSedeActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_CmbSedeActionPerformed
-        String NomBodega = CmbSede.getSelectedItem().toString(), SqlSacarCodigo = "";
-        
-        try
+        // Sin consulta: el codigo sale del directorio con que se lleno el combo
+        Integer Codigo = Directorio == null ? null : Directorio.Codigo(CmbSede.getSelectedItem().toString());
+        if (Codigo != null)
         {
-            SqlSacarCodigo = "SELECT CODIGO FROM BODEGAS WHERE BODEGA = '"+NomBodega+"'";
-            ConeBD.RstBD = (ResultSet) ConeBD.StmBD.executeQuery(SqlSacarCodigo);
-            if (ConeBD.RstBD.next())
-            {
-                TxtCodBodega.setText(String.valueOf(ConeBD.RstBD.getInt("CODIGO")));
-            }
-        }
-        catch (Exception err)
-        {
-            err.printStackTrace();
+            TxtCodBodega.setText(String.valueOf(Codigo));
         }
     }//GEN-LAST:event_CmbSedeActionPerformed
 
     void IntegrarUsuario()
     {
-        String SqlIntegrar = "";
-        
+        final int CodBodega;
+        final String Id = TxtId.getText();
         try
         {
-            SqlIntegrar = "UPDATE SEGURIDAD SET CODBODEGA = "+
-                    TxtCodBodega.getText()+" WHERE ID = '"+TxtId.getText()+"'";
-            ConeBD.StmBD.executeUpdate(SqlIntegrar);
-            JOptionPane.showMessageDialog(null, "Usuario : "+TxtNombre.getText()+" Integradoa a "
-                    + "la Sucursal : "+CmbSede.getSelectedItem().toString());
-            Limpiar();
+            CodBodega = Integer.parseInt(TxtCodBodega.getText());
         }
         catch (Exception err)
         {
-            err.printStackTrace();                    
+            err.printStackTrace();
+            return;
         }
+        
+        EjecutorBD.Ejecutar(this, ConeBD, new TareaBD<Integer>()
+        {
+            public Integer Consultar() throws Exception
+            {
+                String SqlIntegrar = "UPDATE SEGURIDAD SET CODBODEGA = ? WHERE ID = ?";
+                return ConeBD.Ejecutar(SqlIntegrar, CodBodega, Id);
+            }
+            
+            public void Mostrar(Integer Filas)
+            {
+                JOptionPane.showMessageDialog(null, "Usuario : "+TxtNombre.getText()+" Integradoa a "
+                        + "la Sucursal : "+CmbSede.getSelectedItem().toString());
+                Limpiar();
+            }
+        });
     }
     
     private void jButton1ActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jButton1ActionPerformed
@@ -294,45 +307,32 @@ public class FrmDAsoUsuarioSeg extends javax.swing.JDialog {
      */
     void CargarBodegas()
     {
-        String SqlCargarCajas = "";
-        
-        try
+        EjecutorBD.Ejecutar(this, ConeBD, new TareaBD<Sucursales>()
         {
-            SqlCargarCajas = "SELECT BODEGA FROM BODEGAS ORDER BY CODIGO";
-            ConeBD.RstBD = (ResultSet) ConeBD.StmBD.executeQuery(SqlCargarCajas);
-            while (ConeBD.RstBD.next())
+            public Sucursales Consultar() throws Exception
             {
-                CmbSede.addItem((ConeBD.RstBD.getString("BODEGA")));
+                return Catalogo.Actual().Sucursales();
             }
-        }
-        catch (Exception err)
-        {
-            err.printStackTrace();
-        }
+            
+            @SuppressWarnings("unchecked")
+            public void Mostrar(Sucursales Dir)
+            {
+                Directorio = Dir;
+                for (String Nombre : Dir.Nombres())
+                {
+                    CmbSede.addItem(Nombre);
+                }
+            }
+        });
     }
     
     void FiltrarUsuario(String Tabla, String Campo)
     {
         String SqlMostrar = "";
         IniciarTabla();
-        try
-        {
-            SqlMostrar = "SELECT *  FROM SEGURIDAD WHERE "+Tabla+" LIKE '%"+Campo+"%'";
-            ConeBD.RstBD = (ResultSet) ConeBD.StmBD.executeQuery(SqlMostrar);
-            while (ConeBD.RstBD.next())
-            {
-                DatSeguridad[0] = ConeBD.RstBD.getString("ID");
-                DatSeguridad[1] = ConeBD.RstBD.getString("NOMBRE");
-                DatSeguridad[2] = ConeBD.RstBD.getString("NICK");
-                DatSeguridad[3] = ConeBD.RstBD.getString("TIPO");
-                DatSeguridad[4] = ConeBD.RstBD.getString("ESTADO");
-                DatosSeguridad.addRow(DatSeguridad);
-            }
-        }
-        catch (Exception err)
-        {
-            err.printStackTrace();
-        }
+        
+        SqlMostrar = "SELECT *  FROM SEGURIDAD WHERE "+Tabla+" LIKE ?";
+        EjecutorBD.Llenar(this, ConeBD, DatosSeguridad, ColSeguridad, SqlMostrar, "%"+Campo+"%");
     }
     
     void IniciarTabla()
@@ -356,24 +356,9 @@ public class FrmDAsoUsuarioSeg extends javax.swing.JDialog {
     void ListarTabla()
     {
         String SqlMostrar = "";        
-        try
-        {
-            SqlMostrar = "SELECT *  FROM SEGURIDAD";
-            ConeBD.RstBD = (ResultSet) ConeBD.StmBD.executeQuery(SqlMostrar);
-            while (ConeBD.RstBD.next())
-            {
-                DatSeguridad[0] = ConeBD.RstBD.getString("ID");
-                DatSeguridad[1] = ConeBD.RstBD.getString("NOMBRE");
-                DatSeguridad[2] = ConeBD.RstBD.getString("NICK");
-                DatSeguridad[3] = ConeBD.RstBD.getString("TIPO");
-                DatSeguridad[4] = ConeBD.RstBD.getString("ESTADO");
-                DatosSeguridad.addRow(DatSeguridad);
-            }
-        }
-        catch (Exception err)
-        {
-            err.printStackTrace();
-        }
+        
+        SqlMostrar = "SELECT *  FROM SEGURIDAD";
+        EjecutorBD.Llenar(this, ConeBD, DatosSeguridad, ColSeguridad, SqlMostrar);
     }
     
     public static void main(String args[]) {
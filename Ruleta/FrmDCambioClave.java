@@ -178,10 +178,17 @@ public class FrmDCambioClave extends javax.swing.JDialog {
     }
     
     private void formWindowOpened(java.awt.event.WindowEvent evt) {//GEN-FIRST:event_formWindowOpened
-        ConeBD.Coneccion_BD();
+        EjecutorBD.Conectar(this, ConeBD);
         Apagar();
     }//GEN-LAST:event_formWindowOpened
 
+    @Override
+    public void dispose()
+    {
+        EjecutorBD.Liberar(ConeBD);
+        super.dispose();
+    }
+
     void Apagar()
     {
         TxtId.setEnabled(false);
@@ -201,18 +208,22 @@ public class FrmDCambioClave extends javax.swing.JDialog {
         {
             if (TxtNewClave.getText().equals(TxtConNewClave.getText()))
             {
-                try
-                {
-                   SqlCabiarClave = "UPDATE SEGURIDAD SET CLAVE = '"+TxtConNewClave.getText()+"' WHERE ID = '"+TxtId.getText()+"'";
-                   ConeBD.StmBD.executeUpdate(SqlCabiarClave);
-                   JOptionPane.showMessageDialog(null, "Cambio Realizado Con Exito ...");
-                   Limpiar();
-                   dispose();
-                }
-                catch (Exception err)
+                SqlCabiarClave = "UPDATE SEGURIDAD SET CLAVE = ? WHERE ID = ?";
+                final String Sql = SqlCabiarClave, Clave = TxtConNewClave.getText(), Id = TxtId.getText();
+                EjecutorBD.Ejecutar(this, ConeBD, new TareaBD<Integer>()
                 {
-                    err.printStackTrace();
-                }
+                    public Integer Consultar() throws Exception
+                    {
+                        return ConeBD.Ejecutar(Sql, Clave, Id);
+                    }
+                    
+                    public void Mostrar(Integer Filas)
+                    {
+                        JOptionPane.showMessageDialog(null, "Cambio Realizado Con Exito ...");
+                        Limpiar();
+                        dispose();
+                    }
+                });
             }
             else
             {
@@ -4,8 +4,14 @@
  */
 package Ruleta;
 
-import java.sql.ResultSet;
-import java.text.DecimalFormat;
+import Ruleta.Datos.Dinero;
+import Ruleta.Datos.Ganador;
+import Ruleta.Datos.GanadoresDAO;
+import java.awt.event.AdjustmentEvent;
+import java.awt.event.AdjustmentListener;
+import java.time.LocalDate;
+import java.util.List;
+
 import java.text.SimpleDateFormat;
 import javax.swing.Timer;
 import javax.swing.UIManager;
@@ -17,7 +23,7 @@ import javax.swing.table.DefaultTableModel;
  */
 public class FrmDGanadores extends javax.swing.JDialog {
 
-    Conexion ConeBD =  new Conexion();
+    Conexion ConeBD =  new Conexion(Conexion.LECTURA);
     
     int Ingreso = 0, Consecu = 0;
     
@@ -28,11 +34,16 @@ public class FrmDGanadores extends javax.swing.JDialog {
     java.util.Date Reloj;
     SimpleDateFormat Formato;
     
-    DecimalFormat Convertir = new DecimalFormat("###,###.##"); 
     
-    double ValTJugar = 0;
     String HoraJuego = "", FechaJuego = "";
     
+    // Paginas de ganadores: la siguiente arranca despues de UltimoG
+    GanadoresDAO Ganadores = new GanadoresDAO(ConeBD);
+    LocalDate DesdeG, HastaG;
+    Ganador UltimoG;
+    boolean CompletoG = true, Cargando = false;
+    int Pagina = 0;
+    
     public FrmDGanadores(java.awt.Frame parent, boolean modal) {
         super(parent, modal);
         try
@@ -45,6 +56,18 @@ public class FrmDGanadores extends javax.swing.JDialog {
         }
         initComponents();
         this.setLocationRelativeTo(this);
+        jScrollPane1.getVerticalScrollBar().addAdjustmentListener(new AdjustmentListener()
+        {
+            public void adjustmentValueChanged(AdjustmentEvent evt)
+            {
+                // Cerca del final de la tabla se pide la pagina siguiente
+                javax.swing.JScrollBar Barra = jScrollPane1.getVerticalScrollBar();
+                if (Barra.getValue() + Barra.getVisibleAmount() >= Barra.getMaximum() - TablaGanadores.getRowHeight())
+                {
+                    SiguientePagina();
+                }
+            }
+        });
     }
 
     /**
@@ -158,89 +181,84 @@ public class FrmDGanadores extends javax.swing.JDialog {
 
     void MostrarGanadores()
     {
-        String SqlMostrarGanadores = "";
-        
-        TablaGanadores.clearSelection();
-        DatosLottoG = new DefaultTableModel();
-        TablaGanadores.setModel(DatosLottoG);
-        DatosLottoG.addColumn("Radicado");
-        DatosLottoG.addColumn("Lotto Animal");
-        DatosLottoG.addColumn("Valor Apostado $");
-        DatosLottoG.addColumn("Fecha");
-        DatosLottoG.addColumn("Hora");
-        DatosLottoG.addColumn("Hora Jugada");
-        
-        try
-        {
-            SqlMostrarGanadores = "SELECT hislottojuego.RADICADO AS NUMJUEGO, hislottojuego.CODANIMAL AS CODA,"
-                    + " hislottojuego.ANIMAL AS NOMANIMAL, hislottojuego.VALOR AS VALORJ,"
-                    + " hislottojuego.FECHA AS FECHA, hislottojuego.HORA AS HORAJ, ingresarganadores.DESCRIOCIONH AS HORAJUEGO"
-                    + " FROM hislottojuego, ingresarganadores"
-                    + " WHERE"
-                    + " ingresarganadores.CODIGOA = hislottojuego.CODANIMAL AND ingresarganadores.CODIGOH = hislottojuego.CODIGOJ AND"
-                    + " ingresarganadores.FECHA = '"+FechaJuego+"' AND hislottojuego.FECHA = '"+FechaJuego+"' AND hislottojuego.ESTADOP = 'A'";
-            ConeBD.RstBD = (ResultSet) ConeBD.StmBD.executeQuery(SqlMostrarGanadores);
-            while (ConeBD.RstBD.next())
-            {
-                DatLottoG[0] = ConeBD.RstBD.getString("NUMJUEGO");
-                DatLottoG[1] = ConeBD.RstBD.getString("NOMANIMAL");
-                DatLottoG[2] = String.valueOf(Convertir.format(ConeBD.RstBD.getDouble("VALORJ")));
-                DatLottoG[3] = String.valueOf(ConeBD.RstBD.getDate("FECHA"));
-                DatLottoG[4] = String.valueOf(ConeBD.RstBD.getTime("HORAJ"));
-                DatLottoG[5] = ConeBD.RstBD.getString("HORAJUEGO");
-                DatosLottoG.addRow(DatLottoG);
-            }
-        }
-        catch (Exception err)
-        {
-            err.printStackTrace();
-        }
+        LocalDate Dia = LocalDate.parse(FechaJuego);
+        CargarGanadores(Dia, Dia);
     }
     
     void BuscarGanadores()
     {
-        java.util.Date fechaS = FechaInicial.getDate();
-        SimpleDateFormat S = new SimpleDateFormat("yyyy-MM-dd");
-        String FechaI = (S.format(fechaS));
-        
-        String SqlMostrarGanadores = "";
-        
+        LocalDate Dia = new java.sql.Date(FechaInicial.getDate().getTime()).toLocalDate();
+        CargarGanadores(Dia, Dia);
+    }
+    
+    void CargarGanadores(LocalDate Desde, LocalDate Hasta)
+    {
         TablaGanadores.clearSelection();
         DatosLottoG = new DefaultTableModel();
         TablaGanadores.setModel(DatosLottoG);
         DatosLottoG.addColumn("Radicado");
         DatosLottoG.addColumn("Lotto Animal");
         DatosLottoG.addColumn("Valor Apostado $");
+        DatosLottoG.addColumn("Premio $");
         DatosLottoG.addColumn("Fecha");
         DatosLottoG.addColumn("Hora");
         DatosLottoG.addColumn("Hora Jugada");
         
-        try
+        DesdeG = Desde;
+        HastaG = Hasta;
+        UltimoG = null;
+        CompletoG = false;
+        Pagina++;
+        Cargando = false;
+        SiguientePagina();
+    }
+    
+    // Trae la pagina que sigue al ultimo ganador mostrado y la agrega al final
+    void SiguientePagina()
+    {
+        if (Cargando || CompletoG)
         {
-            SqlMostrarGanadores = "SELECT hislottojuego.RADICADO AS NUMJUEGO, hislottojuego.CODANIMAL AS CODA,"
-                    + " hislottojuego.ANIMAL AS NOMANIMAL, hislottojuego.VALOR AS VALORJ,"
-                    + " hislottojuego.FECHA AS FECHA, hislottojuego.HORA AS HORAJ, ingresarganadores.DESCRIOCIONH AS HORAJUEGO"
-                    + " FROM hislottojuego, ingresarganadores"
-                    + " WHERE"
-                    + " ingresarganadores.CODIGOA = hislottojuego.CODANIMAL AND ingresarganadores.CODIGOH = hislottojuego.CODIGOJ AND"
-                    + " ingresarganadores.FECHA = '"+FechaI+"' AND hislottojuego.FECHA = '"+FechaI+"' AND hislottojuego.ESTADOP = 'A'";
-            System.out.println(SqlMostrarGanadores);
-            ConeBD.RstBD = (ResultSet) ConeBD.StmBD.executeQuery(SqlMostrarGanadores);            
-            while (ConeBD.RstBD.next())
-            {
-                DatLottoG[0] = ConeBD.RstBD.getString("NUMJUEGO");
-                DatLottoG[1] = ConeBD.RstBD.getString("NOMANIMAL");
-                DatLottoG[2] = String.valueOf(Convertir.format(ConeBD.RstBD.getDouble("VALORJ")));
-                DatLottoG[3] = String.valueOf(ConeBD.RstBD.getDate("FECHA"));
-                DatLottoG[4] = String.valueOf(ConeBD.RstBD.getTime("HORAJ"));
-                DatLottoG[5] = ConeBD.RstBD.getString("HORAJUEGO");
-                DatosLottoG.addRow(DatLottoG);
-            }
+            return;
         }
-        catch (Exception err)
+        Cargando = true;
+        final int Cantidad = EjecutorBD.Limite();
+        final int Numero = Pagina;
+        final DefaultTableModel Modelo = DatosLottoG;
+        final LocalDate Desde = DesdeG, Hasta = HastaG;
+        final Ganador Despues = UltimoG;
+        EjecutorBD.Ejecutar(this, ConeBD, new TareaBD<List<Ganador>>()
         {
-            err.printStackTrace();
-        }
+            public List<Ganador> Consultar() throws Exception
+            {
+                return Ganadores.Entre(Desde, Hasta, Despues, Cantidad);
+            }
+            
+            public void Mostrar(List<Ganador> Filas)
+            {
+                if (Numero != Pagina)
+                {
+                    // Se cambio la fecha mientras se leia
+                    return;
+                }
+                Cargando = false;
+                CompletoG = Filas.size() < Cantidad;
+                for (Ganador Gan : Filas)
+                {
+                    Modelo.addRow(new String[] {Gan.Radicado(), Gan.Animal(), Dinero.Texto(Gan.Valor()),
+                        Dinero.Texto(Gan.Pago()), String.valueOf(Gan.Fecha()), String.valueOf(Gan.Hora()), Gan.Horario()});
+                    UltimoG = Gan;
+                }
+            }
+            
+            public void Fallo(Exception err)
+            {
+                if (Numero == Pagina)
+                {
+                    Cargando = false;
+                }
+                err.printStackTrace();
+            }
+        });
     }
     
     private void jButton1ActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jButton1ActionPerformed
@@ -248,15 +266,21 @@ public class FrmDGanadores extends javax.swing.JDialog {
     }//GEN-LAST:event_jButton1ActionPerformed
 
     private void formWindowOpened(java.awt.event.WindowEvent evt) {//GEN-FIRST:event_formWindowOpened
-        ConeBD.Coneccion_BD();
-        
-        SimpleDateFormat F = new SimpleDateFormat("yyyy-MM-dd");
+        EjecutorBD.Conectar(this, ConeBD);
+        SimpleDateFormat F= new SimpleDateFormat("yyyy-MM-dd");
         java.util.Date Fecha = new java.util.Date();
         FechaInicial.setDate(Fecha);
         FechaJuego = String.valueOf(F.format(Fecha));
         MostrarGanadores();
     }//GEN-LAST:event_formWindowOpened
 
+    @Override
+    public void dispose()
+    {
+        EjecutorBD.Liberar(ConeBD);
+        super.dispose();
+    }
+
     /**
      * @param args the command line arguments
      */
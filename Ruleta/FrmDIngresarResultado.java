@@ -4,12 +4,16 @@
  */
 package Ruleta;
 
+import Ruleta.Datos.Animal;
+import Ruleta.Datos.Catalogo;
+import Ruleta.Datos.Horario;
+import Ruleta.Datos.MotorLiquidacion;
+import Ruleta.Datos.Resultado;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.sql.ResultSet;
-import java.text.DecimalFormat;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.List;
 import javax.swing.JOptionPane;
 import javax.swing.JViewport;
 import javax.swing.Timer;
@@ -30,10 +34,10 @@ public class FrmDIngresarResultado extends javax.swing.JDialog {
     int Ingreso = 0, Consecu = 0;
     
     DefaultTableModel DatosLotto;
-    String DatLotto[] =  new String[4];
+
     
     DefaultTableModel DatosHorarioLotto;
-    String DatHorarioLotto[] =  new String[4];
+    MotorLiquidacion Liquidacion = new MotorLiquidacion(ConeBD);
     
     DefaultTableModel DatosJugar;
     String DatJugar[] =  new String[5];
@@ -42,9 +46,7 @@ public class FrmDIngresarResultado extends javax.swing.JDialog {
     java.util.Date Reloj;
     SimpleDateFormat Formato;
     
-    DecimalFormat Convertir = new DecimalFormat("###,###.##"); 
     
-    double ValTJugar = 0;
     String HoraJuego = "";
     
     public FrmDIngresarResultado(java.awt.Frame parent, boolean modal) {
@@ -308,7 +310,6 @@ public class FrmDIngresarResultado extends javax.swing.JDialog {
     
     void MostrarTablaJuegos()
     {
-        String SqlMostrarTabla = "";
         TablaHorario.clearSelection();
         DatosHorarioLotto =  new DefaultTableModel();
         TablaHorario.setModel(DatosHorarioLotto);
@@ -317,50 +318,50 @@ public class FrmDIngresarResultado extends javax.swing.JDialog {
         DatosHorarioLotto.addColumn("Des. Juego");
         DatosHorarioLotto.addColumn("Hota Juego");
         
-        try
+        final DefaultTableModel Modelo = DatosHorarioLotto;
+        EjecutorBD.Ejecutar(this, ConeBD, new TareaBD<List<Horario>>()
         {
-            //SqlMostrarTabla = "SELECT * FROM horariojuego WHERE (HORA < '"+JlHora.getText()+"') AND ESTADO = 'A' ORDER BY NUM";
-            SqlMostrarTabla = "SELECT * FROM horariojuego WHERE ESTADO = 'A' ORDER BY NUM";
-            System.out.println(SqlMostrarTabla);
-            ConeBD.RstBD = (ResultSet) ConeBD.StmBD.executeQuery(SqlMostrarTabla);
-            while (ConeBD.RstBD.next())
+            public List<Horario> Consultar() throws Exception
+            {
+                return Catalogo.Actual().Horarios();
+            }
+            
+            public void Mostrar(List<Horario> Lista)
             {
-                DatHorarioLotto[0] = String.valueOf(ConeBD.RstBD.getInt("NUM"));
-                DatHorarioLotto[1] = ConeBD.RstBD.getString("DESCRIPCION");
-                DatHorarioLotto[2] = String.valueOf(ConeBD.RstBD.getTime("HORA"));
-                DatosHorarioLotto.addRow(DatHorarioLotto);
-                
-                int anchoColumna1 = 0;
-                JViewport scroll1 =  (JViewport) TablaHorario.getParent();
-                int ancho1 = scroll1.getWidth();
-                TableColumnModel modeloColumna1 = TablaHorario.getColumnModel();
-                TableColumn columnaTabla1;                
-                for (int j = 0; j < TablaHorario.getColumnCount(); j++)
+                for (Horario Hor : Lista)
                 {
-                    columnaTabla1 = modeloColumna1.getColumn(j);
-                    switch(j)
-                    {
-                        case 0: anchoColumna1 = (15*ancho1)/100;
-                            break;
-                        case 1: anchoColumna1 = (80*ancho1)/100;
-                            break;
-                        case 2: anchoColumna1 = (30*ancho1)/100;
-                            break;
-                    }
-                    columnaTabla1.setPreferredWidth(anchoColumna1);
+                    Modelo.addRow(new Object[] {String.valueOf(Hor.Num()), Hor.Descripcion(), Hor.HoraTexto()});
                 }
-                
+                AnchoHorario();
             }
-        }
-        catch (Exception err)
+        });
+    }
+    
+    void AnchoHorario()
+    {
+        int anchoColumna1 = 0;
+        JViewport scroll1 =  (JViewport) TablaHorario.getParent();
+        int ancho1 = scroll1.getWidth();
+        TableColumnModel modeloColumna1 = TablaHorario.getColumnModel();
+        TableColumn columnaTabla1;                
+        for (int j = 0; j < TablaHorario.getColumnCount(); j++)
         {
-            err.printStackTrace();
-        }        
+            columnaTabla1 = modeloColumna1.getColumn(j);
+            switch(j)
+            {
+                case 0: anchoColumna1 = (15*ancho1)/100;
+                    break;
+                case 1: anchoColumna1 = (80*ancho1)/100;
+                    break;
+                case 2: anchoColumna1 = (30*ancho1)/100;
+                    break;
+            }
+            columnaTabla1.setPreferredWidth(anchoColumna1);
+        }
     }
     
     void MostrarTabla()
     {
-        String SqlMostrarTabla = "";
         TablaRuleta.clearSelection();
         DatosLotto =  new DefaultTableModel();
         TablaRuleta.setModel(DatosLotto);
@@ -370,47 +371,50 @@ public class FrmDIngresarResultado extends javax.swing.JDialog {
         DatosLotto.addColumn("Animal");
         DatosLotto.addColumn("Color");
         
-        try
+        TablaRuleta.setDefaultRenderer(Object.class,new Render());
+        
+        final DefaultTableModel Modelo = DatosLotto;
+        EjecutorBD.Ejecutar(this, ConeBD, new TareaBD<List<Animal>>()
         {
-            SqlMostrarTabla = "SELECT * FROM lottoruleta WHERE ESTADO = 'A' ORDER BY NUM";
-            ConeBD.RstBD = (ResultSet) ConeBD.StmBD.executeQuery(SqlMostrarTabla);
-            while (ConeBD.RstBD.next())
+            public List<Animal> Consultar() throws Exception
+            {
+                return Catalogo.Actual().Animales();
+            }
+            
+            public void Mostrar(List<Animal> Lista)
             {
-                DatLotto[0] = String.valueOf(ConeBD.RstBD.getInt("NUM"));
-                DatLotto[1] = ConeBD.RstBD.getString("CODIGOJUEGO");
-                DatLotto[2] = ConeBD.RstBD.getString("VALOR");
-                DatLotto[3] = ConeBD.RstBD.getString("COLOR");
-                TablaRuleta.setDefaultRenderer(Object.class,new Render());
-                DatosLotto.addRow(DatLotto);
-                
-                int anchoColumna1 = 0;
-                JViewport scroll1 =  (JViewport) TablaRuleta.getParent();
-                int ancho1 = scroll1.getWidth();
-                TableColumnModel modeloColumna1 = TablaRuleta.getColumnModel();
-                TableColumn columnaTabla1;                
-                for (int j = 0; j < TablaRuleta.getColumnCount(); j++)
+                for (Animal Ani : Lista)
                 {
-                    columnaTabla1 = modeloColumna1.getColumn(j);
-                    switch(j)
-                    {
-                        case 0: anchoColumna1 = (15*ancho1)/100;
-                            break;
-                        case 1: anchoColumna1 = (15*ancho1)/100;
-                            break;
-                        case 2: anchoColumna1 = (50*ancho1)/100;
-                            break;
-                        case 3: anchoColumna1 = (15*ancho1)/100;
-                            break;
-                    }
-                    columnaTabla1.setPreferredWidth(anchoColumna1);
+                    Modelo.addRow(new Object[] {String.valueOf(Ani.Num()), Ani.Codigo(), Ani.Nombre(), Ani.Color()});
                 }
-                
+                AnchoRuleta();
             }
-        }
-        catch (Exception err)
+        });
+    }
+    
+    void AnchoRuleta()
+    {
+        int anchoColumna1 = 0;
+        JViewport scroll1 =  (JViewport) TablaRuleta.getParent();
+        int ancho1 = scroll1.getWidth();
+        TableColumnModel modeloColumna1 = TablaRuleta.getColumnModel();
+        TableColumn columnaTabla1;                
+        for (int j = 0; j < TablaRuleta.getColumnCount(); j++)
         {
-            err.printStackTrace();
-        }        
+            columnaTabla1 = modeloColumna1.getColumn(j);
+            switch(j)
+            {
+                case 0: anchoColumna1 = (15*ancho1)/100;
+                    break;
+                case 1: anchoColumna1 = (15*ancho1)/100;
+                    break;
+                case 2: anchoColumna1 = (50*ancho1)/100;
+                    break;
+                case 3: anchoColumna1 = (15*ancho1)/100;
+                    break;
+            }
+            columnaTabla1.setPreferredWidth(anchoColumna1);
+        }
     }
     
     void Limpiar()
@@ -445,30 +449,57 @@ public class FrmDIngresarResultado extends javax.swing.JDialog {
     }//GEN-LAST:event_TablaHorarioMouseClicked
 
     private void formWindowOpened(java.awt.event.WindowEvent evt) {//GEN-FIRST:event_formWindowOpened
-        ConeBD.Coneccion_BD();
+        EjecutorBD.Conectar(this, ConeBD);
         MostrarTabla();
         MostrarTablaJuegos();
     }//GEN-LAST:event_formWindowOpened
 
+    @Override
+    public void dispose()
+    {
+        EjecutorBD.Liberar(ConeBD);
+        super.dispose();
+    }
+
     void Guardar()
     {
-        String SqlGuardar = "";
-        
         java.util.Date fechaS = FechaJuego.getDate();
         SimpleDateFormat S = new SimpleDateFormat("yyyy-MM-dd");
         String FechaF = (S.format(fechaS));
         
+        final Resultado Res;
         try
         {
-            SqlGuardar = "INSERT INTO ingresarganadores VALUES ('"+TxtCodA.getText()+"','"+TxtAnimal.getText()+"',"
-                    +TxtCodigoH.getText()+",'"+TxtHoraJuego.getText()+"','"+FechaF+"','A')";
-            ConeBD.StmBD.executeUpdate(SqlGuardar);
-            JOptionPane.showMessageDialog(null, "Resultado Ingresado en la Fecha : "+FechaF+" Hora de Juego : "+TxtHoraJuego.getText());
+            Res = new Resultado(TxtCodA.getText(), TxtAnimal.getText(), Integer.parseInt(TxtCodigoH.getText()),
+                    TxtHoraJuego.getText(), new java.sql.Date(fechaS.getTime()).toLocalDate(), "A");
         }
         catch (Exception err)
         {
             err.printStackTrace();
+            return;
         }
+        
+        final String Mensaje = "Resultado Ingresado en la Fecha : "+FechaF+" Hora de Juego : "+TxtHoraJuego.getText();
+        EjecutorBD.Ejecutar(this, ConeBD, new TareaBD<Integer>()
+        {
+            public Integer Consultar() throws Exception
+            {
+                // El resultado y sus ganadores (ganadoresliquidados) quedan
+                // juntos o no queda ninguno
+                return Liquidacion.Ingresar(Res);
+            }
+            
+            public void Mostrar(Integer Ganadores)
+            {
+                JOptionPane.showMessageDialog(null, Mensaje+"\nTickets ganadores : "+Ganadores);
+            }
+            
+            public void Fallo(Exception err)
+            {
+                err.printStackTrace();
+                JOptionPane.showMessageDialog(null, "No fue posible ingresar o liquidar el resultado ...\n"+err.getMessage());
+            }
+        });
     }
     
     private void jButton1ActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jButton1ActionPerformed
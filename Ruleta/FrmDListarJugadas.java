@@ -4,8 +4,13 @@
  */
 package Ruleta;
 
+import Ruleta.Datos.Catalogo;
+import Ruleta.Datos.Dinero;
+import Ruleta.Datos.Sucursales;
 import java.sql.ResultSet;
-import java.text.DecimalFormat;
+import java.sql.SQLException;
+import java.util.List;
+
 import java.text.SimpleDateFormat;
 import javax.swing.Timer;
 import javax.swing.UIManager;
@@ -17,9 +22,10 @@ import javax.swing.table.DefaultTableModel;
  */
 public class FrmDListarJugadas extends javax.swing.JDialog {
 
-     Conexion ConeBD =  new Conexion();
+     Conexion ConeBD =  new Conexion(Conexion.LECTURA);
     
-    int Ingreso = 0, Consecu = 0, CodigoJuego = 0;
+    int Ingreso = 0, Consecu = 0;
+    volatile int CodigoJuego = 0;
     
     DefaultTableModel DatosLottoJ;
     String DatLottoJ[] =  new String[7];
@@ -28,9 +34,7 @@ public class FrmDListarJugadas extends javax.swing.JDialog {
     java.util.Date Reloj;
     SimpleDateFormat Formato;
     
-    DecimalFormat Convertir = new DecimalFormat("###,###.##"); 
     
-    double ValTJugar = 0;
     String HoraJuego = "";
     
     public FrmDListarJugadas(java.awt.Frame parent, boolean modal) {
@@ -62,7 +66,7 @@ public class FrmDListarJugadas extends javax.swing.JDialog {
         FechaInicial = new com.toedter.calendar.JDateChooser();
         jButton1 = new javax.swing.JButton();
         jLabel2 = new javax.swing.JLabel();
-        CmbHorJuego = new javax.swing.JComboBox();
+        CmbHorJuego = new javax.swing.JComboBox<>();
         jScrollPane1 = new javax.swing.JScrollPane();
         TablaJugadas = new javax.swing.JTable();
         jPanel3 = new javax.swing.JPanel();
@@ -95,7 +99,7 @@ public class FrmDListarJugadas extends javax.swing.JDialog {
         jLabel2.setText("Hora de Juego:");
 
         CmbHorJuego.setFont(new java.awt.Font("Tahoma", 0, 12)); // NOI18N
-        CmbHorJuego.setModel(new javax.swing.DefaultComboBoxModel(new String[] { "Seleccione ..." }));
+        CmbHorJuego.setModel(new javax.swing.DefaultComboBoxModel<>(new String[] { "Seleccione ..." }));
         CmbHorJuego.addActionListener(new java.awt.event.ActionListener() {
             public void actionPerformed(java.awt.event.ActionEvent evt) {
                 CmbHorJuegoActionPerformed(evt);
@@ -199,13 +203,20 @@ public class FrmDListarJugadas extends javax.swing.JDialog {
     }// </editor-fold>//GEN-END:initComponents
 
     private void formWindowOpened(java.awt.event.WindowEvent evt) {//GEN-FIRST:event_formWindowOpened
-        ConeBD.Coneccion_BD();
+        EjecutorBD.Conectar(this, ConeBD);
         ListarHorJuegos();
         SimpleDateFormat F = new SimpleDateFormat("yyyy-MM-dd");
         java.util.Date Fecha = new java.util.Date();
         FechaInicial.setDate(Fecha);
     }//GEN-LAST:event_formWindowOpened
 
+    @Override
+    public void dispose()
+    {
+        EjecutorBD.Liberar(ConeBD);
+        super.dispose();
+    }
+
     void ListarJuegos()
     {
         java.util.Date fechaS = FechaInicial.getDate();
@@ -225,26 +236,42 @@ public class FrmDListarJugadas extends javax.swing.JDialog {
         DatosLottoJ.addColumn("Hora");
         DatosLottoJ.addColumn("Estado");
         
-        try
+        SqlListarJuegos = "SELECT RADICADO, CODANIMAL, ANIMAL, VALOR, SUCURSAL, HORA, ESTADOP FROM hislottojuego WHERE CODIGOJ = ? AND FECHA = ?";
+        final String Sql = SqlListarJuegos, Fecha = FechaI;
+        final DefaultTableModel Modelo = DatosLottoJ;
+        final int Limite = EjecutorBD.Limite();
+        EjecutorBD.Ejecutar(this, ConeBD, new TareaBD<List<String[]>>()
         {
-            SqlListarJuegos = "SELECT * FROM hislottojuego WHERE CODIGOJ = "+CodigoJuego+" AND FECHA = '"+FechaI+"'";
-            ConeBD.RstBD = (ResultSet) ConeBD.StmBD.executeQuery(SqlListarJuegos);
-            while (ConeBD.RstBD.next())
+            public List<String[]> Consultar() throws Exception
             {
-                DatLottoJ[0] = ConeBD.RstBD.getString("RADICADO");
-                DatLottoJ[1] = String.valueOf(ConeBD.RstBD.getInt("CODANIMAL"));
-                DatLottoJ[2] = ConeBD.RstBD.getString("ANIMAL");
-                DatLottoJ[3] = String.valueOf(Convertir.format(ConeBD.RstBD.getDouble("VALOR")));
-                DatLottoJ[4] = ConeBD.RstBD.getString("SUCURSAL");
-                DatLottoJ[5] = String.valueOf(ConeBD.RstBD.getTime("HORA"));
-                DatLottoJ[6] = ConeBD.RstBD.getString("ESTADOP");
-                DatosLottoJ.addRow(DatLottoJ);
+                // CodigoJuego lo fija la busqueda del combo, encolada antes en esta misma conexion
+                final Sucursales Dir = Catalogo.Actual().Sucursales();
+                return ConeBD.Listar(Limite + 1, new LectorFilas<String[]>()
+                {
+                    public String[] Mapear(ResultSet Rst) throws SQLException
+                    {
+                        String Fila[] = new String[7];
+                        Fila[0] = Rst.getString("RADICADO");
+                        Fila[1] = String.valueOf(Rst.getInt("CODANIMAL"));
+                        Fila[2] = Rst.getString("ANIMAL");
+                        Fila[3] = Dinero.Texto(Dinero.Leer(Rst, "VALOR"));
+                        Fila[4] = Dir.Mostrar(Rst.getString("SUCURSAL"));
+                        Fila[5] = String.valueOf(Rst.getTime("HORA"));
+                        Fila[6] = Rst.getString("ESTADOP");
+                        return Fila;
+                    }
+                }, Sql, CodigoJuego, Fecha);
             }
-        }
-        catch (Exception err)
-        {
-            err.printStackTrace();
-        }
+            
+            public void Mostrar(List<String[]> Filas)
+            {
+                EjecutorBD.Recortar(Filas, Limite);
+                for (String Fila[] : Filas)
+                {
+                    Modelo.addRow(Fila);
+                }
+            }
+        });
     }
     
     private void jButton1ActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jButton1ActionPerformed
@@ -255,38 +282,28 @@ public class FrmDListarJugadas extends javax.swing.JDialog {
     {
         String SqlListar = "";
         
-        try
-        {
-            SqlListar = "SELECT DESCRIPCION FROM horariojuego ORDER BY NUM";
-            ConeBD.RstBD = (ResultSet) ConeBD.StmBD.executeQuery(SqlListar);
-            while (ConeBD.RstBD.next())
-            {
-                CmbHorJuego.addItem(ConeBD.RstBD.getString("DESCRIPCION"));
-            }
-        }
-        catch (Exception err)
-        {
-            err.printStackTrace();
-        }
+        SqlListar = "SELECT DESCRIPCION FROM horariojuego ORDER BY NUM";
+        EjecutorBD.LlenarCombo(this, ConeBD, CmbHorJuego, "DESCRIPCION", SqlListar);
     }
     
     private void CmbHorJuegoActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_CmbHorJuegoActionPerformed
         
-        String NomJuego = CmbHorJuego.getSelectedItem().toString(), SqlSacarCodigo = "";
+        final String NomJuego = CmbHorJuego.getSelectedItem().toString();
         JlJuego.setText(NomJuego);
-        try
+        
+        EjecutorBD.Ejecutar(this, ConeBD, new TareaBD<Object>()
         {
-            SqlSacarCodigo = "SELECT NUM FROM horariojuego WHERE DESCRIPCION = '"+NomJuego+"'";
-            ConeBD.RstBD = (ResultSet) ConeBD.StmBD.executeQuery(SqlSacarCodigo);
-            if (ConeBD.RstBD.next())
+            public Object Consultar() throws Exception
             {
-                CodigoJuego = ConeBD.RstBD.getInt("NUM");
+                String SqlSacarCodigo = "SELECT NUM FROM horariojuego WHERE DESCRIPCION = ?";
+                ConeBD.RstBD = ConeBD.Consultar(SqlSacarCodigo, NomJuego);
+                if (ConeBD.RstBD.next())
+                {
+                    CodigoJuego = ConeBD.RstBD.getInt("NUM");
+                }
+                return null;
             }
-        }
-        catch (Exception err)
-        {
-            err.printStackTrace();
-        }
+        });
     }//GEN-LAST:event_CmbHorJuegoActionPerformed
 
     /**
@@ -339,7 +356,7 @@ public class FrmDListarJugadas extends javax.swing.JDialog {
         });
     }
     // Variables declaration - do not modify//GEN-BEGIN:variables
-    private javax.swing.JComboBox CmbHorJuego;
+    private javax.swing.JComboBox<String> CmbHorJuego;
     private com.toedter.calendar.JDateChooser FechaInicial;
     private javax.swing.JLabel JlJuego;
     private javax.swing.JTable TablaJugadas;
@@ -4,18 +4,238 @@
  */
 package Ruleta;
 
+import Ruleta.Datos.Catalogo;
+import Ruleta.Datos.Dinero;
+import Ruleta.Datos.Ganador;
+import Ruleta.Datos.PagosDAO;
+import java.awt.BorderLayout;
+import java.awt.FlowLayout;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.JButton;
+import javax.swing.JLabel;
+import javax.swing.JOptionPane;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.JTextField;
+import javax.swing.UIManager;
+import javax.swing.table.DefaultTableModel;
+
 /**
+ * Pago de premios: el radicado se escribe o se lee con el lector (que
+ * termina con Enter), se muestran los premios pendientes y Pagar los
+ * registra todos con PagosDAO.
  *
  * @author DESINCO
  */
 public class FrmDPagarJuego extends javax.swing.JDialog {
 
+    private static final Logger REGISTRO = Logger.getLogger(FrmDPagarJuego.class.getName());
+
+    Conexion ConeBD = new Conexion();
+    PagosDAO Pagos = new PagosDAO(ConeBD);
+    
+    String SucJuegos = "";
+    
+    JTextField TxtRadicado = new JTextField(14);
+    JButton BtnBuscar = new JButton("Buscar");
+    JButton BtnPagar = new JButton("Pagar");
+    JTable TablaPremios = new JTable();
+    JLabel JlTotal = new JLabel("Total a pagar $ 0");
+    DefaultTableModel DatosPremios;
+    
+    // Radicado de los premios en pantalla; Pagar solo paga ese
+    String RadicadoMostrado = null;
+    
     /**
      * Creates new form FrmDPagarJuego
      */
     public FrmDPagarJuego(java.awt.Frame parent, boolean modal) {
         super(parent, modal);
+        try
+        {
+            UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());            
+        }
+        catch (Exception err)
+        {
+            err.printStackTrace();
+        }
         initComponents();
+        ArmarPantalla();
+        this.setLocationRelativeTo(this);
+    }
+    
+    public void Mostrar(String Sucursal)
+    {
+        SucJuegos = Sucursal;
+        this.setTitle("Realizar Pagos - Sucursal : "+Sucursal);
+        EjecutorBD.Conectar(this, ConeBD);
+        // Deja listos parametros y sucursales antes del primer pago
+        EjecutorBD.Ejecutar(this, new TareaBD<Object>()
+        {
+            public Object Consultar() throws Exception
+            {
+                return Catalogo.Actual();
+            }
+        });
+    }
+    
+    // El formulario no tiene controles: se arman aqui sobre jPanel1
+    void ArmarPantalla()
+    {
+        JPanel Arriba = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        Arriba.setOpaque(false);
+        Arriba.add(new JLabel("Radicado:"));
+        Arriba.add(TxtRadicado);
+        Arriba.add(BtnBuscar);
+        Arriba.add(BtnPagar);
+        JPanel Abajo = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        Abajo.setOpaque(false);
+        JlTotal.setFont(new java.awt.Font("Tahoma", 1, 14));
+        Abajo.add(JlTotal);
+        TablaPremios.setRowHeight(30);
+        TablaPremios.setFont(new java.awt.Font("Tahoma", 0, 14));
+        jPanel1.setLayout(new BorderLayout());
+        jPanel1.add(Arriba, BorderLayout.NORTH);
+        jPanel1.add(new JScrollPane(TablaPremios), BorderLayout.CENTER);
+        jPanel1.add(Abajo, BorderLayout.SOUTH);
+        setSize(720, 420);
+        BtnPagar.setEnabled(false);
+        
+        ActionListener Buscar = new ActionListener()
+        {
+            public void actionPerformed(ActionEvent evt)
+            {
+                BuscarPremios();
+            }
+        };
+        TxtRadicado.addActionListener(Buscar);
+        BtnBuscar.addActionListener(Buscar);
+        BtnPagar.addActionListener(new ActionListener()
+        {
+            public void actionPerformed(ActionEvent evt)
+            {
+                PagarPremios();
+            }
+        });
+        LimpiarPremios();
+    }
+    
+    void LimpiarPremios()
+    {
+        DatosPremios = new DefaultTableModel();
+        TablaPremios.setModel(DatosPremios);
+        DatosPremios.addColumn("Sorteo");
+        DatosPremios.addColumn("Fecha");
+        DatosPremios.addColumn("Lotto Animal");
+        DatosPremios.addColumn("Valor Apostado $");
+        DatosPremios.addColumn("Puntos");
+        DatosPremios.addColumn("Premio $");
+        JlTotal.setText("Total a pagar $ 0");
+        RadicadoMostrado = null;
+        BtnPagar.setEnabled(false);
+    }
+    
+    void BuscarPremios()
+    {
+        final String Radicado = TxtRadicado.getText().trim();
+        LimpiarPremios();
+        if (Radicado.isEmpty())
+        {
+            return;
+        }
+        EjecutorBD.Ejecutar(this, ConeBD, new TareaBD<List<Ganador>>()
+        {
+            public List<Ganador> Consultar() throws Exception
+            {
+                return Pagos.Pendientes(Radicado);
+            }
+            
+            public void Mostrar(List<Ganador> Premios)
+            {
+                if (!Radicado.equals(TxtRadicado.getText().trim()))
+                {
+                    // Ya se leyo otro radicado
+                    return;
+                }
+                if (Premios.isEmpty())
+                {
+                    JOptionPane.showMessageDialog(null, "El radicado "+Radicado+" no tiene premios pendientes de pago ...");
+                    TxtRadicado.selectAll();
+                    return;
+                }
+                long Total = 0;
+                for (Ganador Gan : Premios)
+                {
+                    DatosPremios.addRow(new Object[] {Gan.Horario(), String.valueOf(Gan.Fecha()), Gan.Animal(),
+                        Dinero.Texto(Gan.Valor()), Gan.PuntosPago(), Dinero.Texto(Gan.Pago())});
+                    Total += Gan.Pago();
+                }
+                JlTotal.setText("Total a pagar $ "+Dinero.Texto(Total));
+                RadicadoMostrado = Radicado;
+                BtnPagar.setEnabled(true);
+                BtnPagar.requestFocusInWindow();
+            }
+        });
+    }
+    
+    void PagarPremios()
+    {
+        final String Radicado = RadicadoMostrado, Sucursal = SucJuegos;
+        if (Radicado == null)
+        {
+            return;
+        }
+        BtnPagar.setEnabled(false);
+        EjecutorBD.Ejecutar(this, ConeBD, new TareaBD<List<Ganador>>()
+        {
+            public List<Ganador> Consultar() throws Exception
+            {
+                Integer Codigo = Catalogo.Actual().Sucursales().Codigo(Sucursal);
+                if (Codigo == null)
+                {
+                    throw new SQLException("La sucursal " + Sucursal + " no existe en BODEGAS");
+                }
+                long Inicio = System.nanoTime();
+                List<Ganador> Pagados = Pagos.Pagar(Radicado, Codigo, Sucursal);
+                REGISTRO.log(Level.FINE, "Pago del radicado {0} confirmado en {1} ms ({2} premios)", new Object[] {Radicado,
+                    (System.nanoTime() - Inicio) / 1_000_000, Pagados.size()});
+                return Pagados;
+            }
+            
+            public void Mostrar(List<Ganador> Pagados)
+            {
+                long Total = 0;
+                for (Ganador Gan : Pagados)
+                {
+                    Total += Gan.Pago();
+                }
+                LimpiarPremios();
+                JOptionPane.showMessageDialog(null, "Radicado "+Radicado+" pagado: $ "+Dinero.Texto(Total));
+                TxtRadicado.setText("");
+                TxtRadicado.requestFocusInWindow();
+            }
+            
+            public void Fallo(Exception err)
+            {
+                err.printStackTrace();
+                LimpiarPremios();
+                JOptionPane.showMessageDialog(null, "No fue posible realizar el pago ...\n"+err.getMessage());
+                TxtRadicado.selectAll();
+            }
+        });
+    }
+    
+    @Override
+    public void dispose()
+    {
+        EjecutorBD.Liberar(ConeBD);
+        super.dispose();
     }
 
     /**
@@ -4,7 +4,7 @@
  */
 package Ruleta;
 
-import java.sql.ResultSet;
+import Ruleta.Datos.Parametros;
 import javax.swing.JOptionPane;
 import javax.swing.UIManager;
 import javax.swing.table.DefaultTableModel;
@@ -217,30 +217,23 @@ public class FrmDParametros extends javax.swing.JDialog {
         DatosParametros.addColumn("Codigo");
         DatosParametros.addColumn("Nombre");
         DatosParametros.addColumn("Valor");
-        try
-        {
-            SqlMostrarPar = "SELECT * FROM PARAMETROS ORDER BY CODIGO";
-            ConeBD.RstBD = (ResultSet) ConeBD.StmBD.executeQuery(SqlMostrarPar);
-            while (ConeBD.RstBD.next())
-            {
-                DatParametros[0] = String.valueOf(ConeBD.RstBD.getInt("CODIGO"));
-                DatParametros[1] = ConeBD.RstBD.getString("NOMBRE");
-                DatParametros[2] = ConeBD.RstBD.getString("VALOR");
-                DatosParametros.addRow(DatParametros);
-            }
-        }
-        catch (Exception err)
-        {
-            err.printStackTrace();
-        }
+        SqlMostrarPar = "SELECT * FROM PARAMETROS ORDER BY CODIGO";
+        EjecutorBD.Llenar(this, ConeBD, DatosParametros, new String[] {"CODIGO", "NOMBRE", "VALOR"}, SqlMostrarPar);
     }
     
     private void formWindowOpened(java.awt.event.WindowEvent evt) {//GEN-FIRST:event_formWindowOpened
-        ConeBD.Coneccion_BD();
+        EjecutorBD.Conectar(this, ConeBD);
         MostrarParametros();
         Apagar();
     }//GEN-LAST:event_formWindowOpened
 
+    @Override
+    public void dispose()
+    {
+        EjecutorBD.Liberar(ConeBD);
+        super.dispose();
+    }
+
     private void TablaParametrosMouseClicked(java.awt.event.MouseEvent evt) {//GEN-FIRST:event_TablaParametrosMouseClicked
         int Fila = TablaParametros.getSelectedRow();
         int Columna0 = 0, Columna1 = 1, Columna2 = 2, Columna3 = 3;  
@@ -258,20 +251,36 @@ public class FrmDParametros extends javax.swing.JDialog {
 
     void Modificar()
     {
-        String SqlCambiarV = "";
+        final String Valor = TxtValor.getText();
+        final int Codigo;
         try
         {
-            SqlCambiarV = "UPDATE PARAMETROS SET VALOR = '"+TxtValor.getText()+"' WHERE CODIGO = '"+TxtCodigo.getText()+"'";
-            ConeBD.StmBD.executeUpdate(SqlCambiarV);
-            JOptionPane.showMessageDialog(null, "Parametro Modificado ...");
-            Limpiar();
-            Apagar();
-            MostrarParametros();
+            Codigo = Integer.parseInt(TxtCodigo.getText());
         }
         catch (Exception err)
         {
             err.printStackTrace();
+            return;
         }
+        
+        final String SqlCambiarV = "UPDATE PARAMETROS SET VALOR = ? WHERE CODIGO = ?";
+        EjecutorBD.Ejecutar(this, ConeBD, new TareaBD<Integer>()
+        {
+            public Integer Consultar() throws Exception
+            {
+                int Filas = ConeBD.Ejecutar(SqlCambiarV, Valor, Codigo);
+                Parametros.Invalidar();
+                return Filas;
+            }
+            
+            public void Mostrar(Integer Filas)
+            {
+                JOptionPane.showMessageDialog(null, "Parametro Modificado ...");
+                Limpiar();
+                Apagar();
+                MostrarParametros();
+            }
+        });
     }
     
     private void jButton1ActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jButton1ActionPerformed
@@ -4,15 +4,32 @@
  */
 package Ruleta;
 
+import Ruleta.Datos.Animal;
+import Ruleta.Datos.Catalogo;
+import Ruleta.Datos.Dinero;
+import Ruleta.Datos.Horario;
+import Ruleta.Datos.Jugada;
+import Ruleta.Datos.LineaSorteos;
+import Ruleta.Datos.MotorExposicion;
+import Ruleta.Datos.Parametros;
+import Ruleta.Datos.Ticket;
+import Ruleta.Datos.TicketDAO;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.KeyEvent;
-import java.sql.ResultSet;
-import java.text.DecimalFormat;
+import java.sql.SQLException;
 import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import javax.swing.JOptionPane;
 import javax.swing.JViewport;
 import javax.swing.Timer;
@@ -34,27 +51,54 @@ import net.sf.jasperreports.view.JasperViewer;
  */
 public class FrmDRealizarJuego extends javax.swing.JDialog {
 
+    // Tiempos de guardado en FINE: se ven subiendo el nivel del logger
+    private static final Logger REGISTRO = Logger.getLogger(FrmDRealizarJuego.class.getName());
+
     Conexion ConeBD =  new Conexion();
     
     int Ingreso = 0, Consecu = 0;
+    boolean Guardando = false;
+    char[] BufRadicado = new char[SecuenciaRadicado.ANCHO];
     
     DefaultTableModel DatosLotto;
-    String DatLotto[] =  new String[4];
+
     
     DefaultTableModel DatosHorarioLotto;
-    String DatHorarioLotto[] =  new String[4];
+    List<Horario> ListaHorarios = new ArrayList<Horario>();
+    LineaSorteos Linea;
+    
+    // El horario que cierra sale de la tabla en ese mismo segundo
+    final PlanificadorCierres.Oyente OyenteCierre = new PlanificadorCierres.Oyente()
+    {
+        public void Cerrado(Horario Sorteo, LocalDateTime Momento)
+        {
+            if (HorarioSel != null && HorarioSel.Num() == Sorteo.Num())
+            {
+                HorarioSel = null;
+                TxtCodigoH.setText("");
+                TxtHoraJuego.setText("");
+            }
+            MostrarTablaJuegos();
+        }
+    };
     
     DefaultTableModel DatosJugar;
-    String DatJugar[] =  new String[6];
+    // Jugadas del ticket en curso, en el mismo orden de TablaJugar
+    List<Jugada> Jugadas = new ArrayList<Jugada>();
+    // Jugadas con valor apartado en reservasjuego y aun sin guardar
+    List<Jugada> Reservadas = new ArrayList<Jugada>();
+    LocalDate FechaReservas;
+    Animal AnimalSel;
+    Horario HorarioSel;
+    TicketDAO Tickets = new TicketDAO(ConeBD);
     
     Timer Tiempo;
     java.util.Date Reloj;
     SimpleDateFormat Formato;
     
-    DecimalFormat Convertir = new DecimalFormat("###,###.##"); 
     
-    double ValTJugar = 0, Minimo = 0, Maximo = 0;
-    String HoraJuego = "";
+    long ValTJugar = 0;
+    long Minimo = 0, Maximo = 0, Tope = 0;
     
     public FrmDRealizarJuego(java.awt.Frame parent, boolean modal) {
         super(parent, modal);
@@ -95,42 +139,23 @@ public class FrmDRealizarJuego extends javax.swing.JDialog {
         MostrarHora();
     }
     
-    void ParametroMinimoJ()
+    // Limites de apuesta; jButton3 los valida sin ir a la base de datos
+    void CargarParametros()
     {
-        String SqlParMinimo = "";
-        
-        try
+        EjecutorBD.Ejecutar(this, ConeBD, new TareaBD<Parametros>()
         {
-            SqlParMinimo = "SELECT VALOR FROM PARAMETROS WHERE CODIGO = 3";
-            ConeBD.RstBD = (ResultSet) ConeBD.StmBD.executeQuery(SqlParMinimo);
-            if (ConeBD.RstBD.next())
+            public Parametros Consultar() throws Exception
             {
-                Minimo = Double.parseDouble(ConeBD.RstBD.getString("VALOR"));
-            }                    
-        }
-        catch (Exception err)
-        {
+                return Parametros.Actual();
+            }
             
-        }
-    }
-    
-    void ParametroMaximoJ()
-    {
-        String SqlParMaximo = "";
-        
-        try
-        {
-            SqlParMaximo = "SELECT VALOR FROM PARAMETROS WHERE CODIGO = 2";
-            ConeBD.RstBD = (ResultSet) ConeBD.StmBD.executeQuery(SqlParMaximo);
-            if (ConeBD.RstBD.next())
+            public void Mostrar(Parametros Par)
             {
-                Maximo = Double.parseDouble(ConeBD.RstBD.getString("VALOR"));
-            }                    
-        }
-        catch (Exception err)
-        {
-            
-        }
+                Minimo = Par.MinimoJuego();
+                Maximo = Par.MaximoJuego();
+                Tope = Par.TopeAnimal();
+            }
+        });
     }
     
     void Limpiar()
@@ -141,6 +166,8 @@ public class FrmDRealizarJuego extends javax.swing.JDialog {
         TxtAnimal.setText("");
         TxtValorJ.setText("");
         TxtHoraJuego.setText("");
+        AnimalSel = null;
+        HorarioSel = null;
         TxtCodigoA.requestFocus();
     }
     
@@ -155,6 +182,8 @@ public class FrmDRealizarJuego extends javax.swing.JDialog {
         DatosJugar.addColumn("Descipción del Juego");
         DatosJugar.addColumn("Hora");
         DatosJugar.addColumn("Valor Lotto $");
+        Jugadas.clear();
+
         
         int anchoColumna1 = 0;
         JViewport scroll1 =  (JViewport) TablaJugar.getParent();
@@ -185,7 +214,6 @@ public class FrmDRealizarJuego extends javax.swing.JDialog {
     
     void MostrarTablaJuegos()
     {
-        String SqlMostrarTabla = "";
         TablaHorario.clearSelection();
         DatosHorarioLotto =  new DefaultTableModel();
         TablaHorario.setModel(DatosHorarioLotto);
@@ -194,50 +222,55 @@ public class FrmDRealizarJuego extends javax.swing.JDialog {
         DatosHorarioLotto.addColumn("Des. Juego");
         DatosHorarioLotto.addColumn("Hota Juego");
         
-        try
+        final DefaultTableModel Modelo = DatosHorarioLotto;
+        EjecutorBD.Ejecutar(this, ConeBD, new TareaBD<LineaSorteos>()
         {
-            //SqlMostrarTabla = "SELECT * FROM horariojuego WHERE (HORA < '"+JlHora.getText()+"') AND ESTADO = 'A' ORDER BY NUM";
-            SqlMostrarTabla = "SELECT * FROM horariojuego WHERE ESTADO = 'A' ORDER BY NUM";
-            System.out.println(SqlMostrarTabla);
-            ConeBD.RstBD = (ResultSet) ConeBD.StmBD.executeQuery(SqlMostrarTabla);
-            while (ConeBD.RstBD.next())
+            public LineaSorteos Consultar() throws Exception
+            {
+                return Catalogo.Actual().Linea();
+            }
+            
+            public void Mostrar(LineaSorteos Sorteos)
             {
-                DatHorarioLotto[0] = String.valueOf(ConeBD.RstBD.getInt("NUM"));
-                DatHorarioLotto[1] = ConeBD.RstBD.getString("DESCRIPCION");
-                DatHorarioLotto[2] = String.valueOf(ConeBD.RstBD.getTime("HORA"));
-                DatosHorarioLotto.addRow(DatHorarioLotto);
-                
-                int anchoColumna1 = 0;
-                JViewport scroll1 =  (JViewport) TablaHorario.getParent();
-                int ancho1 = scroll1.getWidth();
-                TableColumnModel modeloColumna1 = TablaHorario.getColumnModel();
-                TableColumn columnaTabla1;                
-                for (int j = 0; j < TablaHorario.getColumnCount(); j++)
+                // Solo los sorteos que aun reciben apuestas
+                LocalTime Ahora = LocalTime.now();
+                List<Horario> Lista = Sorteos.Abiertos(Ahora, LineaSorteos.Margen());
+                Linea = Sorteos;
+                ListaHorarios = Lista;
+                for (Horario Hor : Lista)
                 {
-                    columnaTabla1 = modeloColumna1.getColumn(j);
-                    switch(j)
-                    {
-                        case 0: anchoColumna1 = (15*ancho1)/100;
-                            break;
-                        case 1: anchoColumna1 = (80*ancho1)/100;
-                            break;
-                        case 2: anchoColumna1 = (30*ancho1)/100;
-                            break;
-                    }
-                    columnaTabla1.setPreferredWidth(anchoColumna1);
+                    Modelo.addRow(new Object[] {String.valueOf(Hor.Num()), Hor.Descripcion(), Hor.HoraTexto()});
                 }
-                
+                AnchoHorario();
             }
-        }
-        catch (Exception err)
+        });
+    }
+    
+    void AnchoHorario()
+    {
+        int anchoColumna1 = 0;
+        JViewport scroll1 =  (JViewport) TablaHorario.getParent();
+        int ancho1 = scroll1.getWidth();
+        TableColumnModel modeloColumna1 = TablaHorario.getColumnModel();
+        TableColumn columnaTabla1;                
+        for (int j = 0; j < TablaHorario.getColumnCount(); j++)
         {
-            err.printStackTrace();
-        }        
+            columnaTabla1 = modeloColumna1.getColumn(j);
+            switch(j)
+            {
+                case 0: anchoColumna1 = (15*ancho1)/100;
+                    break;
+                case 1: anchoColumna1 = (80*ancho1)/100;
+                    break;
+                case 2: anchoColumna1 = (30*ancho1)/100;
+                    break;
+            }
+            columnaTabla1.setPreferredWidth(anchoColumna1);
+        }
     }
     
     void MostrarTabla()
     {
-        String SqlMostrarTabla = "";
         TablaRuleta.clearSelection();
         DatosLotto =  new DefaultTableModel();
         TablaRuleta.setModel(DatosLotto);
@@ -247,48 +280,50 @@ public class FrmDRealizarJuego extends javax.swing.JDialog {
         DatosLotto.addColumn("Animal");
         DatosLotto.addColumn("Color");
         
-        try
+        TablaRuleta.setDefaultRenderer(Object.class,new Render());
+        
+        final DefaultTableModel Modelo = DatosLotto;
+        EjecutorBD.Ejecutar(this, ConeBD, new TareaBD<List<Animal>>()
         {
-            SqlMostrarTabla = "SELECT * FROM lottoruleta WHERE ESTADO = 'A' ORDER BY NUM";
-            ConeBD.RstBD = (ResultSet) ConeBD.StmBD.executeQuery(SqlMostrarTabla);
-            while (ConeBD.RstBD.next())
+            public List<Animal> Consultar() throws Exception
             {
-                DatLotto[0] = String.valueOf(ConeBD.RstBD.getInt("NUM"));
-                DatLotto[1] = ConeBD.RstBD.getString("CODIGOJUEGO");
-                DatLotto[2] = ConeBD.RstBD.getString("VALOR");
-                DatLotto[3] = ConeBD.RstBD.getString("COLOR");
-                TablaRuleta.setDefaultRenderer(Object.class,new Render());
-                DatosLotto.addRow(DatLotto);
-                
-                int anchoColumna1 = 0;
-                JViewport scroll1 =  (JViewport) TablaRuleta.getParent();
-                int ancho1 = scroll1.getWidth();
-                TableColumnModel modeloColumna1 = TablaRuleta.getColumnModel();
-                TableColumn columnaTabla1;                
-                for (int j = 0; j < TablaRuleta.getColumnCount(); j++)
+                return Catalogo.Actual().Animales();
+            }
+            
+            public void Mostrar(List<Animal> Lista)
+            {
+                for (Animal Ani : Lista)
                 {
-                    columnaTabla1 = modeloColumna1.getColumn(j);
-                    switch(j)
-                    {
-                        case 0: anchoColumna1 = (15*ancho1)/100;
-                            break;
-                        case 1: anchoColumna1 = (15*ancho1)/100;
-                            break;
-                        case 2: anchoColumna1 = (50*ancho1)/100;
-                            break;
-                        case 3: anchoColumna1 = (15*ancho1)/100;
-                            break;
-                    }
-                    columnaTabla1.setPreferredWidth(anchoColumna1);
+                    Modelo.addRow(new Object[] {String.valueOf(Ani.Num()), Ani.Codigo(), Ani.Nombre(), Ani.Color()});
                 }
-                
+                AnchoRuleta();
             }
-        }
-        catch (Exception err)
+        });
+    }
+    
+    void AnchoRuleta()
+    {
+        int anchoColumna1 = 0;
+        JViewport scroll1 =  (JViewport) TablaRuleta.getParent();
+        int ancho1 = scroll1.getWidth();
+        TableColumnModel modeloColumna1 = TablaRuleta.getColumnModel();
+        TableColumn columnaTabla1;                
+        for (int j = 0; j < TablaRuleta.getColumnCount(); j++)
         {
-            err.printStackTrace();
+            columnaTabla1 = modeloColumna1.getColumn(j);
+            switch(j)
+            {
+                case 0: anchoColumna1 = (15*ancho1)/100;
+                    break;
+                case 1: anchoColumna1 = (15*ancho1)/100;
+                    break;
+                case 2: anchoColumna1 = (50*ancho1)/100;
+                    break;
+                case 3: anchoColumna1 = (15*ancho1)/100;
+                    break;
+            }
+            columnaTabla1.setPreferredWidth(anchoColumna1);
         }
-        
     }
     
     
@@ -706,24 +741,41 @@ public class FrmDRealizarJuego extends javax.swing.JDialog {
 
     private void formWindowOpened(java.awt.event.WindowEvent evt) {//GEN-FIRST:event_formWindowOpened
         
-        ConeBD.Coneccion_BD();
+        EjecutorBD.Conectar(this, ConeBD);
         ConsecutivoRadicado();
-        ParametroMaximoJ();
-        ParametroMinimoJ();
+        CargarParametros();
         MostrarTabla();
         MostrarTablaJuegos();
         CargarTabla();
+        PlanificadorCierres.Principal().Agregar(OyenteCierre);
     }//GEN-LAST:event_formWindowOpened
 
+    @Override
+    public void dispose()
+    {
+        if (Consecu != 0)
+        {
+            SecuenciaRadicado.Radicado().Devolver(Consecu);
+            Consecu = 0;
+        }
+        PlanificadorCierres.Principal().Quitar(OyenteCierre);
+        LiberarReservas();
+        EjecutorBD.Liberar(ConeBD);
+        super.dispose();
+    }
+
     private void TablaRuletaMouseClicked(java.awt.event.MouseEvent evt) {//GEN-FIRST:event_TablaRuletaMouseClicked
         
         int Fila = TablaRuleta.getSelectedRow();
         int Columna0 = 0, Columna1 = 1, Columna2 = 2, Columna3 = 3;  
         
         
-        TxtCodigoA.setText((String.valueOf(this.TablaRuleta.getValueAt(Fila, Columna1))));
-        TxtCodA.setText((String.valueOf(this.TablaRuleta.getValueAt(Fila, Columna1))));
-        TxtAnimal.setText((String.valueOf(this.TablaRuleta.getValueAt(Fila, Columna2))));
+        AnimalSel = new Animal(Integer.parseInt(String.valueOf(this.TablaRuleta.getValueAt(Fila, Columna0))),
+                String.valueOf(this.TablaRuleta.getValueAt(Fila, Columna1)), String.valueOf(this.TablaRuleta.getValueAt(Fila, Columna2)),
+                String.valueOf(this.TablaRuleta.getValueAt(Fila, Columna3)));
+        TxtCodigoA.setText(AnimalSel.Codigo());
+        TxtCodA.setText(AnimalSel.Codigo());
+        TxtAnimal.setText(AnimalSel.Nombre());
         
         TxtValorJ.requestFocus();
     }//GEN-LAST:event_TablaRuletaMouseClicked
@@ -733,31 +785,45 @@ public class FrmDRealizarJuego extends javax.swing.JDialog {
         int Fila = TablaHorario.getSelectedRow();
         int Columna0 = 0, Columna1 = 1, Columna2 = 2, Columna3 = 3;  
         
-        TxtCodigoH.setText((String.valueOf(this.TablaHorario.getValueAt(Fila, Columna0))));
-        TxtHoraJuego.setText((String.valueOf(this.TablaHorario.getValueAt(Fila, Columna1))));
-        HoraJuego = (String.valueOf(this.TablaHorario.getValueAt(Fila, Columna2)));
+        HorarioSel = ListaHorarios.get(Fila);
+        TxtCodigoH.setText(String.valueOf(HorarioSel.Num()));
+        TxtHoraJuego.setText(HorarioSel.Descripcion());
         
         jButton3.requestFocus();
     }//GEN-LAST:event_TablaHorarioMouseClicked
 
     void BuscarAnimal(String CodigoA)
     {
-        String SqlBuscarA = "";
-        
-        try
+        Catalogo Cat = Catalogo.Cargado();
+        if (Cat != null)
+        {
+            MostrarAnimal(Cat.Animal(CodigoA));
+            return;
+        }
+        // Solo mientras el catalogo termina de cargar al arrancar
+        final String Codigo = CodigoA;
+        EjecutorBD.Ejecutar(this, ConeBD, new TareaBD<Animal>()
         {
-            SqlBuscarA = "SELECT CODIGOJUEGO, VALOR FROM lottoruleta WHERE CODIGOJUEGO = '"+CodigoA+"'";
-            ConeBD.RstBD = (ResultSet) ConeBD.StmBD.executeQuery(SqlBuscarA);
-            if (ConeBD.RstBD.next())
+            public Animal Consultar() throws Exception
             {
-                TxtCodA.setText(ConeBD.RstBD.getString("CODIGOJUEGO"));
-                TxtAnimal.setText(ConeBD.RstBD.getString("VALOR"));
-                TxtValorJ.requestFocus();
+                return Catalogo.Actual().Animal(Codigo);
             }
-        }
-        catch (Exception err)
+            
+            public void Mostrar(Animal Ani)
+            {
+                MostrarAnimal(Ani);
+            }
+        });
+    }
+    
+    void MostrarAnimal(Animal Ani)
+    {
+        if (Ani != null)
         {
-            err.printStackTrace();
+            AnimalSel = Ani;
+            TxtCodA.setText(Ani.Codigo());
+            TxtAnimal.setText(Ani.Nombre());
+            TxtValorJ.requestFocus();
         }
     }
     
@@ -778,11 +844,16 @@ public class FrmDRealizarJuego extends javax.swing.JDialog {
     }//GEN-LAST:event_TxtCodigoAKeyPressed
 
     private void TxtValorJKeyReleased(java.awt.event.KeyEvent evt) {//GEN-FIRST:event_TxtValorJKeyReleased
-        DecimalFormat df = new DecimalFormat("#,###");
-        
         if (TxtValorJ.getText().length() >= 1) 
         {
-            TxtValorJ.setText(df.format(Integer.valueOf(TxtValorJ.getText().replace(".", "").replace(",", ""))) );
+            try
+            {
+                TxtValorJ.setText(Dinero.Texto(Dinero.Pesos(TxtValorJ.getText())));
+            }
+            catch (NumberFormatException err)
+            {
+                // Un valor pegado que no es entero queda como esta y se rechaza al ingresar
+            }
         }
     }//GEN-LAST:event_TxtValorJKeyReleased
 
@@ -807,17 +878,125 @@ public class FrmDRealizarJuego extends javax.swing.JDialog {
         }
     }//GEN-LAST:event_TxtValorJKeyPressed
 
-    void AgregarJuego()
+    // Cierre de venta segun la linea de sorteos cargada en la tabla
+    boolean Abierto(int Horario)
+    {
+        return Linea != null && Linea.Abierto(Horario, LocalTime.now(), LineaSorteos.Margen());
+    }
+    
+    void AgregarJuego(Jugada Jug, String Hora, String Texto)
+    {
+        Jugadas.add(Jug);
+        DatosJugar.addRow(new Object[] {Jug.CodigoAnimal(), Jug.Animal(), String.valueOf(Jug.CodigoHorario()), Jug.Horario(),
+                Hora, Texto});
+        ValTJugar = ValTJugar + Jug.Valor();
+        TxtTotalJ.setText(Dinero.Texto(ValTJugar));
+    }
+    /**
+     * Aparta el valor de la jugada contra el tope del animal en el sorteo
+     * (PARAMETROS 14) y solo entonces la agrega al ticket; sin tope se
+     * agrega de una vez.
+     */
+    void Reservar(final long Valor)
+    {
+        final Jugada Jug = new Jugada(AnimalSel, HorarioSel, Valor);
+        final String Hora = HorarioSel.HoraTexto(), Texto = TxtValorJ.getText();
+        final LocalDate Fecha = new java.sql.Date(FechaJuego.getDate().getTime()).toLocalDate();
+        final long Limite = Tope;
+        if (Limite <= 0)
+        {
+            AgregarJuego(Jug, Hora, Texto);
+            Limpiar();
+            return;
+        }
+        // Lo confirmado que ve esta terminal mas lo apartado en este ticket
+        // nunca es mas de lo reservado en la tabla: si asi ya no cabe, no
+        // hace falta ir a la base de datos
+        long Apostado = MotorExposicion.Principal().Apostado(Fecha, Jug.CodigoHorario(), Jug.CodigoAnimal()) + Valor;
+        for (Jugada Otra : Reservadas)
+        {
+            if (Otra.CodigoHorario() == Jug.CodigoHorario() && Otra.CodigoAnimal().equals(Jug.CodigoAnimal()))
+            {
+                Apostado = Apostado + Otra.Valor();
+            }
+        }
+        if (Apostado > Limite)
+        {
+            SuperaTope(Jug, Limite);
+            return;
+        }
+        jButton3.setEnabled(false);
+        EjecutorBD.Ejecutar(this, new TareaBD<Boolean>()
+        {
+            public Boolean Consultar() throws Exception
+            {
+                return ReservasJuego.Principal().Reservar(Fecha, Jug.CodigoHorario(), Jug.CodigoAnimal(), Valor, Limite);
+            }
+            
+            public void Mostrar(Boolean Cabe)
+            {
+                jButton3.setEnabled(true);
+                if (Cabe && !isDisplayable())
+                {
+                    // La ventana se cerro mientras se reservaba
+                    Liberar(Fecha, Collections.singletonList(Jug));
+                }
+                else if (Cabe)
+                {
+                    if (!Fecha.equals(FechaReservas))
+                    {
+                        LiberarReservas();
+                        FechaReservas = Fecha;
+                    }
+                    Reservadas.add(Jug);
+                    AgregarJuego(Jug, Hora, Texto);
+                    Limpiar();
+                }
+                else if (isDisplayable())
+                {
+                    SuperaTope(Jug, Limite);
+                }
+            }
+            
+            public void Fallo(Exception err)
+            {
+                jButton3.setEnabled(true);
+                err.printStackTrace();
+                JOptionPane.showMessageDialog(null, "No fue posible verificar el tope del Lotto Animal, intente de nuevo ...\n"+err.getMessage());
+            }
+        });
+    }
+    void SuperaTope(Jugada Jug, long Limite)
     {
-        DatJugar[0] = TxtCodA.getText();
-        DatJugar[1] = TxtAnimal.getText(); 
-        DatJugar[2] = TxtCodigoH.getText();
-        DatJugar[3] = TxtHoraJuego.getText();
-        DatJugar[4] = HoraJuego;        
-        DatJugar[5] = TxtValorJ.getText();
-        DatosJugar.addRow(DatJugar);
-        ValTJugar = ValTJugar + (Double.parseDouble(TxtValorJ.getText().replace(".", "")));
-        TxtTotalJ.setText(String.valueOf(Convertir.format(ValTJugar)));
+        JOptionPane.showMessageDialog(null, "El Lotto Animal "+Jug.Animal()+" ya alcanzo el tope de "+Dinero.Texto(Limite)
+                +" en el Horario de Juego "+Jug.Horario()+" ...");
+        TxtValorJ.requestFocus();
+    }
+    /**
+     * Devuelve a reservasjuego lo apartado por las jugadas que no se
+     * guardaron (ventana cerrada o cambio de fecha del ticket).
+     */
+    void LiberarReservas()
+    {
+        if (!Reservadas.isEmpty())
+        {
+            Liberar(FechaReservas, new ArrayList<Jugada>(Reservadas));
+            Reservadas.clear();
+        }
+    }
+    void Liberar(final LocalDate Fecha, final List<Jugada> Lista)
+    {
+        EjecutorBD.Ejecutar(this, new TareaBD<Void>()
+        {
+            public Void Consultar() throws Exception
+            {
+                for (Jugada Jug : Lista)
+                {
+                    ReservasJuego.Principal().Liberar(Fecha, Jug.CodigoHorario(), Jug.CodigoAnimal(), Jug.Valor());
+                }
+                return null;
+            }
+        });
     }
     
     private void jButton3ActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jButton3ActionPerformed
@@ -825,14 +1004,37 @@ public class FrmDRealizarJuego extends javax.swing.JDialog {
         int OpcG = JOptionPane.showConfirmDialog(null, "¿Desea Ingresar el Juego de Lotto Animal ...?");
         if (OpcG == 0)
         {
-            if (!(TxtHoraJuego.getText().equals("")))
+            long Valor;
+            try
+            {
+                Valor = Dinero.Pesos(TxtValorJ.getText());
+            }
+            catch (NumberFormatException err)
             {
-                if ((Double.parseDouble(TxtValorJ.getText().replace(".", ""))) >= Minimo)
+                JOptionPane.showMessageDialog(null, "Debe Ingresar el Valor del Juego de Lotto Animal ...");
+                TxtValorJ.requestFocus();
+                return;
+            }
+            if (AnimalSel == null)
+            {
+                JOptionPane.showMessageDialog(null, "Debe Seleccionar un Lotto Animal ...");
+                TxtCodigoA.requestFocus();
+            }
+            else if (HorarioSel != null && !Abierto(HorarioSel.Num()))
+            {
+                JOptionPane.showMessageDialog(null, "El Horario de Juego "+HorarioSel.Descripcion()+" ya cerro la venta ...");
+                HorarioSel = null;
+                TxtCodigoH.setText("");
+                TxtHoraJuego.setText("");
+                MostrarTablaJuegos();
+            }
+            else if (HorarioSel != null)
+            {
+                if (Valor >= Minimo)
                 {
-                    if ((Double.parseDouble(TxtValorJ.getText().replace(".", ""))) <= Maximo)
+                    if (Valor <= Maximo)
                     {
-                        AgregarJuego();
-                        Limpiar();
+                        Reservar(Valor);
                     }
                     else
                     {
@@ -856,156 +1058,203 @@ public class FrmDRealizarJuego extends javax.swing.JDialog {
 
     void ConsecutivoRadicado()
     {
-        String SqlConsecutivo = "";
-        try
+        // El numero pendiente se conserva hasta que el ticket se guarde
+        if (Consecu != 0)
         {
-            SqlConsecutivo = "SELECT MAX(NUM) AS CONSECUTIVO FROM jugarlotto";
-            System.out.println(SqlConsecutivo);
-            ConeBD.RstBD = (ResultSet) ConeBD.StmBD.executeQuery(SqlConsecutivo);
-            if (ConeBD.RstBD.next())
-            {
-                Consecu = ConeBD.RstBD.getInt("CONSECUTIVO") + 1;
-            }
-            if (String.valueOf(Consecu).length() == 1)
+            SecuenciaRadicado.Formatear(Consecu, BufRadicado);
+            TxtRadicado.setText(new String(BufRadicado));
+            HabilitarGuardar();
+            return;
+        }
+        
+        // Sin numero no se guarda hasta que llegue el siguiente
+        HabilitarGuardar();
+        
+        // Al agotar el bloque la secuencia va a la base de datos
+        EjecutorBD.Ejecutar(this, new TareaBD<Long>()
+        {
+            public Long Consultar() throws Exception
             {
-               TxtRadicado.setText("0000000"+String.valueOf(Consecu));
+                return SecuenciaRadicado.Radicado().Siguiente();
             }
-            else
+            
+            public void Mostrar(Long Numero)
             {
-                if (String.valueOf(Consecu).length() == 2)
-                {
-                    TxtRadicado.setText("000000"+String.valueOf(Consecu));
-                }
-                else
+                if (Consecu != 0 || !isDisplayable())
                 {
-                    if (String.valueOf(Consecu).length() == 3)
-                    {
-                        TxtRadicado.setText("00000"+String.valueOf(Consecu));
-                    }
-                    else
-                    {
-                        if (String.valueOf(Consecu).length() == 4)
-                        {
-                            TxtRadicado.setText("0000"+String.valueOf(Consecu));
-                        }
-                        else
-                        {
-                            if (String.valueOf(Consecu).length() == 5)
-                            {
-                                TxtRadicado.setText("000"+String.valueOf(Consecu));
-                            }
-                            else
-                            {
-                                if (String.valueOf(Consecu).length() == 6)
-                                {
-                                    TxtRadicado.setText("00"+String.valueOf(Consecu));
-                                }
-                                else
-                                {
-                                    if (String.valueOf(Consecu).length() == 7)
-                                    {
-                                        TxtRadicado.setText("0"+String.valueOf(Consecu));
-                                    }
-                                    else
-                                    {
-                                        TxtRadicado.setText(String.valueOf(Consecu));
-                                    }
-                                }
-                            }
-                        }
-                    }
+                    SecuenciaRadicado.Radicado().Devolver(Numero);
+                    HabilitarGuardar();
+                    return;
                 }
+                Consecu = Numero.intValue();
+                SecuenciaRadicado.Formatear(Consecu, BufRadicado);
+                TxtRadicado.setText(new String(BufRadicado));
+                HabilitarGuardar();
             }
-        }
-        catch (Exception err)
-        {
-            err.printStackTrace();
-        }
+            
+            public void Fallo(Exception err)
+            {
+                err.printStackTrace();
+                JOptionPane.showMessageDialog(null, "No fue posible asignar el numero de radicado ...\n"+err.getMessage());
+            }
+        });
     }
     
     
+    /**
+     * Guardar solo queda activo con un radicado asignado y sin otro ticket
+     * guardandose.
+     */
+    void HabilitarGuardar()
+    {
+        jButton2.setEnabled(!Guardando && Consecu != 0);
+    }
+    
     private void jButton1ActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jButton1ActionPerformed
         
         ConsecutivoRadicado();
     }//GEN-LAST:event_jButton1ActionPerformed
 
-    void HisGuardar()
+    /**
+     * Guarda cabecera y jugadas del ticket en una sola transaccion: o queda
+     * todo el ticket o no queda nada.
+     */
+    void Guardar()
     {
-        String SqlHisGuardar = "", Dat1 = "", Dat2 = "", Dat3 = "", Dat4 = "", Dat5 = "", Dat6 = "";
-        
-        java.util.Date fechaS = FechaJuego.getDate();
-        SimpleDateFormat S = new SimpleDateFormat("yyyy-MM-dd");
-        String FechaF = (S.format(fechaS)); 
-        
-        try
+        if (Guardando)
         {
-            for (int x = 0;  x < TablaJugar.getRowCount(); x++)
-            {
-                Dat1 = (String.valueOf(this.TablaJugar.getValueAt(x, 0)));//CODIGO JUEGO
-                Dat2 = (String.valueOf(this.TablaJugar.getValueAt(x, 1)));//ANIMAL
-                Dat3 = (String.valueOf(this.TablaJugar.getValueAt(x, 2)));//CODIGO JUEGO
-                Dat4 = (String.valueOf(this.TablaJugar.getValueAt(x, 3)));//DESCRIPCION JUEGO
-                Dat5 = (String.valueOf(this.TablaJugar.getValueAt(x, 4)));//HORA JUEGO
-                Dat6 = (String.valueOf(this.TablaJugar.getValueAt(x, 5)));//VALOR JUGADO
-                
-                SqlHisGuardar = "INSERT INTO hislottojuego VALUES ('"+TxtRadicado.getText()+"','"+Dat1+"','"+Dat2+"',"
-                        + Dat6.replace(".", "")+","+Dat3+",'"+Dat5+"','"+Dat4+"','"+JlSucursal.getText()+"','"+FechaF+"','"+
-                        JlHora.getText()+"','A','A')";
-                System.out.println(SqlHisGuardar);
-                ConeBD.StmBD.executeUpdate(SqlHisGuardar);
-                
-            }
-            Imprimir();
-            CargarTabla();
-            ConsecutivoRadicado();            
+            return;
         }
-        catch (Exception err)
+        if (Consecu == 0)
         {
-            err.printStackTrace();
+            JOptionPane.showMessageDialog(null, "Aun no se ha asignado el numero de radicado, intente de nuevo en un momento ...");
+            return;
         }
-    }
-    
-    void Guardar()
-    {
-        String SqlGuardar = "";
-        
-        java.util.Date fechaS = FechaJuego.getDate();
-        SimpleDateFormat S = new SimpleDateFormat("yyyy-MM-dd");
-        String FechaF = (S.format(fechaS)); 
-        
-        try
+        for (Jugada Jug : Jugadas)
         {
-            SqlGuardar = "INSERT INTO jugarlotto VALUES ("+Consecu+",'"+TxtRadicado.getText()+"','"+FechaF+"','"+JlHora.getText()+"',"
-                    + "'"+JlSucursal.getText()+"',"+TxtTotalJ.getText().replace(".", "")+",'"+JlSucursal.getText()+"','A')";
-            System.out.println(SqlGuardar);
-            ConeBD.StmBD.executeUpdate(SqlGuardar);
-            HisGuardar();
+            if (!Abierto(Jug.CodigoHorario()))
+            {
+                JOptionPane.showMessageDialog(null, "El Horario de Juego "+Jug.Horario()+" ya cerro la venta, "
+                        + "el ticket no se puede almacenar ...");
+                return;
+            }
         }
-        catch (Exception err)
+        java.util.Date fechaS = FechaJuego.getDate();
+        final LocalDate Fecha = new java.sql.Date(fechaS.getTime()).toLocalDate();
+        final String Radicado = TxtRadicado.getText(), Sucursal = JlSucursal.getText();
+        final LocalTime Hora = LocalTime.parse(JlHora.getText());
+        final List<Jugada> Lineas = new ArrayList<Jugada>(Jugadas);
+        
+        // El radicado y lo apartado pasan a la tarea: si la ventana se cierra
+        // mientras se guarda, dispose() ya no los devuelve y solo un fallo
+        // del guardado los libera
+        final long Numero = Consecu;
+        final LocalDate FechaApartadas = FechaReservas;
+        final List<Jugada> Apartadas = new ArrayList<Jugada>(Reservadas);
+        Consecu = 0;
+        Reservadas.clear();
+        
+        // Evita un segundo ticket mientras se guarda y hasta tener el
+        // siguiente radicado
+        Guardando = true;
+        HabilitarGuardar();
+        EjecutorBD.Ejecutar(this, ConeBD, new TareaBD<Void>()
         {
-            err.printStackTrace();
-        }
+            public Void Consultar() throws Exception
+            {
+                // SUCURSAL lleva el codigo de BODEGAS, como en la api; USUARIO
+                // se ha guardado siempre con el nombre de la sucursal
+                Integer Codigo = Catalogo.Actual().Sucursales().Codigo(Sucursal);
+                if (Codigo == null)
+                {
+                    throw new SQLException("La sucursal " + Sucursal + " no existe en BODEGAS");
+                }
+                Ticket Tic = new Ticket(Numero, Radicado, Fecha, Hora, Codigo, Sucursal, Lineas);
+                long Inicio = System.nanoTime();
+                Tickets.Guardar(Tic);
+                MotorExposicion.Principal().Sumar(Tic);
+                REGISTRO.log(Level.FINE, "Ticket {0} confirmado en {1} ms ({2} jugadas)", new Object[] {Radicado,
+                    (System.nanoTime() - Inicio) / 1_000_000, Tic.Jugadas().size()});
+                return null;
+            }
+            
+            public void Mostrar(Void Nada)
+            {
+                Guardando = false;
+                JOptionPane.showMessageDialog(null, "Juego Lotto Animal con Radicado : "+Radicado+" Almacenado ...");
+                Imprimir(Radicado);
+                CargarTabla();
+                ValTJugar = 0;
+                TxtTotalJ.setText("");
+                ConsecutivoRadicado();
+            }
+            
+            public void Fallo(Exception err)
+            {
+                Guardando = false;
+                if (!isDisplayable() || Consecu != 0)
+                {
+                    SecuenciaRadicado.Radicado().Devolver(Numero);
+                }
+                else
+                {
+                    Consecu = (int) Numero;
+                }
+                HabilitarGuardar();
+                // Lo apartado vuelve al ticket en pantalla, o a la tabla si ya no
+                // hay ventana o el ticket nuevo es de otra fecha
+                if (!isDisplayable() || !Reservadas.isEmpty() && !Apartadas.isEmpty()
+                        && !FechaApartadas.equals(FechaReservas))
+                {
+                    Liberar(FechaApartadas, Apartadas);
+                }
+                else if (!Apartadas.isEmpty())
+                {
+                    FechaReservas = FechaApartadas;
+                    Reservadas.addAll(Apartadas);
+                }
+                if (!isDisplayable())
+                {
+                    return;
+                }
+                err.printStackTrace();
+                JOptionPane.showMessageDialog(null, "No fue posible almacenar el Juego Lotto Animal, intente de nuevo ...\n"+err.getMessage());
+            }
+        });
     }
     
-    void Imprimir()
+    /**
+     * Compila y llena el reporte en segundo plano; solo el visor se abre en
+     * el hilo de Swing.
+     */
+    void Imprimir(final String Radicado)
     {
-        try
+        EjecutorBD.Ejecutar(this, ConeBD, new TareaBD<JasperPrint>()
+        {
+            public JasperPrint Consultar() throws Exception
             {
                 JasperDesign dis = JRXmlLoader.load("C:/ReporteLotto/RptLottoJuego.jrxml");
                 JasperReport des = JasperCompileManager.compileReport(dis);
                 Map parametro = (Map) new HashMap();
-                parametro.put("Radicado", TxtRadicado.getText());
-                JasperPrint imp = JasperFillManager.fillReport(des, parametro, ConeBD.BD); 
+                parametro.put("Radicado", Radicado);
+                // Con la principal: la replica puede no tener aun el ticket recien guardado
+                return JasperFillManager.fillReport(des, parametro, ConeBD.BD); 
+            }
+            
+            public void Mostrar(JasperPrint imp)
+            {
                 JasperViewer jview = new JasperViewer(imp, false);
                 //this.getContentPane().add(jview.getContentPane());
                 jview.setModalExclusionType(FrmDRealizarJuego.ModalExclusionType.APPLICATION_EXCLUDE);//MUESTRA EL REPORTE EN FRENTE DEL JDIALOG
                 jview.setVisible(true);
             }
-            catch (Exception err)
+            
+            public void Fallo(Exception err)
             {
                 JOptionPane.showMessageDialog(null, err);
                 err.printStackTrace();
             }
+        });
     }
     
     private void jButton2ActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jButton2ActionPerformed
@@ -1013,7 +1262,6 @@ public class FrmDRealizarJuego extends javax.swing.JDialog {
         int OpcG = JOptionPane.showConfirmDialog(null, "¿Confirmar el Juego de Lotto Animal ...?");
         if (OpcG == 0)
         {
-            JOptionPane.showMessageDialog(null, "Juego Lotto Animal con Radicado : "+TxtRadicado.getText()+" Almacenado ...");
             Guardar(); 
         }
     }//GEN-LAST:event_jButton2ActionPerformed
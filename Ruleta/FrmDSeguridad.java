@@ -4,7 +4,6 @@
  */
 package Ruleta;
 
-import java.sql.ResultSet;
 import javax.swing.JOptionPane;
 import javax.swing.UIManager;
 import javax.swing.table.DefaultTableModel;
@@ -304,11 +303,18 @@ public class FrmDSeguridad extends javax.swing.JDialog {
     }// </editor-fold>//GEN-END:initComponents
 
     private void formWindowOpened(java.awt.event.WindowEvent evt) {//GEN-FIRST:event_formWindowOpened
-        ConeBD.Coneccion_BD();
+        EjecutorBD.Conectar(this, ConeBD);
         Apagar();
         ListarTabla();
     }//GEN-LAST:event_formWindowOpened
 
+    @Override
+    public void dispose()
+    {
+        EjecutorBD.Liberar(ConeBD);
+        super.dispose();
+    }
+
     private void jButton1ActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jButton1ActionPerformed
         Ingreso = 1;
         Prender();
@@ -325,24 +331,8 @@ public class FrmDSeguridad extends javax.swing.JDialog {
         DatosSeguridad.addColumn("Nick");
         DatosSeguridad.addColumn("Tipo");
         DatosSeguridad.addColumn("Estado");
-        try
-        {
-            SqlMostrar = "SELECT *  FROM SEGURIDAD";
-            ConeBD.RstBD = (ResultSet) ConeBD.StmBD.executeQuery(SqlMostrar);
-            while (ConeBD.RstBD.next())
-            {
-                DatSeguridad[0] = ConeBD.RstBD.getString("ID");
-                DatSeguridad[1] = ConeBD.RstBD.getString("NOMBRE");
-                DatSeguridad[2] = ConeBD.RstBD.getString("NICK");
-                DatSeguridad[3] = ConeBD.RstBD.getString("TIPO");
-                DatSeguridad[4] = ConeBD.RstBD.getString("ESTADO");
-                DatosSeguridad.addRow(DatSeguridad);
-            }
-        }
-        catch (Exception err)
-        {
-            err.printStackTrace();
-        }
+        SqlMostrar = "SELECT *  FROM SEGURIDAD";
+        EjecutorBD.Llenar(this, ConeBD, DatosSeguridad, new String[] {"ID", "NOMBRE", "NICK", "TIPO", "ESTADO"}, SqlMostrar);
     }
     void Limpiar()
     {
@@ -379,57 +369,47 @@ public class FrmDSeguridad extends javax.swing.JDialog {
     void Guardar()
     {
         String SqlGuardar = "";
-        try
-        {
-            SqlGuardar = "INSERT INTO SEGURIDAD VALUES ('"+TxtId.getText()+"','"+TxtNombre.getText()+"','"+
-                    TxtNick.getText()+"','"+TxtConClave.getText()+"','"+CmbTipo.getSelectedIndex()+"',1,0"+",'"+CmbEstado.getSelectedIndex()+"')";
-            System.out.println(SqlGuardar);
-            ConeBD.StmBD.executeUpdate(SqlGuardar);
-            JOptionPane.showMessageDialog(null, "El Usuario se Creo Exitosamente ...");
-            Limpiar();
-            Apagar();
-            ListarTabla();
-        }
-        catch (Exception err)
-        {
-            err.printStackTrace();
-        }
+        
+        SqlGuardar = "INSERT INTO SEGURIDAD (ID, NOMBRE, NICK, CLAVE, TIPO, CAJA, CODBODEGA, ESTADO)"
+                + " VALUES (?, ?, ?, ?, ?, 1, 0, ?)";
+        Grabar(SqlGuardar, new Object[] {TxtId.getText(), TxtNombre.getText(), TxtNick.getText(), TxtConClave.getText(),
+                String.valueOf(CmbTipo.getSelectedIndex()), String.valueOf(CmbEstado.getSelectedIndex())},
+                "El Usuario se Creo Exitosamente ...");
     }
     void Editar()
     {
         String SqlEditar = "";
-        try
-        {
-            SqlEditar = "UPDATE SEGURIDAD SET NOMBRE = '"+TxtNombre.getText()+"', NICK = '"+TxtNick.getText()+"', TIPO = '"+
-                    CmbTipo.getSelectedIndex()+"', ESTADO = '"+CmbEstado.getSelectedIndex()+"' WHERE "+
-                    " ID = '"+TxtId.getText()+"'";
-            ConeBD.StmBD.executeUpdate(SqlEditar);
-            JOptionPane.showMessageDialog(null, "Usuario Modificado ...");
-            Limpiar();
-            Apagar();
-            ListarTabla();
-        }
-        catch (Exception err)
-        {
-            err.printStackTrace();
-        }
+        
+        SqlEditar = "UPDATE SEGURIDAD SET NOMBRE = ?, NICK = ?, TIPO = ?, ESTADO = ? WHERE ID = ?";
+        Grabar(SqlEditar, new Object[] {TxtNombre.getText(), TxtNick.getText(), String.valueOf(CmbTipo.getSelectedIndex()),
+                String.valueOf(CmbEstado.getSelectedIndex()), TxtId.getText()}, "Usuario Modificado ...");
     }
     void Eliminar()
     {
         String SqlEliminar = "";
-        try
-        {
-            SqlEliminar = "DELETE FROM SEGURIDAD WHERE ID = '"+TxtId.getText()+"'";
-            ConeBD.StmBD.executeUpdate(SqlEliminar);
-            JOptionPane.showMessageDialog(null, "Usuario Sistema Eliminado ...");
-            Limpiar();
-            Apagar();
-            ListarTabla();
-        }
-        catch (Exception err)
+        
+        SqlEliminar = "DELETE FROM SEGURIDAD WHERE ID = ?";
+        Grabar(SqlEliminar, new Object[] {TxtId.getText()}, "Usuario Sistema Eliminado ...");
+    }
+    
+    // Ejecuta la sentencia en segundo plano y al terminar refresca la ventana
+    void Grabar(final String Sql, final Object Datos[], final String Mensaje)
+    {
+        EjecutorBD.Ejecutar(this, ConeBD, new TareaBD<Integer>()
         {
-            err.printStackTrace();
-        }
+            public Integer Consultar() throws Exception
+            {
+                return ConeBD.Ejecutar(Sql, Datos);
+            }
+            
+            public void Mostrar(Integer Filas)
+            {
+                JOptionPane.showMessageDialog(null, Mensaje);
+                Limpiar();
+                Apagar();
+                ListarTabla();
+            }
+        });
     }
     private void jButton2ActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jButton2ActionPerformed
         switch (Ingreso)
@@ -454,21 +434,28 @@ public class FrmDSeguridad extends javax.swing.JDialog {
     }//GEN-LAST:event_jButton2ActionPerformed
     void SacarClave(String Id)
     {
-        String SqlSacarClave = "";
-        try
+        final String SqlSacarClave =  "SELECT CLAVE FROM SEGURIDAD WHERE ID = ?";
+        final String IdUsuario = Id;
+        EjecutorBD.Ejecutar(this, ConeBD, new TareaBD<String>()
         {
-            SqlSacarClave =  "SELECT CLAVE FROM SEGURIDAD WHERE ID = '"+Id+"'";
-            ConeBD.RstBD = (ResultSet) ConeBD.StmBD.executeQuery(SqlSacarClave);
-            if (ConeBD.RstBD.next())
+            public String Consultar() throws Exception
             {
-                Clave = ConeBD.RstBD.getString("CLAVE");
+                ConeBD.RstBD = ConeBD.Consultar(SqlSacarClave, IdUsuario);
+                if (ConeBD.RstBD.next())
+                {
+                    return ConeBD.RstBD.getString("CLAVE");
+                }
+                return null;
             }
-                     
-        }
-        catch (Exception err)
-        {
-            err.printStackTrace();
-        }
+            
+            public void Mostrar(String Resultado)
+            {
+                if (Resultado != null)
+                {
+                    Clave = Resultado;
+                }
+            }
+        });
     }
             
     private void TablaSeguridadMouseClicked(java.awt.event.MouseEvent evt) {//GEN-FIRST:event_TablaSeguridadMouseClicked
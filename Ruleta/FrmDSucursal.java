@@ -4,7 +4,6 @@
  */
 package Ruleta;
 
-import java.sql.ResultSet;
 import javax.swing.JOptionPane;
 import javax.swing.UIManager;
 import javax.swing.table.DefaultTableModel;
@@ -251,12 +250,19 @@ public class FrmDSucursal extends javax.swing.JDialog {
     }//GEN-LAST:event_TablaSedesMouseClicked
 
     private void formWindowOpened(java.awt.event.WindowEvent evt) {//GEN-FIRST:event_formWindowOpened
-        ConeBD.Coneccion_BD();
+        EjecutorBD.Conectar(this, ConeBD);
         Limpiar();
         Apagar();
         MostrarTabla();
     }//GEN-LAST:event_formWindowOpened
 
+    @Override
+    public void dispose()
+    {
+        EjecutorBD.Liberar(ConeBD);
+        super.dispose();
+    }
+
     /**
      * @param args the command line arguments
      */
@@ -271,22 +277,8 @@ public class FrmDSucursal extends javax.swing.JDialog {
         DatosBodegas.addColumn("Codigo");
         DatosBodegas.addColumn("Bodega");
         
-        try
-        {
-            SqlMostrarTabla = "SELECT * FROM BODEGAS ORDER BY CODIGO";
-            ConeBD.RstBD = (ResultSet) ConeBD.StmBD.executeQuery(SqlMostrarTabla);
-            while (ConeBD.RstBD.next())
-            {
-                DatBodegas[0] = String.valueOf(ConeBD.RstBD.getInt("CODIGO"));
-                DatBodegas[1] = ConeBD.RstBD.getString("BODEGA");
-                DatosBodegas.addRow(DatBodegas);
-                
-            }
-        }
-        catch (Exception err)
-        {
-            err.printStackTrace();
-        }
+        SqlMostrarTabla = "SELECT * FROM BODEGAS ORDER BY CODIGO";
+        EjecutorBD.Llenar(this, ConeBD, DatosBodegas, new String[] {"CODIGO", "BODEGA"}, SqlMostrarTabla);
         
     }
     
@@ -309,21 +301,25 @@ public class FrmDSucursal extends javax.swing.JDialog {
     
     void Consecutivo()
     {
-        String SqlConse = "";
-        try
+        EjecutorBD.Ejecutar(this, ConeBD, new TareaBD<Integer>()
         {
-            SqlConse = "SELECT MAX(CODIGO) AS CONSECUTIVO FROM BODEGAS";
-            ConeBD.RstBD = (ResultSet) ConeBD.StmBD.executeQuery(SqlConse);
-            if (ConeBD.RstBD.next())
+            public Integer Consultar() throws Exception
             {
-                Consecu = ConeBD.RstBD.getInt("CONSECUTIVO") + 1;                
+                String SqlConse = "SELECT MAX(CODIGO) AS CONSECUTIVO FROM BODEGAS";
+                ConeBD.RstBD = ConeBD.Consultar(SqlConse);
+                if (ConeBD.RstBD.next())
+                {
+                    return ConeBD.RstBD.getInt("CONSECUTIVO") + 1;                
+                }
+                return Consecu;
             }
-            TxtCodigo.setText(String.valueOf(Consecu));
-        }
-        catch (Exception err)
-        {
-            err.printStackTrace();
-        }
+            
+            public void Mostrar(Integer Numero)
+            {
+                Consecu = Numero;
+                TxtCodigo.setText(String.valueOf(Consecu));
+            }
+        });
     }
     
     void Guardar()
@@ -333,12 +329,9 @@ public class FrmDSucursal extends javax.swing.JDialog {
         {
             try
             {
-                SqlGuardar = "INSERT INTO BODEGAS VALUES ("+TxtCodigo.getText()+",'"+TxtSedes.getText()+"')";
-                ConeBD.StmBD.executeUpdate(SqlGuardar);
-                JOptionPane.showMessageDialog(null, "Bodega Creada y Almacenada ...");
-                Limpiar();
-                Apagar();
-                MostrarTabla();
+                SqlGuardar = "INSERT INTO BODEGAS (CODIGO, BODEGA) VALUES (?, ?)";
+                Grabar(SqlGuardar, new Object[] {Integer.parseInt(TxtCodigo.getText()), TxtSedes.getText()},
+                        "Bodega Creada y Almacenada ...");
             }
             catch (Exception err)
             {
@@ -360,13 +353,9 @@ public class FrmDSucursal extends javax.swing.JDialog {
                 "\n El Nombre de la Caja -- Desea Continuar ...?");
             if (OpcG == 0)
             {
-                SqlEditar = "UPDATE BODEGAS SET CAJA = '"+TxtSedes.getText()+"' "+
-                    " WHERE CODIGO = "+TxtCodigo.getText();
-                ConeBD.StmBD.executeUpdate(SqlEditar);
-                JOptionPane.showMessageDialog(null, "Bodega Modificada ...");
-                Limpiar();
-                Apagar();
-                MostrarTabla();
+                SqlEditar = "UPDATE BODEGAS SET BODEGA = ? WHERE CODIGO = ?";
+                Grabar(SqlEditar, new Object[] {TxtSedes.getText(), Integer.parseInt(TxtCodigo.getText())},
+                        "Bodega Modificada ...");
             }   
         }
         catch (Exception err)
@@ -384,12 +373,8 @@ public class FrmDSucursal extends javax.swing.JDialog {
                 "\n La Caja -- Desea Continuar ...?");
             if (OpcG == 0)
             {
-                SqlEliminar = "DELETE FROM BODEGAS WHERE CODIGO = "+TxtCodigo.getText();
-                ConeBD.StmBD.executeUpdate(SqlEliminar);
-                JOptionPane.showMessageDialog(null, "Bodega Eliminada ...");
-                Limpiar();
-                Apagar();
-                MostrarTabla();
+                SqlEliminar = "DELETE FROM BODEGAS WHERE CODIGO = ?";
+                Grabar(SqlEliminar, new Object[] {Integer.parseInt(TxtCodigo.getText())}, "Bodega Eliminada ...");
             }
         }
         catch(Exception err)
@@ -398,6 +383,26 @@ public class FrmDSucursal extends javax.swing.JDialog {
         }
     }
     
+    // Ejecuta la sentencia en segundo plano y al terminar refresca la ventana
+    void Grabar(final String Sql, final Object Datos[], final String Mensaje)
+    {
+        EjecutorBD.Ejecutar(this, ConeBD, new TareaBD<Integer>()
+        {
+            public Integer Consultar() throws Exception
+            {
+                return ConeBD.Ejecutar(Sql, Datos);
+            }
+            
+            public void Mostrar(Integer Filas)
+            {
+                JOptionPane.showMessageDialog(null, Mensaje);
+                Limpiar();
+                Apagar();
+                MostrarTabla();
+            }
+        });
+    }
+    
     public static void main(String args[]) {
         /*
          * Set the Nimbus look and feel
@@ -4,10 +4,12 @@
  */
 package Ruleta;
 
-import java.sql.ResultSet;
+import Ruleta.Datos.Catalogo;
+import Ruleta.Datos.Horario;
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.List;
 import javax.swing.JOptionPane;
 import javax.swing.JSpinner;
 import javax.swing.SpinnerDateModel;
@@ -249,21 +251,25 @@ public class FrmDTiempoJuego extends javax.swing.JDialog {
     
     void Consecutivo()
     {
-        String SqlConse = "";
-        try
+        EjecutorBD.Ejecutar(this, ConeBD, new TareaBD<Integer>()
         {
-            SqlConse = "SELECT MAX(NUM) AS CONSECUTIVO FROM horariojuego";
-            ConeBD.RstBD = (ResultSet) ConeBD.StmBD.executeQuery(SqlConse);
-            if (ConeBD.RstBD.next())
+            public Integer Consultar() throws Exception
             {
-                Consecu = ConeBD.RstBD.getInt("CONSECUTIVO") + 1;                
+                String SqlConse = "SELECT MAX(NUM) AS CONSECUTIVO FROM horariojuego";
+                ConeBD.RstBD = ConeBD.Consultar(SqlConse);
+                if (ConeBD.RstBD.next())
+                {
+                    return ConeBD.RstBD.getInt("CONSECUTIVO") + 1;                
+                }
+                return Consecu;
             }
-            TxtCodigo.setText(String.valueOf(Consecu));
-        }
-        catch (Exception err)
-        {
-            err.printStackTrace();
-        }
+            
+            public void Mostrar(Integer Numero)
+            {
+                Consecu = Numero;
+                TxtCodigo.setText(String.valueOf(Consecu));
+            }
+        });
     }
     
     private void jButton1ActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jButton1ActionPerformed
@@ -282,7 +288,6 @@ public class FrmDTiempoJuego extends javax.swing.JDialog {
 
     void MostrarTabla()
     {
-        String SqlMostrarTabla = "";
         TablaHorario.clearSelection();
         DatosHorarioLotto =  new DefaultTableModel();
         TablaHorario.setModel(DatosHorarioLotto);
@@ -292,24 +297,22 @@ public class FrmDTiempoJuego extends javax.swing.JDialog {
         DatosHorarioLotto.addColumn("Hota Juego");
         DatosHorarioLotto.addColumn("Estado");
         
-        try
+        final DefaultTableModel Modelo = DatosHorarioLotto;
+        EjecutorBD.Ejecutar(this, ConeBD, new TareaBD<List<Horario>>()
         {
-            SqlMostrarTabla = "SELECT * FROM horariojuego WHERE ESTADO = 'A' ORDER BY NUM";
-            ConeBD.RstBD = (ResultSet) ConeBD.StmBD.executeQuery(SqlMostrarTabla);
-            while (ConeBD.RstBD.next())
+            public List<Horario> Consultar() throws Exception
             {
-                DatHorarioLotto[0] = String.valueOf(ConeBD.RstBD.getInt("NUM"));
-                DatHorarioLotto[1] = ConeBD.RstBD.getString("DESCRIPCION");
-                DatHorarioLotto[2] = String.valueOf(ConeBD.RstBD.getTime("HORA"));
-                DatHorarioLotto[3] = ConeBD.RstBD.getString("ESTADO");
-                DatosHorarioLotto.addRow(DatHorarioLotto);
-                
+                return Catalogo.Actual().Horarios();
             }
-        }
-        catch (Exception err)
-        {
-            err.printStackTrace();
-        }
+            
+            public void Mostrar(List<Horario> Lista)
+            {
+                for (Horario Hor : Lista)
+                {
+                    Modelo.addRow(new Object[] {String.valueOf(Hor.Num()), Hor.Descripcion(), Hor.HoraTexto(), "A"});
+                }
+            }
+        });
         
     }
     
@@ -323,18 +326,25 @@ public class FrmDTiempoJuego extends javax.swing.JDialog {
         SimpleDateFormat sdf = new SimpleDateFormat("HH:mm:ss"); //17/06/2014 18:19:25
         HoraFinalJuego = sdf.format(HoraJuego);
         
-        try
+        SqlGuardar = "INSERT INTO horariojuego (NUM, DESCRIPCION, HORA, ESTADO) VALUES (?, ?, ?, 'A')";
+        final String Sql = SqlGuardar;
+        final Object Datos[] = {Consecu, TxtDes.getText(), HoraFinalJuego};
+        EjecutorBD.Ejecutar(this, ConeBD, new TareaBD<Integer>()
         {
-            SqlGuardar = "INSERT INTO horariojuego VALUES ("+Consecu+",'"+TxtDes.getText()+"','"+HoraFinalJuego+"','A')";
-            ConeBD.StmBD.executeUpdate(SqlGuardar);
-            Limpiar();
-            Apagar();
-            JOptionPane.showMessageDialog(null, "Hora Juego Lotto Animal Creado ...");
-        }
-        catch (Exception err)
-        {
-            err.printStackTrace();
-        }
+            public Integer Consultar() throws Exception
+            {
+                int Filas = ConeBD.Ejecutar(Sql, Datos);
+                Catalogo.Invalidar();
+                return Filas;
+            }
+            
+            public void Mostrar(Integer Filas)
+            {
+                Limpiar();
+                Apagar();
+                JOptionPane.showMessageDialog(null, "Hora Juego Lotto Animal Creado ...");
+            }
+        });
     }
     
     void Editar()
@@ -362,11 +372,18 @@ public class FrmDTiempoJuego extends javax.swing.JDialog {
 
     private void formWindowOpened(java.awt.event.WindowEvent evt) {//GEN-FIRST:event_formWindowOpened
         
-        ConeBD.Coneccion_BD();
+        EjecutorBD.Conectar(this, ConeBD);
         Apagar();
         MostrarTabla();
     }//GEN-LAST:event_formWindowOpened
 
+    @Override
+    public void dispose()
+    {
+        EjecutorBD.Liberar(ConeBD);
+        super.dispose();
+    }
+
     /**
      * @param args the command line arguments
      */
@@ -4,9 +4,11 @@
  */
 package Ruleta;
 
-import java.sql.ResultSet;
-import java.text.DecimalFormat;
+import Ruleta.Datos.Resultado;
+import Ruleta.Datos.ResultadoDAO;
 import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.util.List;
 import javax.swing.JViewport;
 import javax.swing.Timer;
 import javax.swing.UIManager;
@@ -20,7 +22,8 @@ import javax.swing.table.TableColumnModel;
  */
 public class FrmDVerResultados extends javax.swing.JDialog {
 
-    Conexion ConeBD =  new Conexion();
+    Conexion ConeBD =  new Conexion(Conexion.LECTURA);
+    ResultadoDAO Resultados = new ResultadoDAO(ConeBD);
     
     int Ingreso = 0, Consecu = 0;
     
@@ -31,9 +34,7 @@ public class FrmDVerResultados extends javax.swing.JDialog {
     java.util.Date Reloj;
     SimpleDateFormat Formato;
     
-    DecimalFormat Convertir = new DecimalFormat("###,###.##"); 
     
-    double ValTJugar = 0;
     String HoraJuego = "";
     
     public FrmDVerResultados(java.awt.Frame parent, boolean modal) {
@@ -188,15 +189,9 @@ public class FrmDVerResultados extends javax.swing.JDialog {
 
     void Buscar()
     {
-        String SqlBuscar = "";
-        
         java.util.Date fechaS = FechaInicial.getDate();
-        SimpleDateFormat S = new SimpleDateFormat("yyyy-MM-dd");
-        String FechaI = (S.format(fechaS));
-        
         java.util.Date fechaF = FechaFinal.getDate();
-        SimpleDateFormat F = new SimpleDateFormat("yyyy-MM-dd");
-        String FechaF = (F.format(fechaF));
+
         
         TablaResultados.clearSelection();
         DatosLottoR =  new DefaultTableModel();
@@ -208,52 +203,56 @@ public class FrmDVerResultados extends javax.swing.JDialog {
         DatosLottoR.addColumn("Fecha");
         DatosLottoR.addColumn("Estado");
         
-        try
+        final LocalDate Desde = new java.sql.Date(fechaS.getTime()).toLocalDate(), Hasta = new java.sql.Date(fechaF.getTime()).toLocalDate();
+        final DefaultTableModel Modelo = DatosLottoR;
+        final int Limite = EjecutorBD.Limite();
+        EjecutorBD.Ejecutar(this, ConeBD, new TareaBD<List<Resultado>>()
         {
-            SqlBuscar = "SELECT * FROM ingresarganadores WHERE FECHA BETWEEN '"+FechaI+"' AND '"+FechaF+"'";
-            ConeBD.RstBD = (ResultSet) ConeBD.StmBD.executeQuery(SqlBuscar);
-            while (ConeBD.RstBD.next())
+            public List<Resultado> Consultar() throws Exception
             {
-                DatLottoR[0] = ConeBD.RstBD.getString("CODIGOA");
-                DatLottoR[1] = ConeBD.RstBD.getString("ANIMAL");
-                DatLottoR[2] = String.valueOf(ConeBD.RstBD.getInt("CODIGOH"));
-                DatLottoR[3] = ConeBD.RstBD.getString("DESCRIOCIONH");
-                DatLottoR[4] = String.valueOf(ConeBD.RstBD.getDate("FECHA"));
-                DatLottoR[5] = ConeBD.RstBD.getString("ESTADO");
-                DatosLottoR.addRow(DatLottoR);
-                
-                int anchoColumna1 = 0;
-                JViewport scroll1 =  (JViewport) TablaResultados.getParent();
-                int ancho1 = scroll1.getWidth();
-                TableColumnModel modeloColumna1 = TablaResultados.getColumnModel();
-                TableColumn columnaTabla1;                
-                for (int j = 0; j < TablaResultados.getColumnCount(); j++)
+                return Resultados.Entre(Desde, Hasta, Limite + 1);
+            }
+            
+            public void Mostrar(List<Resultado> Lista)
+            {
+                EjecutorBD.Recortar(Lista, Limite);
+                for (Resultado Res : Lista)
                 {
-                    columnaTabla1 = modeloColumna1.getColumn(j);
-                    switch(j)
-                    {
-                        case 0: anchoColumna1 = (15*ancho1)/100;
-                            break;
-                        case 1: anchoColumna1 = (30*ancho1)/100;
-                            break;
-                        case 2: anchoColumna1 = (30*ancho1)/100;
-                            break;
-                        case 3: anchoColumna1 = (80*ancho1)/100;
-                            break;
-                        case 4: anchoColumna1 = (30*ancho1)/100;
-                            break;
-                        case 5: anchoColumna1 = (30*ancho1)/100;
-                            break;
-                    }
-                    columnaTabla1.setPreferredWidth(anchoColumna1);
+                    Modelo.addRow(new Object[] {Res.CodigoAnimal(), Res.Animal(), String.valueOf(Res.CodigoHorario()), Res.Horario(),
+                            Res.Fecha().toString(), Res.Estado()});
                 }
+                AnchoResultados();
             }
-        }
-        catch (Exception err)
+        });
+    }
+    
+    void AnchoResultados()
+    {
+        int anchoColumna1 = 0;
+        JViewport scroll1 =  (JViewport) TablaResultados.getParent();
+        int ancho1 = scroll1.getWidth();
+        TableColumnModel modeloColumna1 = TablaResultados.getColumnModel();
+        TableColumn columnaTabla1;                
+        for (int j = 0; j < TablaResultados.getColumnCount(); j++)
         {
-            err.printStackTrace();
+            columnaTabla1 = modeloColumna1.getColumn(j);
+            switch(j)
+            {
+                case 0: anchoColumna1 = (15*ancho1)/100;
+                    break;
+                case 1: anchoColumna1 = (30*ancho1)/100;
+                    break;
+                case 2: anchoColumna1 = (30*ancho1)/100;
+                    break;
+                case 3: anchoColumna1 = (80*ancho1)/100;
+                    break;
+                case 4: anchoColumna1 = (30*ancho1)/100;
+                    break;
+                case 5: anchoColumna1 = (30*ancho1)/100;
+                    break;
+            }
+            columnaTabla1.setPreferredWidth(anchoColumna1);
         }
-        
     }
     
     private void jButton1ActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jButton1ActionPerformed
@@ -262,9 +261,8 @@ public class FrmDVerResultados extends javax.swing.JDialog {
 
     private void formWindowOpened(java.awt.event.WindowEvent evt) {//GEN-FIRST:event_formWindowOpened
         
-        ConeBD.Coneccion_BD();
-        
-        SimpleDateFormat F = new SimpleDateFormat("yyyy-MM-dd");
+        EjecutorBD.Conectar(this, ConeBD);
+        SimpleDateFormat F= new SimpleDateFormat("yyyy-MM-dd");
         java.util.Date Fecha = new java.util.Date();
         FechaInicial.setDate(Fecha);
         FechaFinal.setDate(Fecha);
@@ -272,6 +270,13 @@ public class FrmDVerResultados extends javax.swing.JDialog {
         
     }//GEN-LAST:event_formWindowOpened
 
+    @Override
+    public void dispose()
+    {
+        EjecutorBD.Liberar(ConeBD);
+        super.dispose();
+    }
+
     private void jButton2ActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jButton2ActionPerformed
         
         FrmDGanadores Gan =  new FrmDGanadores(null, rootPaneCheckingEnabled);
@@ -4,8 +4,9 @@
  */
 package Ruleta;
 
+import Ruleta.Datos.Catalogo;
+import Ruleta.Datos.Sucursales;
 import java.awt.event.KeyEvent;
-import java.sql.ResultSet;
 import javax.swing.JOptionPane;
 import javax.swing.UIManager;
 
@@ -17,7 +18,18 @@ public class FrmInicioP extends javax.swing.JFrame {
 
     
     Conexion ConeBD = new Conexion();
-    int CodigoBodega = 0;
+    volatile int CodigoBodega = 0;
+    Sucursales Directorio;
+    
+    // El estado de la BD va en JlMsg en lugar de un mensaje modal
+    final MonitorConexion.Oyente OyenteBD = new MonitorConexion.Oyente()
+    {
+        public void Cambio(MonitorConexion.Estado Nuevo, String Mensaje)
+        {
+            JlMsg.setForeground(Nuevo == MonitorConexion.Estado.RECONECTANDO ? new java.awt.Color(153, 0, 0) : new java.awt.Color(0, 51, 0));
+            JlMsg.setText(Mensaje);
+        }
+    };
     
     public FrmInicioP() {
         initComponents();
@@ -229,85 +241,85 @@ public class FrmInicioP extends javax.swing.JFrame {
     
     void CargarBodegas()
     {
-        String SqlCargarCajas = "";
-        
-        try
+        EjecutorBD.Ejecutar(this, ConeBD, new TareaBD<Sucursales>()
         {
-            SqlCargarCajas = "SELECT BODEGA FROM BODEGAS ORDER BY CODIGO";
-            ConeBD.RstBD = (ResultSet) ConeBD.StmBD.executeQuery(SqlCargarCajas);
-            while (ConeBD.RstBD.next())
+            public Sucursales Consultar() throws Exception
             {
-                CmbSede.addItem((ConeBD.RstBD.getString("BODEGA")));
+                return Catalogo.Actual().Sucursales();
             }
-        }
-        catch (Exception err)
-        {
-            err.printStackTrace();
-        }
+            
+            @SuppressWarnings("unchecked")
+            public void Mostrar(Sucursales Dir)
+            {
+                Directorio = Dir;
+                for (String Nombre : Dir.Nombres())
+                {
+                    CmbSede.addItem(Nombre);
+                }
+            }
+        });
     }
     
     void SacarUsuario(String Usu)
     {
-        String SqlSacarUsu = "";
-        
-        try
+        final String SqlSacarUsu = "SELECT * FROM SEGURIDAD WHERE NICK = ?";
+        final String Nick = Usu;
+        EjecutorBD.Ejecutar(this, ConeBD, new TareaBD<Boolean>()
         {
-            SqlSacarUsu = "SELECT * FROM SEGURIDAD WHERE NICK = '"+Usu+"'";
-            ConeBD.RstBD = (ResultSet) ConeBD.StmBD.executeQuery(SqlSacarUsu);
-            if (ConeBD.RstBD.next())
+            public Boolean Consultar() throws Exception
             {
-                TxtClave.requestFocus();
-            }   
-            else
+                ConeBD.RstBD = ConeBD.Consultar(SqlSacarUsu, Nick);
+                return ConeBD.RstBD.next();
+            }
+            
+            public void Mostrar(Boolean Existe)
             {
-                JOptionPane.showMessageDialog(null, "Usuario No existe ...");
-                Limpiar();
+                if (Existe)
+                {
+                    TxtClave.requestFocus();
+                }   
+                else
+                {
+                    JOptionPane.showMessageDialog(null, "Usuario No existe ...");
+                    Limpiar();
+                }
             }
-        }
-        catch (Exception err)
-        {
-            err.printStackTrace();
-        }
+        });
     }
     
     void Ingreso()
     {
-        String SqlIngresar = "", Nombre = "";
-        try
+        final String Nick = TxtUsuario.getText(), Clave = TxtClave.getText();
+        
+        EjecutorBD.Ejecutar(this, ConeBD, new TareaBD<String[]>()
         {
-            SqlIngresar = "SELECT * FROM SEGURIDAD WHERE NICK = '"+TxtUsuario.getText()+"' AND CLAVE = '"+TxtClave.getText()+"'"
-                    + " AND CODBODEGA = "+CodigoBodega;
-            System.out.println(SqlIngresar);
-            ConeBD.RstBD = (ResultSet) ConeBD.StmBD.executeQuery(SqlIngresar);
-            if (ConeBD.RstBD.next())
+            public String[] Consultar() throws Exception
             {
-                if (ConeBD.RstBD.getString("TIPO").equals("1"))
+                // CodigoBodega lo fija SacarSucursal() antes de encolar el ingreso
+                String SqlIngresar = "SELECT * FROM SEGURIDAD WHERE NICK = ? AND CLAVE = ? AND CODBODEGA = ?";
+                ConeBD.RstBD = ConeBD.Consultar(SqlIngresar, Nick, Clave, CodigoBodega);
+                if (ConeBD.RstBD.next())
                 {
-                    if (ConeBD.RstBD.getString("ESTADO").equals("1"))
-                    {
-                        Nombre = ConeBD.RstBD.getString("NOMBRE");                        
-                        FrmPrincipal Pri = new FrmPrincipal();
-                        Pri.Mostrar(CmbSede.getSelectedItem().toString());
-                        Pri.setVisible(true);
-                        dispose();                    
-                    }
-                    else
-                    {
-                        JOptionPane.showMessageDialog(null, "Sin Permisos para Ingresar ...");
-                        Limpiar();
-                    }
+                    return new String[] {ConeBD.RstBD.getString("TIPO"), ConeBD.RstBD.getString("ESTADO"),
+                        ConeBD.RstBD.getString("NOMBRE")};
                 }
-                else
+                return null;
+            }
+            
+            public void Mostrar(String Usuario[])
+            {
+                String Nombre = "";
+                if (Usuario != null)
                 {
-                    if (ConeBD.RstBD.getString("TIPO").equals("2"))
+                    if (Usuario[0].equals("1"))
                     {
-                        if (ConeBD.RstBD.getString("ESTADO").equals("1"))
+                        if (Usuario[1].equals("1"))
                         {
-                            Nombre = ConeBD.RstBD.getString("NOMBRE");   
+                            Nombre = Usuario[2];                        
                             FrmPrincipal Pri = new FrmPrincipal();
-                            Pri.Mostrar(CmbSede.getSelectedItem().toString());
+                            Pri.Mostrar(CmbSede.getSelectedItem().toString(), Nick);
                             Pri.setVisible(true);
-                            dispose();
+                            dispose();                    
                         }
                         else
                         {
@@ -317,13 +329,13 @@ public class FrmInicioP extends javax.swing.JFrame {
                     }
                     else
                     {
-                        if (ConeBD.RstBD.getString("TIPO").equals("3"))
+                        if (Usuario[0].equals("2"))
                         {
-                            if (ConeBD.RstBD.getString("ESTADO").equals("1"))
+                            if (Usuario[1].equals("1"))
                             {
-                                Nombre = ConeBD.RstBD.getString("NOMBRE");   
+                                Nombre = Usuario[2];   
                                 FrmPrincipal Pri = new FrmPrincipal();
-                                Pri.Mostrar(CmbSede.getSelectedItem().toString());
+                                Pri.Mostrar(CmbSede.getSelectedItem().toString(), Nick);
                                 Pri.setVisible(true);
                                 dispose();
                             }
@@ -333,24 +345,36 @@ public class FrmInicioP extends javax.swing.JFrame {
                                 Limpiar();
                             }
                         }
+                        else
+                        {
+                            if (Usuario[0].equals("3"))
+                            {
+                                if (Usuario[1].equals("1"))
+                                {
+                                    Nombre = Usuario[2];   
+                                    FrmPrincipal Pri = new FrmPrincipal();
+                                    Pri.Mostrar(CmbSede.getSelectedItem().toString(), Nick);
+                                    Pri.setVisible(true);
+                                    dispose();
+                                }
+                                else
+                                {
+                                    JOptionPane.showMessageDialog(null, "Sin Permisos para Ingresar ...");
+                                    Limpiar();
+                                }
+                            }
+                        }
                     }
                 }
+                else
+                {
+                    JOptionPane.showMessageDialog(null, "El Usuario No Existe / No tiene Permisos en la Caja o en la Bodega...");
+                    Limpiar();
+                }
             }
-            else
-            {
-                JOptionPane.showMessageDialog(null, "El Usuario No Existe / No tiene Permisos en la Caja o en la Bodega...");
-                Limpiar();
-            }
-            
-        }
-        catch (Exception err)
-        {
-            err.printStackTrace();
-        }
-            
+        });
     }
     
-    
     private void TxtUsuarioKeyPressed(java.awt.event.KeyEvent evt) {//GEN-FIRST:event_TxtUsuarioKeyPressed
         if (evt.getKeyChar() == KeyEvent.VK_ENTER) 
         {
@@ -358,22 +382,13 @@ public class FrmInicioP extends javax.swing.JFrame {
         }
     }//GEN-LAST:event_TxtUsuarioKeyPressed
 
+    // Sin consulta: el codigo sale del directorio con que se lleno el combo
     void SacarSucursal()
     {
-        String NomBodega = CmbSede.getSelectedItem().toString(), SqlSacarCodigo = "";
-        
-        try
+        Integer Codigo = Directorio == null ? null : Directorio.Codigo(CmbSede.getSelectedItem().toString());
+        if (Codigo != null)
         {
-            SqlSacarCodigo = "SELECT CODIGO FROM BODEGAS WHERE BODEGA = '"+NomBodega+"'";
-            ConeBD.RstBD = (ResultSet) ConeBD.StmBD.executeQuery(SqlSacarCodigo);
-            if (ConeBD.RstBD.next())
-            {
-                CodigoBodega = ConeBD.RstBD.getInt("CODIGO");
-            }
-        }
-        catch (Exception err)
-        {
-            err.printStackTrace();
+            CodigoBodega = Codigo;
         }
     }
     
@@ -420,10 +435,20 @@ public class FrmInicioP extends javax.swing.JFrame {
     }//GEN-LAST:event_rSButtonMetro2ActionPerformed
 
     private void formWindowOpened(java.awt.event.WindowEvent evt) {//GEN-FIRST:event_formWindowOpened
-        ConeBD.Coneccion_BD();
+        EjecutorBD.Conectar(this, ConeBD);
+        MonitorConexion.Principal().Agregar(OyenteBD);
+        Catalogo.Precargar();
         CargarBodegas();
     }//GEN-LAST:event_formWindowOpened
 
+    @Override
+    public void dispose()
+    {
+        MonitorConexion.Principal().Quitar(OyenteBD);
+        EjecutorBD.Liberar(ConeBD);
+        super.dispose();
+    }
+
     private void CmbSedeActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_CmbSedeActionPerformed
         // TODO add your handling code here:
     }//GEN-LAST:event_CmbSedeActionPerformed
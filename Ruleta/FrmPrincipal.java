@@ -4,9 +4,24 @@
  */
 package Ruleta;
 
+import Ruleta.Datos.Catalogo;
+import Ruleta.Datos.Cierre;
+import Ruleta.Datos.Dinero;
+import Ruleta.Datos.Ganador;
+import Ruleta.Datos.GanadoresDAO;
+import Ruleta.Datos.Horario;
+import Ruleta.Datos.LineaSorteos;
+import Ruleta.Datos.MotorCierre;
+import Ruleta.Datos.MotorExposicion;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import javax.swing.GroupLayout;
+import javax.swing.JOptionPane;
+import javax.swing.JTabbedPane;
+import javax.swing.SwingUtilities;
+
 import java.text.SimpleDateFormat;
 import javax.swing.Timer;
 import javax.swing.UIManager;
@@ -14,8 +29,10 @@ import javax.swing.table.DefaultTableModel;
 
 import java.net.*;
 import java.io.*;
-import java.text.DecimalFormat;
 import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.util.Date;
 import java.util.TimeZone;
 import javax.swing.JViewport;
@@ -30,27 +47,75 @@ public class FrmPrincipal extends javax.swing.JFrame {
 
     
     Conexion ConeBD =  new Conexion();
+    GanadoresDAO Ganadores = new GanadoresDAO(ConeBD);
+    MotorCierre Cierres = new MotorCierre(ConeBD);
     
    
     DefaultTableModel DatosHorarioLotto;
-    String DatHorarioLotto[] =  new String[4];
     
     DefaultTableModel DatosLottoG;
-    String DatLottoG[] =  new String[6];
+
     
     Timer Tiempo;
     java.util.Date Reloj;
     SimpleDateFormat Formato;
     
     String FechaF = "", SucJuegos = "", FechaJuego = "";
+    // NICK del usuario que ingreso, para las anulaciones
+    String UsuarioP = "";
+    // Estado de la BD que se muestra en el titulo (vacio si hay conexion)
+    String EstadoBD = "";
+    
+    final MonitorConexion.Oyente OyenteBD = new MonitorConexion.Oyente()
+    {
+        public void Cambio(MonitorConexion.Estado Nuevo, String Mensaje)
+        {
+            EstadoBD = Nuevo == MonitorConexion.Estado.CONECTADO ? "" : " - " + Mensaje;
+            Titular();
+        }
+    };
+    
+    // La tabla de sorteos se actualiza al cierre de cada uno, sin esperar al hilo de 100 s
+    final PlanificadorCierres.Oyente OyenteCierre = new PlanificadorCierres.Oyente()
+    {
+        public void Cerrado(Horario Sorteo, LocalDateTime Momento)
+        {
+            MostrarTabla();
+            Exposicion.Recargar();
+        }
+    };
     
     Date fechaHTTP, FechaGeneral;
     
-    DecimalFormat Convertir = new DecimalFormat("###,###.##");
+    
+    PanelExposicion Exposicion = new PanelExposicion();
     
     public FrmPrincipal() {
         
         initComponents();
+        // La tabla de horarios comparte su lugar con el panel de exposicion
+        JTabbedPane Pestanas = new JTabbedPane();
+        ((GroupLayout) jPanel1.getLayout()).replace(jScrollPane2, Pestanas);
+        Pestanas.addTab("Horarios", jScrollPane2);
+        Pestanas.addTab("Exposición", Exposicion);
+        // "Realizar Pagos" no tiene evento en el formulario
+        jMenuItem9.addActionListener(new ActionListener()
+        {
+            public void actionPerformed(ActionEvent evt)
+            {
+                FrmDPagarJuego Pagar = new FrmDPagarJuego(FrmPrincipal.this, rootPaneCheckingEnabled);
+                Pagar.Mostrar(SucJuegos);
+                Pagar.setVisible(true);
+            }
+        });
+        // "Cerrar Juego" tampoco
+        jMenuItem10.addActionListener(new ActionListener()
+        {
+            public void actionPerformed(ActionEvent evt)
+            {
+                CerrarJuego();
+            }
+        });
         try
         {
             UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
@@ -592,8 +657,15 @@ public class FrmPrincipal extends javax.swing.JFrame {
                     {                        
                         Ingreso = false;
                         Thread.sleep(100_000);
-                        MostrarTabla();
-                        MostrarGanadores(FechaJuego);
+                        // Las tablas se arman en el hilo de Swing; las consultas van al EjecutorBD
+                        SwingUtilities.invokeLater(new Runnable()
+                        {
+                            public void run()
+                            {
+                                MostrarTabla();
+                                MostrarGanadores(FechaJuego);
+                            }
+                        });
                         System.out.println("Entro Actualizar 100 ms");
                     }
                     catch (Exception err)
@@ -612,11 +684,118 @@ public class FrmPrincipal extends javax.swing.JFrame {
     }
     
     
+    public void Mostrar(String Sucursal, String Usuario)
+    {
+        UsuarioP = Usuario;
+        Mostrar(Sucursal);
+    }
+    
     public void Mostrar(String Sucursal)
     {
         SucJuegos = Sucursal;
         JlSucursal.setText("Sucura@l : "+Sucursal);
-        this.setTitle("Lotto Animal - Ruleta v. 1.0"+ "Sucura@l : "+Sucursal);
+        Titular();
+    }
+    
+    void Titular()
+    {
+        this.setTitle("Lotto Animal - Ruleta v. 1.0"+ "Sucura@l : "+SucJuegos+EstadoBD);
+    }
+    
+    /**
+     * Cierre de un sorteo de hoy en esta sucursal con MotorCierre: se elige
+     * el sorteo, se muestran las cifras de los acumulados y, confirmadas,
+     * se guarda la fila de cierrejuego.
+     */
+    void CerrarJuego()
+    {
+        final String Sucursal = SucJuegos;
+        EjecutorBD.Ejecutar(this, new TareaBD<Catalogo>()
+        {
+            public Catalogo Consultar() throws Exception
+            {
+                return Catalogo.Actual();
+            }
+            
+            public void Mostrar(Catalogo Cat)
+            {
+                Integer Codigo = Cat.Sucursales().Codigo(Sucursal);
+                if (Codigo == null)
+                {
+                    JOptionPane.showMessageDialog(null, "La sucursal "+Sucursal+" no existe en BODEGAS ...");
+                    return;
+                }
+                Object Opciones[] = Cat.Horarios().toArray();
+                Horario Sorteo = (Horario) JOptionPane.showInputDialog(FrmPrincipal.this, "Horario de Juego a cerrar:",
+                        "Cerrar Juego", JOptionPane.QUESTION_MESSAGE, null, Opciones, null);
+                if (Sorteo != null)
+                {
+                    RevisarCierre(LocalDate.now(), Sorteo, Codigo);
+                }
+            }
+        });
+    }
+    
+    void RevisarCierre(final LocalDate Fecha, final Horario Sorteo, final int Sucursal)
+    {
+        EjecutorBD.Ejecutar(this, ConeBD, new TareaBD<Cierre>()
+        {
+            public Cierre Consultar() throws Exception
+            {
+                return Cierres.Vista(Fecha, Sorteo.Num(), Sucursal);
+            }
+            
+            public void Mostrar(Cierre Cie)
+            {
+                if (Cie.CodigoGanador() == null)
+                {
+                    JOptionPane.showMessageDialog(null, "El Horario de Juego "+Sorteo+" aun no tiene resultado ...");
+                    return;
+                }
+                int Respuesta = JOptionPane.showConfirmDialog(FrmPrincipal.this, "Cierre de "+Sorteo+" del "+Fecha
+                        +"\nGanador: "+Cie.AnimalGanador()
+                        +"\nTotal apostado $ "+Dinero.Texto(Cie.Apostado())
+                        +"\nPago ganadores $ "+Dinero.Texto(Cie.PagoPotencial())
+                        +"\nPagado $ "+Dinero.Texto(Cie.Pagado())
+                        +"\nAdmin. sucursal $ "+Dinero.Texto(Cie.AdminSucursal())
+                        +"\nUtilidad $ "+Dinero.Texto(Cie.UtilidadReal())
+                        +"\n\nCerrar el juego?", "Cerrar Juego", JOptionPane.YES_NO_OPTION);
+                if (Respuesta == JOptionPane.YES_OPTION)
+                {
+                    GuardarCierre(Fecha, Sorteo, Sucursal);
+                }
+            }
+            
+            public void Fallo(Exception err)
+            {
+                err.printStackTrace();
+                JOptionPane.showMessageDialog(null, "No fue posible consultar el cierre ...\n"+err.getMessage());
+            }
+        });
+    }
+    
+    void GuardarCierre(final LocalDate Fecha, final Horario Sorteo, final int Sucursal)
+    {
+        final String Usuario = UsuarioP;
+        EjecutorBD.Ejecutar(this, ConeBD, new TareaBD<Cierre>()
+        {
+            public Cierre Consultar() throws Exception
+            {
+                return Cierres.Cerrar(Fecha, Sorteo.Num(), Sucursal, Usuario, "");
+            }
+            
+            public void Mostrar(Cierre Cie)
+            {
+                JOptionPane.showMessageDialog(null, "Horario de Juego "+Sorteo+" cerrado, utilidad $ "
+                        +Dinero.Texto(Cie.UtilidadReal())+" ...");
+            }
+            
+            public void Fallo(Exception err)
+            {
+                err.printStackTrace();
+                JOptionPane.showMessageDialog(null, "No fue posible cerrar el juego ...\n"+err.getMessage());
+            }
+        });
     }
     
     void MostrarHora()
@@ -635,8 +814,6 @@ public class FrmPrincipal extends javax.swing.JFrame {
     
     void MostrarGanadores(String Fecha)
     {
-        String SqlMostrarGanadores = "";
-        
         TablaGanadores.clearSelection();
         DatosLottoG = new DefaultTableModel();
         TablaGanadores.setModel(DatosLottoG);
@@ -647,67 +824,63 @@ public class FrmPrincipal extends javax.swing.JFrame {
         DatosLottoG.addColumn("Hora");
         DatosLottoG.addColumn("Hora Jugada");
         
-        try
+        // Primera pagina de lo liquidado del dia (GanadoresDAO); la pantalla
+        // principal se refresca sola y no pide las siguientes
+        final LocalDate FechaG = LocalDate.parse(Fecha);
+        final DefaultTableModel Modelo = DatosLottoG;
+        final int Limite = EjecutorBD.Limite();
+        EjecutorBD.Ejecutar(this, ConeBD, new TareaBD<List<Ganador>>()
         {
-            SqlMostrarGanadores = "SELECT hislottojuego.RADICADO AS NUMJUEGO, hislottojuego.CODANIMAL AS CODA,"
-                    + " hislottojuego.ANIMAL AS NOMANIMAL, hislottojuego.VALOR AS VALORJ,"
-                    + " hislottojuego.FECHA AS FECHA, hislottojuego.HORA AS HORAJ, ingresarganadores.DESCRIOCIONH AS HORAJUEGO"
-                    + " FROM hislottojuego, ingresarganadores"
-                    + " WHERE"
-                    + " ingresarganadores.CODIGOA = hislottojuego.CODANIMAL AND ingresarganadores.CODIGOH = hislottojuego.CODIGOJ AND"
-                    + " ingresarganadores.FECHA = '"+Fecha+"' AND hislottojuego.FECHA = '"+Fecha+"' AND hislottojuego.ESTADOP = 'A'";
-            ConeBD.RstBD = (ResultSet) ConeBD.StmBD.executeQuery(SqlMostrarGanadores);
-            System.out.println(SqlMostrarGanadores);
-            while (ConeBD.RstBD.next())
+            public List<Ganador> Consultar() throws Exception
             {
-                DatLottoG[0] = ConeBD.RstBD.getString("NUMJUEGO");
-                DatLottoG[1] = ConeBD.RstBD.getString("NOMANIMAL");
-                DatLottoG[2] = String.valueOf(Convertir.format(ConeBD.RstBD.getDouble("VALORJ")));
-                DatLottoG[3] = String.valueOf(ConeBD.RstBD.getDate("FECHA"));
-                DatLottoG[4] = String.valueOf(ConeBD.RstBD.getTime("HORAJ"));
-                DatLottoG[5] = ConeBD.RstBD.getString("HORAJUEGO");
-                DatosLottoG.addRow(DatLottoG);
-                
-                int anchoColumna1 = 0;
-                JViewport scroll1 =  (JViewport) TablaGanadores.getParent();
-                int ancho1 = scroll1.getWidth();
-                TableColumnModel modeloColumna1 = TablaGanadores.getColumnModel();
-                TableColumn columnaTabla1;                
-                for (int j = 0; j < TablaGanadores.getColumnCount(); j++)
+                return Ganadores.DelDia(FechaG, Limite);
+            }
+            
+            public void Mostrar(List<Ganador> Filas)
+            {
+                for (Ganador Gan : Filas)
                 {
-                    columnaTabla1 = modeloColumna1.getColumn(j);
-                    switch(j)
-                    {
-                        case 0: anchoColumna1 = (30*ancho1)/100;
-                            break;
-                        case 1: anchoColumna1 = (30*ancho1)/100;
-                            break;
-                        case 2: anchoColumna1 = (30*ancho1)/100;
-                            break;
-                        case 3: anchoColumna1 = (30*ancho1)/100;
-                            break;
-                        case 4: anchoColumna1 = (30*ancho1)/100;
-                            break;
-                        case 5: anchoColumna1 = (70*ancho1)/100;
-                            break;
-                    }
-                    columnaTabla1.setPreferredWidth(anchoColumna1);
+                    Modelo.addRow(new Object[] {Gan.Radicado(), Gan.Animal(), Dinero.Texto(Gan.Valor()),
+                        String.valueOf(Gan.Fecha()), String.valueOf(Gan.Hora()), Gan.Horario()});
                 }
+                AnchoGanadores();
             }
-        }
-        catch (Exception err)
+        });
+    }
+    
+    void AnchoGanadores()
+    {
+        int anchoColumna1 = 0;
+        JViewport scroll1 =  (JViewport) TablaGanadores.getParent();
+        int ancho1 = scroll1.getWidth();
+        TableColumnModel modeloColumna1 = TablaGanadores.getColumnModel();
+        TableColumn columnaTabla1;                
+        for (int j = 0; j < TablaGanadores.getColumnCount(); j++)
         {
-            err.printStackTrace();
+            columnaTabla1 = modeloColumna1.getColumn(j);
+            switch(j)
+            {
+                case 0: anchoColumna1 = (30*ancho1)/100;
+                    break;
+                case 1: anchoColumna1 = (30*ancho1)/100;
+                    break;
+                case 2: anchoColumna1 = (30*ancho1)/100;
+                    break;
+                case 3: anchoColumna1 = (30*ancho1)/100;
+                    break;
+                case 4: anchoColumna1 = (30*ancho1)/100;
+                    break;
+                case 5: anchoColumna1 = (70*ancho1)/100;
+                    break;
+            }
+            columnaTabla1.setPreferredWidth(anchoColumna1);
         }
     }
     
     void MostrarTabla()
     {        
-        Formato = new SimpleDateFormat("HH:mm:ss");
-        Reloj = new java.util.Date();
-        String Hora = (Formato.format(Reloj));
+        final LocalTime Hora = LocalTime.now().withNano(0);
         
-        String SqlMostrarTabla = "";
         TablaHorario.clearSelection();
         DatosHorarioLotto =  new DefaultTableModel();
         TablaHorario.setModel(DatosHorarioLotto);
@@ -716,60 +889,63 @@ public class FrmPrincipal extends javax.swing.JFrame {
         DatosHorarioLotto.addColumn("Des. Juego");
         DatosHorarioLotto.addColumn("Hota Juego");
         
-        try
+        final DefaultTableModel Modelo = DatosHorarioLotto;
+        EjecutorBD.Ejecutar(this, ConeBD, new TareaBD<List<Horario>>()
         {
-            SqlMostrarTabla = "SELECT * FROM horariojuego WHERE (HORA >= '"+Hora+"') AND ESTADO = 'A' ORDER BY NUM";
-            //SqlMostrarTabla = "SELECT * FROM horariojuego WHERE ESTADO = 'A' ORDER BY NUM";
-            System.out.println(SqlMostrarTabla);
-            ConeBD.RstBD = (ResultSet) ConeBD.StmBD.executeQuery(SqlMostrarTabla);
-            while (ConeBD.RstBD.next())
+            public List<Horario> Consultar() throws Exception
             {
-                DatHorarioLotto[0] = String.valueOf(ConeBD.RstBD.getInt("NUM"));
-                DatHorarioLotto[1] = ConeBD.RstBD.getString("DESCRIPCION");
-                DatHorarioLotto[2] = String.valueOf(ConeBD.RstBD.getTime("HORA"));
-                DatosHorarioLotto.addRow(DatHorarioLotto);
-                
-                int anchoColumna1 = 0;
-                JViewport scroll1 =  (JViewport) TablaHorario.getParent();
-                int ancho1 = scroll1.getWidth();
-                TableColumnModel modeloColumna1 = TablaHorario.getColumnModel();
-                TableColumn columnaTabla1;                
-                for (int j = 0; j < TablaHorario.getColumnCount(); j++)
+                return Catalogo.Actual().Linea().Abiertos(Hora, LineaSorteos.Margen());
+            }
+            
+            public void Mostrar(List<Horario> Lista)
+            {
+                for (Horario Hor : Lista)
                 {
-                    columnaTabla1 = modeloColumna1.getColumn(j);
-                    switch(j)
-                    {
-                        case 0: anchoColumna1 = (15*ancho1)/100;
-                            break;
-                        case 1: anchoColumna1 = (80*ancho1)/100;
-                            break;
-                        case 2: anchoColumna1 = (30*ancho1)/100;
-                            break;
-                    }
-                    columnaTabla1.setPreferredWidth(anchoColumna1);
+                    Modelo.addRow(new Object[] {String.valueOf(Hor.Num()), Hor.Descripcion(), Hor.HoraTexto()});
                 }
-                
+                AnchoHorario();
             }
-        }
-        catch (Exception err)
+        });
+    }
+    
+    void AnchoHorario()
+    {
+        int anchoColumna1 = 0;
+        JViewport scroll1 =  (JViewport) TablaHorario.getParent();
+        int ancho1 = scroll1.getWidth();
+        TableColumnModel modeloColumna1 = TablaHorario.getColumnModel();
+        TableColumn columnaTabla1;                
+        for (int j = 0; j < TablaHorario.getColumnCount(); j++)
         {
-            err.printStackTrace();
-        }        
+            columnaTabla1 = modeloColumna1.getColumn(j);
+            switch(j)
+            {
+                case 0: anchoColumna1 = (15*ancho1)/100;
+                    break;
+                case 1: anchoColumna1 = (80*ancho1)/100;
+                    break;
+                case 2: anchoColumna1 = (30*ancho1)/100;
+                    break;
+            }
+            columnaTabla1.setPreferredWidth(anchoColumna1);
+        }
     }
     
     void SalirSistema()
     {
-        System.exit(0);
         try
         {
-            ConeBD.RstBD.close();
-            ConeBD.StmBD.close();
-            ConeBD.BD.close();
+            MonitorConexion.Principal().Quitar(OyenteBD);
+            PlanificadorCierres.Principal().Quitar(OyenteCierre);
+            Exposicion.Detener();
+            ConeBD.Liberar();
+            PoolConexiones.CerrarTodo();
         }
         catch (Exception err)
         {
             err.printStackTrace();
         }
+        System.exit(0);
     }
     
     
@@ -815,30 +991,56 @@ public class FrmPrincipal extends javax.swing.JFrame {
         java.util.Date Fecha = new java.util.Date();
         
         MostrarHora();
-        ConeBD.Coneccion_BD();
+        EjecutorBD.Conectar(this, ConeBD);
+        MonitorConexion.Principal().Agregar(OyenteBD);
+        PlanificadorCierres.Principal().Agregar(OyenteCierre);
+        Exposicion.Iniciar();
         
-                
-        // Probar método HTTP
-        fechaHTTP = obtenerFechaDesdeHTTP();
-        if (fechaHTTP != null) 
+        // Lo apostado hoy por sorteo y animal, antes de empezar a vender
+        EjecutorBD.Ejecutar(this, ConeBD, new TareaBD<Void>()
         {
-            //FECHA DE INTERNET
-            System.out.println("Conexion HTTP");
-            FechaGeneral = fechaHTTP;
-            FechaF = String.valueOf(formato.format(fechaHTTP));
-        }
-        else
-        {
-            //FECHA LOCAL
-            System.out.println("Conexion LOCAL");            
-            FechaGeneral = Fecha;
-            FechaF = String.valueOf(formato.format(Fecha));            
-        }
+            public Void Consultar() throws SQLException
+            {
+                MotorExposicion.Principal().Reconstruir(ConeBD, LocalDate.now());
+                return null;
+            }
+        });
+        
+        //FECHA LOCAL mientras responde la fecha de internet
+        FechaGeneral = Fecha;
+        FechaF = String.valueOf(formato.format(Fecha));            
         FechaJuego = String.valueOf(F.format(Fecha));
         JlFecha.setText(FechaF);
         MostrarTabla();
         MostrarGanadores(FechaJuego);
         
+        // Probar método HTTP
+        final SimpleDateFormat FormatoHTTP = formato;
+        EjecutorBD.Ejecutar(this, new TareaBD<Date>()
+        {
+            public Date Consultar()
+            {
+                return obtenerFechaDesdeHTTP();
+            }
+            
+            public void Mostrar(Date Resultado)
+            {
+                fechaHTTP = Resultado;
+                if (fechaHTTP != null) 
+                {
+                    //FECHA DE INTERNET
+                    System.out.println("Conexion HTTP");
+                    FechaGeneral = fechaHTTP;
+                    FechaF = String.valueOf(FormatoHTTP.format(fechaHTTP));
+                    JlFecha.setText(FechaF);
+                }
+                else
+                {
+                    System.out.println("Conexion LOCAL");            
+                }
+            }
+        });
+        
     }//GEN-LAST:event_formWindowOpened
 
     private void jButton1ActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jButton1ActionPerformed
@@ -871,6 +1073,7 @@ public class FrmPrincipal extends javax.swing.JFrame {
     private void jMenuItem16ActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jMenuItem16ActionPerformed
         
         FrmDAnularJuego Anu  = new FrmDAnularJuego(this, rootPaneCheckingEnabled);
+        Anu.Mostrar(SucJuegos, UsuarioP);
         Anu.setVisible(true);
     }//GEN-LAST:event_jMenuItem16ActionPerformed
 
@@ -0,0 +1,51 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package Ruleta;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Convierte cada fila de una consulta recorrida con Conexion.Recorrer() en
+ * un objeto, sin guardar el ResultSet completo. Recibir() decide si se
+ * sigue leyendo, para cortar la consulta en un limite de pantalla.
+ *
+ * @author DESINCO
+ */
+public abstract class LectorFilas<T> {
+
+    /**
+     * Lee la fila actual. No debe mover el cursor.
+     */
+    public abstract T Mapear(ResultSet Rst) throws SQLException;
+
+    /**
+     * Recibe la fila ya convertida; devolver false termina la lectura.
+     */
+    public boolean Recibir(T Fila)
+    {
+        return true;
+    }
+
+    /**
+     * Fila como arreglo con el texto de las columnas indicadas, en ese
+     * orden; es lo que piden los DefaultTableModel de las ventanas.
+     */
+    public static LectorFilas<String[]> Textos(final String... Columnas)
+    {
+        return new LectorFilas<String[]>()
+        {
+            public String[] Mapear(ResultSet Rst) throws SQLException
+            {
+                String Fila[] = new String[Columnas.length];
+                for (int x = 0; x < Columnas.length; x++)
+                {
+                    Fila[x] = Rst.getString(Columnas[x]);
+                }
+                return Fila;
+            }
+        };
+    }
+}
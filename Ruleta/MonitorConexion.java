@@ -0,0 +1,254 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package Ruleta;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.SwingUtilities;
+
+/**
+ * Vigila la conexion con la base de datos desde un hilo propio. Mientras
+ * hay servicio prueba cada pocos segundos una conexion propia, fuera del
+ * pool (un pool agotado por las ventanas no es una base caida); cuando se
+ * cae reintenta con espera exponencial hasta que vuelve, sin que nadie
+ * tenga que reiniciar la terminal. Las ventanas se enteran del estado por
+ * medio de un Oyente en lugar de mensajes modales.
+ *
+ * @author DESINCO
+ */
+public class MonitorConexion {
+
+    private static final Logger REGISTRO = Logger.getLogger(MonitorConexion.class.getName());
+
+    public enum Estado { INICIANDO, CONECTADO, RECONECTANDO }
+
+    /**
+     * Recibe los cambios de estado en el hilo de Swing.
+     */
+    public interface Oyente {
+        void Cambio(Estado Nuevo, String Mensaje);
+    }
+
+    private static MonitorConexion Principal;
+
+    private final CopyOnWriteArrayList<Oyente> Oyentes = new CopyOnWriteArrayList<Oyente>();
+    private final ScheduledExecutorService Hilo;
+    private ScheduledFuture<?> Proxima;
+    private volatile Estado Actual = Estado.INICIANDO;
+    private volatile String Mensaje = "Conectando BD lotto...";
+    private long Espera = 1_000;
+    private int Intentos = 0;
+    // Conexion de la sonda y el pool del que salio; solo las toca el hilo
+    private Connection Sonda;
+    private PoolConexiones Origen;
+
+    private MonitorConexion()
+    {
+        Hilo = Executors.newSingleThreadScheduledExecutor(new ThreadFactory()
+        {
+            public Thread newThread(Runnable r)
+            {
+                Thread Nuevo = new Thread(r, "MonitorConexion");
+                Nuevo.setDaemon(true);
+                return Nuevo;
+            }
+        });
+    }
+
+    public static synchronized MonitorConexion Principal()
+    {
+        if (Principal == null)
+        {
+            Principal = new MonitorConexion();
+            Principal.Programar(0);
+        }
+        return Principal;
+    }
+
+    public Estado EstadoActual()
+    {
+        return Actual;
+    }
+
+    public String Mensaje()
+    {
+        return Mensaje;
+    }
+
+    public boolean Conectado()
+    {
+        return Actual == Estado.CONECTADO;
+    }
+
+    /**
+     * Registra un oyente y le envia de inmediato el estado actual.
+     */
+    public void Agregar(final Oyente Nuevo)
+    {
+        Oyentes.addIfAbsent(Nuevo);
+        final Estado Est = Actual;
+        final String Msg = Mensaje;
+        SwingUtilities.invokeLater(new Runnable()
+        {
+            public void run()
+            {
+                Nuevo.Cambio(Est, Msg);
+            }
+        });
+    }
+
+    public void Quitar(Oyente Viejo)
+    {
+        Oyentes.remove(Viejo);
+    }
+
+    /**
+     * Aviso de una consulta que fallo por la conexion: adelanta la revision
+     * para no esperar al siguiente ciclo.
+     */
+    public synchronized void Reportar(Throwable Causa)
+    {
+        if (Actual == Estado.CONECTADO)
+        {
+            REGISTRO.log(Level.WARNING, "Falla reportada - {0}", Causa);
+            Programar(0);
+        }
+    }
+
+    /**
+     * True si la excepcion indica que se perdio la conexion (SQLState 08xxx)
+     * y no un error de la consulta misma.
+     */
+    public static boolean EsCaida(SQLException Err)
+    {
+        for (SQLException E = Err; E != null; E = E.getNextException())
+        {
+            String Sql = E.getSQLState();
+            if ((Sql != null && Sql.startsWith("08")) || E instanceof java.sql.SQLRecoverableException
+                    || E instanceof java.sql.SQLNonTransientConnectionException)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private synchronized void Programar(long Millis)
+    {
+        if (Proxima != null)
+        {
+            Proxima.cancel(false);
+        }
+        Proxima = Hilo.schedule(new Runnable()
+        {
+            public void run()
+            {
+                Revisar();
+            }
+        }, Millis, TimeUnit.MILLISECONDS);
+    }
+
+    private void Revisar()
+    {
+        int ValidacionSegundos = ConfiguracionBD.Actual().Entero("lotto.pool.validacion.s");
+        try
+        {
+            Conexion.IniciarPool();
+            PoolConexiones Pool = PoolConexiones.Principal();
+            if (Origen != Pool)
+            {
+                // Se recargo la configuracion: la sonda sigue al pool nuevo
+                CerrarSonda();
+            }
+            if (Sonda == null)
+            {
+                Sonda = Pool.Abrir();
+                Origen = Pool;
+            }
+            if (!Sonda.isValid(ValidacionSegundos))
+            {
+                throw new SQLException("La conexion no respondio en " + ValidacionSegundos + " s", "08S01");
+            }
+            Exito();
+        }
+        catch (Exception err)
+        {
+            CerrarSonda();
+            Falla(err);
+        }
+    }
+
+    private void CerrarSonda()
+    {
+        if (Sonda != null)
+        {
+            try
+            {
+                Sonda.close();
+            }
+            catch (SQLException err)
+            {
+                // Ya estaba muerta
+            }
+        }
+        Sonda = null;
+        Origen = null;
+    }
+
+    private synchronized void Exito()
+    {
+        if (Actual != Estado.CONECTADO)
+        {
+            Espera = ConfiguracionBD.Actual().Largo("lotto.monitor.espera.minima.ms");
+            Intentos = 0;
+            Cambiar(Estado.CONECTADO, "Conexion Exitosa BD lotto...");
+        }
+        Programar(ConfiguracionBD.Actual().Largo("lotto.monitor.revision.ms"));
+    }
+
+    private synchronized void Falla(Exception Causa)
+    {
+        if (Actual == Estado.CONECTADO)
+        {
+            // Las conexiones libres quedaron con el socket muerto
+            PoolConexiones Pool = PoolConexiones.Principal();
+            if (Pool != null)
+            {
+                Pool.Purgar();
+            }
+            Espera = ConfiguracionBD.Actual().Largo("lotto.monitor.espera.minima.ms");
+            Intentos = 0;
+        }
+        Intentos++;
+        REGISTRO.log(Level.WARNING, "Intento {0} fallido - {1}", new Object[] {Intentos, Causa.getMessage()});
+        Cambiar(Estado.RECONECTANDO, "Sin Conexión BD lotto... reintento " + Intentos + " en " + (Espera / 1000) + " s");
+        Programar(Espera);
+        Espera = Math.min(Espera * 2, ConfiguracionBD.Actual().Largo("lotto.monitor.espera.maxima.ms"));
+    }
+
+    private void Cambiar(final Estado Nuevo, final String Texto)
+    {
+        Actual = Nuevo;
+        Mensaje = Texto;
+        SwingUtilities.invokeLater(new Runnable()
+        {
+            public void run()
+            {
+                for (Oyente Oye : Oyentes)
+                {
+                    Oye.Cambio(Nuevo, Texto);
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,334 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package Ruleta;
+
+import Ruleta.Datos.Animal;
+import Ruleta.Datos.Catalogo;
+import Ruleta.Datos.Dinero;
+import Ruleta.Datos.Horario;
+import Ruleta.Datos.LineaSorteos;
+import Ruleta.Datos.MotorExposicion;
+import Ruleta.Datos.Parametros;
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.Timer;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.table.DefaultTableCellRenderer;
+
+/**
+ * Lo apostado hoy a cada animal en los sorteos abiertos y lo que se pagaria
+ * si sale, de mayor a menor, con el fondo mas rojo cuanto mas cerca esta del
+ * mayor riesgo. Los datos salen de MotorExposicion: cada venta solo anota el
+ * animal y sorteo que cambiaron, y un Timer de Swing aplica lo anotado a lo
+ * sumo REPINTADO_MS, de modo que miles de ventas por minuto se vuelven unos
+ * pocos repintados por segundo y ninguna consulta a la base de datos.
+ * <p>
+ * Muestra lo que ve esta terminal: la reconstruccion al abrir mas lo que se
+ * vende aqui.
+ *
+ * @author DESINCO
+ */
+public class PanelExposicion extends JPanel {
+
+    public static final int REPINTADO_MS = 250;
+
+    private static final String COLUMNAS[] = {"Sorteo", "Hora", "Codigo", "Animal", "Apostado $", "Pago posible $"};
+
+    private static final class Fila {
+        final Horario Sorteo;
+        final String CodAnimal;
+        final String Animal;
+        long Apostado;
+
+        Fila(Horario Sorteo, String CodAnimal, String Animal)
+        {
+            this.Sorteo = Sorteo;
+            this.CodAnimal = CodAnimal;
+            this.Animal = Animal;
+        }
+    }
+
+    // Mayor apostado primero; a igual valor, el sorteo mas cercano
+    private static final Comparator<Fila> RIESGO = new Comparator<Fila>()
+    {
+        public int compare(Fila A, Fila B)
+        {
+            int Cmp = Long.compare(B.Apostado, A.Apostado);
+            if (Cmp == 0)
+            {
+                Cmp = A.Sorteo.Hora().compareTo(B.Sorteo.Hora());
+            }
+            return Cmp != 0 ? Cmp : A.CodAnimal.compareTo(B.CodAnimal);
+        }
+    };
+
+    private final MotorExposicion Motor;
+    private final JTable Tabla = new JTable();
+    private final Timer Repintar;
+
+    // Escritos por los hilos de venta, leidos por el Timer
+    private final Set<String> Pendientes = ConcurrentHashMap.newKeySet();
+    private volatile boolean Completo = true;
+    private volatile LocalDate Dia = LocalDate.now();
+
+    // Solo en el hilo de Swing
+    private final List<Fila> Filas = new ArrayList<Fila>();
+    private final Map<String, Fila> Indice = new HashMap<String, Fila>();
+    private final Map<Integer, Horario> Abiertos = new HashMap<Integer, Horario>();
+    private int PuntosPago = 0;
+    private long Mayor = 0;
+    private boolean Cargando = false;
+
+    private final AbstractTableModel Modelo = new AbstractTableModel()
+    {
+        public int getRowCount()
+        {
+            return Filas.size();
+        }
+
+        public int getColumnCount()
+        {
+            return COLUMNAS.length;
+        }
+
+        @Override
+        public String getColumnName(int Columna)
+        {
+            return COLUMNAS[Columna];
+        }
+
+        public Object getValueAt(int Renglon, int Columna)
+        {
+            Fila Fil = Filas.get(Renglon);
+            switch (Columna)
+            {
+                case 0: return Fil.Sorteo.Descripcion();
+                case 1: return Fil.Sorteo.HoraTexto();
+                case 2: return Fil.CodAnimal;
+                case 3: return Fil.Animal;
+                case 4: return Dinero.Texto(Fil.Apostado);
+                default: return Dinero.Texto(Fil.Apostado * PuntosPago);
+            }
+        }
+    };
+
+    private final MotorExposicion.Oyente OyenteVentas = new MotorExposicion.Oyente()
+    {
+        public void Sumado(LocalDate Fecha, int CodigoJ, String CodAnimal)
+        {
+            if (Fecha.equals(Dia))
+            {
+                Pendientes.add(CodigoJ + "|" + CodAnimal);
+            }
+        }
+
+        public void Reconstruido(LocalDate Fecha)
+        {
+            Completo = true;
+        }
+    };
+
+    private final Catalogo.Oyente OyenteCatalogo = new Catalogo.Oyente()
+    {
+        public void Recargado(Catalogo Nuevo)
+        {
+            Completo = true;
+        }
+    };
+
+    public PanelExposicion()
+    {
+        this(MotorExposicion.Principal());
+    }
+
+    public PanelExposicion(MotorExposicion Motor)
+    {
+        super(new BorderLayout());
+        this.Motor = Motor;
+        Tabla.setModel(Modelo);
+        Tabla.setRowHeight(35);
+        Tabla.setFont(new java.awt.Font("Tahoma", 0, 14));
+        Tabla.setDefaultRenderer(Object.class, new DefaultTableCellRenderer()
+        {
+            @Override
+            public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected,
+                    boolean hasFocus, int row, int column)
+            {
+                super.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
+                if (!isSelected)
+                {
+                    setBackground(Calor(Filas.get(row).Apostado));
+                }
+                setHorizontalAlignment(column >= 4 ? RIGHT : LEFT);
+                return this;
+            }
+        });
+        add(new JScrollPane(Tabla), BorderLayout.CENTER);
+        Repintar = new Timer(REPINTADO_MS, new ActionListener()
+        {
+            public void actionPerformed(ActionEvent evt)
+            {
+                Aplicar();
+            }
+        });
+    }
+
+    public void Iniciar()
+    {
+        Motor.Agregar(OyenteVentas);
+        Catalogo.Agregar(OyenteCatalogo);
+        Completo = true;
+        Repintar.start();
+    }
+
+    public void Detener()
+    {
+        Repintar.stop();
+        Motor.Quitar(OyenteVentas);
+        Catalogo.Quitar(OyenteCatalogo);
+    }
+
+    /**
+     * Vuelve a tomar los sorteos abiertos y PUNTOSPAGO en el siguiente
+     * repintado (al cerrar un sorteo).
+     */
+    public void Recargar()
+    {
+        Completo = true;
+    }
+
+    private void Aplicar()
+    {
+        if (!LocalDate.now().equals(Dia))
+        {
+            Completo = true;
+        }
+        if (Completo)
+        {
+            Cargar();
+            return;
+        }
+        if (Pendientes.isEmpty())
+        {
+            return;
+        }
+        Catalogo Cat = Catalogo.Cargado();
+        LocalDate Fecha = Dia;
+        for (Iterator<String> It = Pendientes.iterator(); It.hasNext();)
+        {
+            String Clave = It.next();
+            It.remove();
+            Fila Fil = Indice.get(Clave);
+            if (Fil == null)
+            {
+                int Pos = Clave.indexOf('|');
+                Horario Sorteo = Abiertos.get(Integer.valueOf(Clave.substring(0, Pos)));
+                if (Sorteo == null)
+                {
+                    // Sorteo ya cerrado o de otro dia de juego
+                    continue;
+                }
+                Fil = Nueva(Cat, Sorteo, Clave.substring(Pos + 1));
+            }
+            Fil.Apostado = Motor.Apostado(Fecha, Fil.Sorteo.Num(), Fil.CodAnimal);
+        }
+        Ordenar();
+    }
+
+    // Sorteos abiertos y PUNTOSPAGO salen de caches que no se leen en el hilo de Swing
+    private void Cargar()
+    {
+        if (Cargando)
+        {
+            return;
+        }
+        Cargando = true;
+        Completo = false;
+        final LocalTime Hora = LocalTime.now();
+        EjecutorBD.Ejecutar(this, new TareaBD<Object[]>()
+        {
+            public Object[] Consultar() throws Exception
+            {
+                return new Object[] {Catalogo.Actual().Linea().Abiertos(Hora, LineaSorteos.Margen()),
+                    Parametros.Actual().PuntosPago()};
+            }
+
+            @SuppressWarnings("unchecked")
+            public void Mostrar(Object[] Datos)
+            {
+                Cargando = false;
+                Llenar((List<Horario>) Datos[0], (Integer) Datos[1]);
+            }
+
+            public void Fallo(Exception err)
+            {
+                Cargando = false;
+                Completo = true;
+                err.printStackTrace();
+            }
+        });
+    }
+
+    private void Llenar(List<Horario> Sorteos, int Puntos)
+    {
+        Dia = LocalDate.now();
+        // Lo que llegue desde aqui ya queda en la lectura o vuelve a anotarse
+        Pendientes.clear();
+        PuntosPago = Puntos;
+        Abiertos.clear();
+        Indice.clear();
+        Filas.clear();
+        Catalogo Cat = Catalogo.Cargado();
+        for (Horario Sorteo : Sorteos)
+        {
+            Abiertos.put(Sorteo.Num(), Sorteo);
+            for (Map.Entry<String, Long> Ent : Motor.Apostados(Dia, Sorteo.Num()).entrySet())
+            {
+                Nueva(Cat, Sorteo, Ent.getKey()).Apostado = Ent.getValue();
+            }
+        }
+        Ordenar();
+    }
+
+    private Fila Nueva(Catalogo Cat, Horario Sorteo, String CodAnimal)
+    {
+        Animal Ani = Cat == null ? null : Cat.Animal(CodAnimal);
+        Fila Fil = new Fila(Sorteo, CodAnimal, Ani == null ? CodAnimal : Ani.Nombre());
+        Indice.put(Sorteo.Num() + "|" + CodAnimal, Fil);
+        Filas.add(Fil);
+        return Fil;
+    }
+
+    private void Ordenar()
+    {
+        Collections.sort(Filas, RIESGO);
+        Mayor = Filas.isEmpty() ? 0 : Filas.get(0).Apostado;
+        Modelo.fireTableDataChanged();
+    }
+
+    // Blanco sin apuestas, rojo para el animal con mas riesgo
+    private Color Calor(long Apostado)
+    {
+        int Tono = Mayor <= 0 ? 0 : (int) (Math.max(0, Apostado) * 200 / Mayor);
+        return new Color(255, 255 - Tono, 255 - Tono);
+    }
+}
@@ -0,0 +1,240 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package Ruleta;
+
+import Ruleta.Datos.Catalogo;
+import Ruleta.Datos.Horario;
+import Ruleta.Datos.LineaSorteos;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.PriorityQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import javax.swing.SwingUtilities;
+
+/**
+ * Cierra la venta de cada sorteo en el segundo exacto: un solo hilo toma de
+ * una cola de prioridad el cierre mas cercano (hora del sorteo menos
+ * lotto.sorteo.cierre.s), duerme hasta ese momento y avisa a los oyentes.
+ * A la medianoche arma la cola del dia siguiente, y cuando el Catalogo se
+ * recarga la vuelve a armar con los horarios nuevos.
+ * <p>
+ * La hora viene de un Reloj; con Reloj.Simulado y Correr() se recorre un
+ * dia completo de sorteos en milisegundos.
+ *
+ * @author DESINCO
+ */
+public class PlanificadorCierres {
+
+    /**
+     * Recibe cada cierre por el Executor de entrega (el hilo de Swing en el
+     * planificador principal).
+     */
+    public interface Oyente {
+        void Cerrado(Horario Sorteo, LocalDateTime Momento);
+    }
+
+    private static final class Cierre implements Comparable<Cierre> {
+        final LocalDateTime Momento;
+        // null = medianoche, armar el dia siguiente
+        final Horario Sorteo;
+
+        Cierre(LocalDateTime Momento, Horario Sorteo)
+        {
+            this.Momento = Momento;
+            this.Sorteo = Sorteo;
+        }
+
+        public int compareTo(Cierre Otro)
+        {
+            return Momento.compareTo(Otro.Momento);
+        }
+    }
+
+    private static PlanificadorCierres Principal;
+
+    private final Reloj Tiempo;
+    private final Executor Entrega;
+    private final CopyOnWriteArrayList<Oyente> Oyentes = new CopyOnWriteArrayList<Oyente>();
+    private final Object Monitor = new Object();
+    // Protegidos por Monitor
+    private final PriorityQueue<Cierre> Cola = new PriorityQueue<Cierre>();
+    private LineaSorteos Linea;
+    private int Margen;
+
+    public PlanificadorCierres(Reloj Tiempo, Executor Entrega, int Margen)
+    {
+        this.Tiempo = Tiempo;
+        this.Entrega = Entrega;
+        this.Margen = Margen;
+    }
+
+    /**
+     * Planificador del proceso con la hora del sistema, alimentado por el
+     * Catalogo; avisa en el hilo de Swing.
+     */
+    public static synchronized PlanificadorCierres Principal()
+    {
+        if (Principal == null)
+        {
+            final PlanificadorCierres Nuevo = new PlanificadorCierres(Reloj.SISTEMA, new Executor()
+            {
+                public void execute(Runnable Tarea)
+                {
+                    SwingUtilities.invokeLater(Tarea);
+                }
+            }, LineaSorteos.Margen());
+            Catalogo.Agregar(new Catalogo.Oyente()
+            {
+                public void Recargado(Catalogo Cat)
+                {
+                    Nuevo.Programar(Cat.Linea(), LineaSorteos.Margen());
+                }
+            });
+            Catalogo Cat = Catalogo.Cargado();
+            if (Cat != null)
+            {
+                Nuevo.Programar(Cat.Linea(), LineaSorteos.Margen());
+            }
+            Thread Hilo = new Thread(new Runnable()
+            {
+                public void run()
+                {
+                    Nuevo.Correr(LocalDateTime.MAX);
+                }
+            }, "PlanificadorCierres");
+            Hilo.setDaemon(true);
+            Hilo.start();
+            Principal = Nuevo;
+        }
+        return Principal;
+    }
+
+    public void Agregar(Oyente Nuevo)
+    {
+        Oyentes.addIfAbsent(Nuevo);
+    }
+
+    public void Quitar(Oyente Viejo)
+    {
+        Oyentes.remove(Viejo);
+    }
+
+    /**
+     * Reemplaza los horarios y rearma la cola desde la hora actual; los
+     * sorteos que ya cerraron no se vuelven a avisar.
+     */
+    public void Programar(LineaSorteos Nueva, int NuevoMargen)
+    {
+        synchronized (Monitor)
+        {
+            Linea = Nueva;
+            Margen = NuevoMargen;
+            Armar(Tiempo.Ahora());
+            Monitor.notifyAll();
+        }
+    }
+
+    /**
+     * Proximo cierre pendiente, o null si no hay horarios.
+     */
+    public LocalDateTime ProximoCierre()
+    {
+        synchronized (Monitor)
+        {
+            LocalDateTime Menor = null;
+            for (Cierre Cie : Cola)
+            {
+                if (Cie.Sorteo != null && (Menor == null || Cie.Momento.isBefore(Menor)))
+                {
+                    Menor = Cie.Momento;
+                }
+            }
+            return Menor;
+        }
+    }
+
+    /**
+     * Atiende los cierres hasta la hora dada, en el hilo que llama. El
+     * planificador principal lo corre sin fin en su propio hilo.
+     */
+    public void Correr(LocalDateTime Hasta)
+    {
+        try
+        {
+            while (true)
+            {
+                Cierre Prox;
+                synchronized (Monitor)
+                {
+                    Prox = Cola.peek();
+                    if (Prox == null)
+                    {
+                        // Aun no hay catalogo: Programar() despierta
+                        Monitor.wait();
+                        continue;
+                    }
+                    if (Prox.Momento.isAfter(Hasta))
+                    {
+                        return;
+                    }
+                    if (Tiempo.Ahora().isBefore(Prox.Momento))
+                    {
+                        Tiempo.Esperar(Monitor, Prox.Momento);
+                        continue;
+                    }
+                    Cola.poll();
+                    if (Prox.Sorteo == null)
+                    {
+                        Armar(Prox.Momento);
+                        continue;
+                    }
+                }
+                Avisar(Prox);
+            }
+        }
+        catch (InterruptedException err)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Cierres del dia de Desde que aun no pasan, mas la medianoche siguiente
+    private void Armar(LocalDateTime Desde)
+    {
+        Cola.clear();
+        if (Linea == null)
+        {
+            return;
+        }
+        LocalDate Dia = Desde.toLocalDate();
+        for (Horario Sorteo : Linea.Abiertos(Desde.toLocalTime(), Margen))
+        {
+            Cola.add(new Cierre(Dia.atTime(Sorteo.Hora().minusSeconds(Margen)), Sorteo));
+        }
+        Cola.add(new Cierre(Dia.plusDays(1).atStartOfDay(), null));
+    }
+
+    private void Avisar(final Cierre Cie)
+    {
+        for (final Oyente Oye : Oyentes)
+        {
+            Entrega.execute(new Runnable()
+            {
+                public void run()
+                {
+                    try
+                    {
+                        Oye.Cerrado(Cie.Sorteo, Cie.Momento);
+                    }
+                    catch (Exception err)
+                    {
+                        err.printStackTrace();
+                    }
+                }
+            });
+        }
+    }
+}
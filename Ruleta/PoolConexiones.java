@@ -0,0 +1,527 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package Ruleta;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Pool de conexiones compartido por todo el proceso. Las ventanas piden
+ * prestada una conexion con Prestar() y la devuelven al cerrarla; el
+ * close() de la conexion prestada no cierra el socket, la regresa al pool.
+ *
+ * @author DESINCO
+ */
+public class PoolConexiones {
+
+    private static final Logger REGISTRO = Logger.getLogger(PoolConexiones.class.getName());
+
+    private static PoolConexiones Principal;
+    // Pool de solo lectura contra la replica (ver ReplicaBD), si existe
+    private static PoolConexiones Replica;
+
+    private final String Url;
+    private final String Usuario;
+    private final String Clave;
+
+    private final int Minimo;
+    private final int Maximo;
+    private final long EsperaMillis;
+    private final long InactivaMillis;
+    private final long FugaMillis;
+    private final int ValidacionSegundos;
+    private final int SentenciasPorConexion = ConfiguracionBD.Actual().Entero("lotto.pool.sentencias");
+
+    // Conexiones libres al frente las mas recientes, para reusar las "calientes"
+    private final LinkedBlockingDeque<ConexionFisica> Libres = new LinkedBlockingDeque<ConexionFisica>();
+    private final Set<ConexionFisica> Prestadas = ConcurrentHashMap.newKeySet();
+    private final Semaphore Cupos;
+    private final AtomicInteger Total = new AtomicInteger();
+    private final ScheduledExecutorService Mantenimiento;
+    private volatile boolean Cerrado = false;
+
+    public PoolConexiones(String Url, String Usuario, String Clave, int Minimo, int Maximo,
+            long EsperaMillis, long InactivaMillis, long FugaMillis, int ValidacionSegundos)
+    {
+        this.Url = Url;
+        this.Usuario = Usuario;
+        this.Clave = Clave;
+        this.Minimo = Minimo;
+        this.Maximo = Maximo;
+        this.EsperaMillis = EsperaMillis;
+        this.InactivaMillis = InactivaMillis;
+        this.FugaMillis = FugaMillis;
+        this.ValidacionSegundos = ValidacionSegundos;
+        this.Cupos = new Semaphore(Maximo, true);
+
+        Mantenimiento = Executors.newSingleThreadScheduledExecutor(new ThreadFactory()
+        {
+            public Thread newThread(Runnable r)
+            {
+                Thread Hilo = new Thread(r, "PoolConexiones-Mantenimiento");
+                Hilo.setDaemon(true);
+                return Hilo;
+            }
+        });
+        Mantenimiento.scheduleWithFixedDelay(new Runnable()
+        {
+            public void run()
+            {
+                Mantener();
+            }
+        }, 30, 30, TimeUnit.SECONDS);
+    }
+
+    public static synchronized boolean Iniciado()
+    {
+        return Principal != null;
+    }
+
+    public static synchronized void Iniciar(String Url, String Usuario, String Clave)
+    {
+        if (Principal == null)
+        {
+            ConfiguracionBD Conf = ConfiguracionBD.Actual();
+            Principal = new PoolConexiones(Url, Usuario, Clave, Conf.Entero("lotto.pool.minimo"), Conf.Entero("lotto.pool.maximo"),
+                    Conf.Largo("lotto.pool.espera.ms"), Conf.Largo("lotto.pool.inactiva.ms"), Conf.Largo("lotto.pool.fuga.ms"),
+                    Conf.Entero("lotto.pool.validacion.s"));
+            Principal.Llenar();
+            ConfiguracionBD.Agregar(Recarga);
+        }
+    }
+
+    public static synchronized void IniciarReplica(String Url, String Usuario, String Clave)
+    {
+        if (Replica == null)
+        {
+            ConfiguracionBD Conf = ConfiguracionBD.Actual();
+            Replica = new PoolConexiones(Url, Usuario, Clave, 1, Conf.Entero("lotto.replica.pool.maximo"),
+                    Conf.Largo("lotto.pool.espera.ms"), Conf.Largo("lotto.pool.inactiva.ms"), Conf.Largo("lotto.pool.fuga.ms"),
+                    Conf.Entero("lotto.pool.validacion.s"));
+            Replica.Llenar();
+            ConfiguracionBD.Agregar(Recarga);
+        }
+    }
+
+    /**
+     * Si cambia la base, las credenciales o el tamaño del pool, el pool
+     * actual se retira y el siguiente Prestar() arranca uno nuevo con la
+     * configuracion recargada. Las conexiones prestadas siguen sirviendo
+     * hasta que su ventana las devuelve.
+     */
+    private static final ConfiguracionBD.Oyente Recarga = new ConfiguracionBD.Oyente()
+    {
+        public void Recargada(ConfiguracionBD Anterior, ConfiguracionBD Nueva)
+        {
+            boolean Pool = Anterior.Cambio(Nueva, "lotto.pool.");
+            PoolConexiones Viejo = null, ViejaReplica = null;
+            synchronized (PoolConexiones.class)
+            {
+                if (Pool || Anterior.Cambio(Nueva, "lotto.bd."))
+                {
+                    Viejo = Principal;
+                    Principal = null;
+                }
+                if (Pool || Anterior.Cambio(Nueva, "lotto.replica."))
+                {
+                    ViejaReplica = Replica;
+                    Replica = null;
+                }
+            }
+            if (Viejo != null)
+            {
+                Viejo.Retirar();
+            }
+            if (ViejaReplica != null)
+            {
+                ViejaReplica.Retirar();
+            }
+        }
+    };
+
+    public static synchronized PoolConexiones Principal()
+    {
+        return Principal;
+    }
+
+    public static synchronized PoolConexiones Replica()
+    {
+        return Replica;
+    }
+
+    public static synchronized void CerrarTodo()
+    {
+        if (Principal != null)
+        {
+            Principal.Cerrar();
+            Principal = null;
+        }
+        if (Replica != null)
+        {
+            Replica.Cerrar();
+            Replica = null;
+        }
+    }
+
+    /**
+     * Entrega una conexion validada. Espera hasta EsperaMillis si el pool
+     * esta en su tamaño maximo y todas las conexiones estan prestadas.
+     */
+    public Connection Prestar() throws SQLException
+    {
+        if (Cerrado)
+        {
+            throw new SQLException("El pool de conexiones esta cerrado");
+        }
+        try
+        {
+            if (!Cupos.tryAcquire(EsperaMillis, TimeUnit.MILLISECONDS))
+            {
+                throw new SQLException("Tiempo de espera agotado (" + EsperaMillis + " ms) para obtener una conexion del pool");
+            }
+        }
+        catch (InterruptedException err)
+        {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrumpido esperando una conexion del pool", err);
+        }
+
+        try
+        {
+            ConexionFisica Con;
+            while ((Con = Libres.pollFirst()) != null)
+            {
+                if (Validar(Con))
+                {
+                    break;
+                }
+                Descartar(Con);
+            }
+            if (Con == null)
+            {
+                Con = Crear();
+            }
+            Con.Prestada = System.currentTimeMillis();
+            Con.Origen = new Throwable("Conexion prestada en " + Thread.currentThread().getName());
+            Con.Avisada = false;
+            Prestadas.add(Con);
+            return Con.Envolver();
+        }
+        catch (SQLException err)
+        {
+            Cupos.release();
+            throw err;
+        }
+        catch (RuntimeException err)
+        {
+            Cupos.release();
+            throw err;
+        }
+    }
+
+    /**
+     * Conexion directa con los datos del pool pero fuera de sus cupos, para
+     * quien no debe competir con las ventanas por una conexion
+     * (MonitorConexion). Quien la abre la cierra.
+     */
+    public Connection Abrir() throws SQLException
+    {
+        if (Cerrado)
+        {
+            throw new SQLException("El pool de conexiones esta cerrado");
+        }
+        return DriverManager.getConnection(Url, Usuario, Clave);
+    }
+
+    /**
+     * Cache de sentencias preparadas de la conexion fisica detras de una
+     * conexion prestada por este pool.
+     */
+    public static CacheSentencias Sentencias(Connection Prestada) throws SQLException
+    {
+        if (Prestada != null && Proxy.isProxyClass(Prestada.getClass())
+                && Proxy.getInvocationHandler(Prestada) instanceof ConexionFisica)
+        {
+            ConexionFisica Con = (ConexionFisica) Proxy.getInvocationHandler(Prestada);
+            if (Prestada.isClosed())
+            {
+                throw new SQLException("La conexion ya fue devuelta al pool");
+            }
+            return Con.Sentencias;
+        }
+        throw new SQLException("La conexion no pertenece al pool");
+    }
+
+    /**
+     * Marca la conexion prestada como rota: al devolverla se cierra en vez
+     * de regresar a las libres.
+     */
+    public static void Invalidar(Connection Prestada)
+    {
+        if (Prestada != null && Proxy.isProxyClass(Prestada.getClass())
+                && Proxy.getInvocationHandler(Prestada) instanceof ConexionFisica)
+        {
+            ((ConexionFisica) Proxy.getInvocationHandler(Prestada)).Rota = true;
+        }
+    }
+
+    /**
+     * Cierra todas las conexiones libres. Lo usa MonitorConexion despues de
+     * una caida, cuando los sockets que quedaron en el pool ya no sirven.
+     */
+    public void Purgar()
+    {
+        ConexionFisica Con;
+        while ((Con = Libres.pollFirst()) != null)
+        {
+            Descartar(Con);
+        }
+    }
+
+    public int Libres()
+    {
+        return Libres.size();
+    }
+
+    public int EnUso()
+    {
+        return Prestadas.size();
+    }
+
+    public void Cerrar()
+    {
+        Cerrado = true;
+        Mantenimiento.shutdownNow();
+        ConexionFisica Con;
+        while ((Con = Libres.pollFirst()) != null)
+        {
+            Descartar(Con);
+        }
+        for (ConexionFisica Pre : Prestadas)
+        {
+            Descartar(Pre);
+        }
+        Prestadas.clear();
+    }
+
+    // Como Cerrar(), pero las prestadas se cierran cuando las devuelven
+    void Retirar()
+    {
+        Cerrado = true;
+        Mantenimiento.shutdownNow();
+        Purgar();
+    }
+
+    void Devolver(ConexionFisica Con)
+    {
+        if (!Prestadas.remove(Con))
+        {
+            return;
+        }
+        try
+        {
+            if (!Cerrado && !Con.Rota && !Con.Fisica.isClosed())
+            {
+                if (!Con.Fisica.getAutoCommit())
+                {
+                    Con.Fisica.rollback();
+                    Con.Fisica.setAutoCommit(true);
+                }
+                Con.UltimoUso = System.currentTimeMillis();
+                Libres.offerFirst(Con);
+            }
+            else
+            {
+                Descartar(Con);
+            }
+        }
+        catch (SQLException err)
+        {
+            Descartar(Con);
+        }
+        finally
+        {
+            Cupos.release();
+        }
+    }
+
+    private boolean Validar(ConexionFisica Con)
+    {
+        // Una conexion usada hace menos de medio segundo no se vuelve a validar
+        if (System.currentTimeMillis() - Con.UltimoUso < 500)
+        {
+            return true;
+        }
+        try
+        {
+            return Con.Fisica.isValid(ValidacionSegundos);
+        }
+        catch (SQLException err)
+        {
+            return false;
+        }
+    }
+
+    private ConexionFisica Crear() throws SQLException
+    {
+        Connection Fisica = DriverManager.getConnection(Url, Usuario, Clave);
+        Total.incrementAndGet();
+        return new ConexionFisica(Fisica);
+    }
+
+    private void Descartar(ConexionFisica Con)
+    {
+        Total.decrementAndGet();
+        try
+        {
+            Con.Sentencias.Limpiar();
+            Con.Fisica.close();
+        }
+        catch (SQLException err)
+        {
+            err.printStackTrace();
+        }
+    }
+
+    private void Llenar()
+    {
+        try
+        {
+            while (Total.get() < Minimo)
+            {
+                ConexionFisica Con = Crear();
+                Con.UltimoUso = System.currentTimeMillis();
+                Libres.offerLast(Con);
+            }
+        }
+        catch (SQLException err)
+        {
+            REGISTRO.log(Level.WARNING, "No fue posible abrir las conexiones minimas: {0}", err.getMessage());
+        }
+    }
+
+    private void Mantener()
+    {
+        long Ahora = System.currentTimeMillis();
+
+        // Retira las conexiones inactivas por encima del minimo, empezando por las mas viejas
+        Iterator<ConexionFisica> It = Libres.descendingIterator();
+        while (It.hasNext() && Total.get() > Minimo)
+        {
+            ConexionFisica Con = It.next();
+            if (Ahora - Con.UltimoUso > InactivaMillis && Libres.remove(Con))
+            {
+                Descartar(Con);
+            }
+        }
+
+        // Deteccion de fugas: conexiones prestadas hace demasiado tiempo
+        for (ConexionFisica Con : Prestadas)
+        {
+            if (!Con.Avisada && Ahora - Con.Prestada > FugaMillis)
+            {
+                Con.Avisada = true;
+                // El origen lleva la pila de quien tomo la conexion
+                REGISTRO.log(Level.WARNING, "Posible fuga, conexion prestada hace " + ((Ahora - Con.Prestada) / 1000) + " s",
+                        Con.Origen);
+            }
+        }
+
+        if (!Cerrado)
+        {
+            Llenar();
+        }
+    }
+
+    /**
+     * Conexion fisica administrada por el pool y el proxy que se entrega a
+     * las ventanas en cada prestamo.
+     */
+    final class ConexionFisica implements InvocationHandler {
+
+        final Connection Fisica;
+        final CacheSentencias Sentencias;
+        volatile long UltimoUso;
+        volatile long Prestada;
+        volatile Throwable Origen;
+        volatile boolean Avisada;
+        volatile boolean Rota;
+        private volatile Connection Actual;
+
+        ConexionFisica(Connection Fisica)
+        {
+            this.Fisica = Fisica;
+            this.Sentencias = new CacheSentencias(Fisica, SentenciasPorConexion);
+        }
+
+        Connection Envolver()
+        {
+            Actual = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[] { Connection.class }, this);
+            return Actual;
+        }
+
+        public Object invoke(Object Prox, Method Metodo, Object[] Args) throws Throwable
+        {
+            String Nombre = Metodo.getName();
+            boolean Vigente = (Prox == Actual);
+
+            if (Nombre.equals("close"))
+            {
+                if (Vigente)
+                {
+                    Actual = null;
+                    Devolver(this);
+                }
+                return null;
+            }
+            if (Nombre.equals("isClosed"))
+            {
+                return !Vigente || Fisica.isClosed();
+            }
+            if (Nombre.equals("equals"))
+            {
+                return Prox == Args[0];
+            }
+            if (Nombre.equals("hashCode"))
+            {
+                return System.identityHashCode(Prox);
+            }
+            if (Nombre.equals("toString"))
+            {
+                return "Pool[" + Fisica + "]";
+            }
+            if (!Vigente)
+            {
+                throw new SQLException("La conexion ya fue devuelta al pool");
+            }
+            try
+            {
+                return Metodo.invoke(Fisica, Args);
+            }
+            catch (InvocationTargetException err)
+            {
+                throw err.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package Ruleta;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Hora que usa PlanificadorCierres. SISTEMA espera de verdad; Simulado
+ * salta directo a la hora pedida, para recorrer un dia de sorteos en unos
+ * milisegundos.
+ *
+ * @author DESINCO
+ */
+public interface Reloj {
+
+    LocalDateTime Ahora();
+
+    /**
+     * Espera hasta la hora dada. Se llama con el monitor tomado y puede
+     * volver antes si otro hilo hace notifyAll() sobre el.
+     */
+    void Esperar(Object Monitor, LocalDateTime Hasta) throws InterruptedException;
+
+    Reloj SISTEMA = new Reloj()
+    {
+        public LocalDateTime Ahora()
+        {
+            return LocalDateTime.now();
+        }
+
+        public void Esperar(Object Monitor, LocalDateTime Hasta) throws InterruptedException
+        {
+            long Millis = Duration.between(LocalDateTime.now(), Hasta).toMillis();
+            if (Millis > 0)
+            {
+                Monitor.wait(Millis);
+            }
+        }
+    };
+
+    /**
+     * Reloj de prueba: la hora solo avanza cuando alguien espera.
+     */
+    final class Simulado implements Reloj {
+
+        private LocalDateTime Actual;
+
+        public Simulado(LocalDateTime Inicio)
+        {
+            this.Actual = Inicio;
+        }
+
+        public synchronized LocalDateTime Ahora()
+        {
+            return Actual;
+        }
+
+        public synchronized void Esperar(Object Monitor, LocalDateTime Hasta)
+        {
+            if (Hasta.isAfter(Actual))
+            {
+                Actual = Hasta;
+            }
+        }
+    }
+}
@@ -0,0 +1,246 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package Ruleta;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Decide si las lecturas de reportes pueden ir a la replica. Un hilo propio
+ * mide el retraso de replicacion (Seconds_Behind_Source) y la replica solo
+ * se usa mientras responde y el retraso no pasa de
+ * lotto.replica.retraso.maximo.s; si no, las lecturas vuelven a la
+ * principal hasta la siguiente revision.
+ *
+ * @author DESINCO
+ */
+public class ReplicaBD {
+
+    private static final Logger REGISTRO = Logger.getLogger(ReplicaBD.class.getName());
+
+    private static ReplicaBD Principal;
+
+    private final ScheduledExecutorService Hilo;
+    private ScheduledFuture<?> Proxima;
+    private volatile boolean Vigente = false;
+    private volatile long Retraso = -1;
+    private boolean AvisoSinReplicacion = false;
+
+    private ReplicaBD()
+    {
+        Hilo = Executors.newSingleThreadScheduledExecutor(new ThreadFactory()
+        {
+            public Thread newThread(Runnable r)
+            {
+                Thread Nuevo = new Thread(r, "ReplicaBD");
+                Nuevo.setDaemon(true);
+                return Nuevo;
+            }
+        });
+    }
+
+    public static synchronized ReplicaBD Principal()
+    {
+        if (Principal == null)
+        {
+            Principal = new ReplicaBD();
+            Principal.Programar(0);
+        }
+        return Principal;
+    }
+
+    public static boolean Configurada()
+    {
+        return !ConfiguracionBD.Actual().UrlReplica().isEmpty();
+    }
+
+    /**
+     * True si la ultima revision encontro la replica al dia.
+     */
+    public boolean Disponible()
+    {
+        return Vigente && Configurada();
+    }
+
+    /**
+     * Retraso medido en segundos, o -1 si no se pudo medir.
+     */
+    public long Retraso()
+    {
+        return Retraso;
+    }
+
+    /**
+     * Presta una conexion de solo lectura de la replica.
+     */
+    public Connection Prestar() throws SQLException
+    {
+        PoolConexiones Pool = PoolConexiones.Replica();
+        if (Pool == null)
+        {
+            Iniciar();
+            Pool = PoolConexiones.Replica();
+        }
+        Connection Con = Pool.Prestar();
+        try
+        {
+            Con.setReadOnly(true);
+        }
+        catch (SQLException err)
+        {
+            Con.close();
+            throw err;
+        }
+        return Con;
+    }
+
+    /**
+     * Una consulta a la replica fallo: se deja de usar hasta la revision
+     * siguiente, que se adelanta.
+     */
+    public synchronized void Reportar(Throwable Causa)
+    {
+        if (Vigente)
+        {
+            REGISTRO.log(Level.WARNING, "Falla reportada, las lecturas vuelven a la principal - {0}", Causa);
+            Vigente = false;
+            Programar(0);
+        }
+    }
+
+    private static void Iniciar()
+    {
+        ConfiguracionBD Conf = ConfiguracionBD.Actual();
+        Conf.CargarDriver();
+        PoolConexiones.IniciarReplica(Conexion.Propiedades(Conf.UrlReplica()), Conf.UsuarioReplica(), Conf.ClaveReplica());
+    }
+
+    private synchronized void Programar(long Millis)
+    {
+        if (Proxima != null)
+        {
+            Proxima.cancel(false);
+        }
+        Proxima = Hilo.schedule(new Runnable()
+        {
+            public void run()
+            {
+                Revisar();
+            }
+        }, Millis, TimeUnit.MILLISECONDS);
+    }
+
+    private void Revisar()
+    {
+        ConfiguracionBD Conf = ConfiguracionBD.Actual();
+        try
+        {
+            if (!Configurada())
+            {
+                Vigente = false;
+                return;
+            }
+            Connection Con = Prestar();
+            try
+            {
+                Retraso = MedirRetraso(Con);
+            }
+            finally
+            {
+                Con.close();
+            }
+            boolean AlDia = Retraso >= 0 && Retraso <= Conf.Largo("lotto.replica.retraso.maximo.s");
+            if (AlDia != Vigente)
+            {
+                REGISTRO.log(Level.INFO, "{0} (retraso {1} s)", new Object[] {
+                    AlDia ? "Lecturas a la replica" : "Lecturas a la principal", Retraso});
+            }
+            Vigente = AlDia;
+        }
+        catch (Exception err)
+        {
+            if (Vigente)
+            {
+                REGISTRO.log(Level.WARNING, "La replica no responde - {0}", err.getMessage());
+            }
+            Vigente = false;
+            Retraso = -1;
+        }
+        finally
+        {
+            Programar(Conf.Largo("lotto.replica.revision.ms"));
+        }
+    }
+
+    // Segundos de retraso; -1 si la replicacion esta detenida
+    private long MedirRetraso(Connection Con) throws SQLException
+    {
+        ResultSet Rst;
+        Statement Stm = Con.createStatement();
+        try
+        {
+            Rst = Stm.executeQuery("SHOW REPLICA STATUS");
+        }
+        catch (SQLException err)
+        {
+            // Servidores anteriores a MySQL 8.0.22 y MariaDB 10.5.1
+            Stm.close();
+            Stm = Con.createStatement();
+            try
+            {
+                Rst = Stm.executeQuery("SHOW SLAVE STATUS");
+            }
+            catch (SQLException err2)
+            {
+                Stm.close();
+                throw err2;
+            }
+        }
+        try
+        {
+            if (!Rst.next())
+            {
+                // Instancia sin replicacion (p. ej. una copia local de prueba)
+                if (!AvisoSinReplicacion)
+                {
+                    AvisoSinReplicacion = true;
+                    REGISTRO.warning("La replica no reporta estado de replicacion, se toma como al dia");
+                }
+                return 0;
+            }
+            long Segundos = Rst.getLong(Columna(Rst.getMetaData()));
+            return Rst.wasNull() ? -1 : Segundos;
+        }
+        finally
+        {
+            Stm.close();
+        }
+    }
+
+    // MySQL 8.0.22+ la llama Seconds_Behind_Source; MariaDB y los MySQL
+    // anteriores, Seconds_Behind_Master, aun con SHOW REPLICA STATUS
+    private static String Columna(ResultSetMetaData Meta) throws SQLException
+    {
+        for (int x = 1; x <= Meta.getColumnCount(); x++)
+        {
+            String Nombre = Meta.getColumnLabel(x);
+            if ("Seconds_Behind_Source".equalsIgnoreCase(Nombre) || "Seconds_Behind_Master".equalsIgnoreCase(Nombre))
+            {
+                return Nombre;
+            }
+        }
+        throw new SQLException("El estado de replicacion no trae Seconds_Behind_Source ni Seconds_Behind_Master");
+    }
+}
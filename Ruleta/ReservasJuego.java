@@ -0,0 +1,120 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package Ruleta;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+
+/**
+ * Tope de lo apostado a un animal en un sorteo, compartido por todas las
+ * terminales en la tabla reservasjuego. Cada jugada reserva su valor con un
+ * solo UPDATE condicionado (RESERVADO + valor <= tope): si otra caja se
+ * adelanto y ya no cabe, el UPDATE no toca la fila y la jugada se rechaza,
+ * sin bloqueos ni lecturas previas. Al guardar el ticket la reserva queda;
+ * si el ticket se abandona se libera.
+ *
+ * @author DESINCO
+ */
+public class ReservasJuego {
+
+    private static ReservasJuego Principal;
+
+    public static synchronized ReservasJuego Principal()
+    {
+        if (Principal == null)
+        {
+            Principal = new ReservasJuego();
+        }
+        return Principal;
+    }
+
+    /**
+     * Reserva Valor contra el tope del animal en el sorteo. Devuelve false
+     * si con esta jugada se pasaria del tope; Tope <= 0 es sin tope.
+     */
+    public boolean Reservar(LocalDate Fecha, int CodigoJ, String CodAnimal, long Valor, long Tope) throws SQLException
+    {
+        if (Tope <= 0)
+        {
+            return true;
+        }
+        // Conexion propia en autocommit, como SecuenciaRadicado: la fila
+        // queda bloqueada solo lo que dura el UPDATE
+        Conexion.IniciarPool();
+        Connection Con = PoolConexiones.Principal().Prestar();
+        try
+        {
+            if (Sumar(Con, Fecha, CodigoJ, CodAnimal, Valor, Tope))
+            {
+                return true;
+            }
+            // No cabe, o es la primera jugada a ese animal en el sorteo
+            return Sembrar(Con, Fecha, CodigoJ, CodAnimal) && Sumar(Con, Fecha, CodigoJ, CodAnimal, Valor, Tope);
+        }
+        finally
+        {
+            Con.close();
+        }
+    }
+
+    /**
+     * Devuelve una reserva de una jugada que no llego a guardarse.
+     */
+    public void Liberar(LocalDate Fecha, int CodigoJ, String CodAnimal, long Valor) throws SQLException
+    {
+        Conexion.IniciarPool();
+        Connection Con = PoolConexiones.Principal().Prestar();
+        try
+        {
+            PreparedStatement Sentencia = PoolConexiones.Sentencias(Con).Obtener(
+                    "UPDATE reservasjuego SET RESERVADO = GREATEST(RESERVADO - ?, 0)"
+                    + " WHERE FECHA = ? AND CODIGOJ = ? AND CODANIMAL = ?");
+            Sentencia.setLong(1, Valor);
+            Sentencia.setDate(2, java.sql.Date.valueOf(Fecha));
+            Sentencia.setInt(3, CodigoJ);
+            Sentencia.setString(4, CodAnimal);
+            Sentencia.executeUpdate();
+        }
+        finally
+        {
+            Con.close();
+        }
+    }
+
+    // Compara y suma en la misma sentencia; false si no cabe o no hay fila
+    private boolean Sumar(Connection Con, LocalDate Fecha, int CodigoJ, String CodAnimal, long Valor, long Tope)
+            throws SQLException
+    {
+        PreparedStatement Sentencia = PoolConexiones.Sentencias(Con).Obtener(
+                "UPDATE reservasjuego SET RESERVADO = RESERVADO + ?"
+                + " WHERE FECHA = ? AND CODIGOJ = ? AND CODANIMAL = ? AND RESERVADO + ? <= ?");
+        Sentencia.setLong(1, Valor);
+        Sentencia.setDate(2, java.sql.Date.valueOf(Fecha));
+        Sentencia.setInt(3, CodigoJ);
+        Sentencia.setString(4, CodAnimal);
+        Sentencia.setLong(5, Valor);
+        Sentencia.setLong(6, Tope);
+        return Sentencia.executeUpdate() > 0;
+    }
+
+    // Crea la fila con lo ya vendido en hislottojuego para ese animal y
+    // sorteo; false si ya existia (la jugada no cabe)
+    private boolean Sembrar(Connection Con, LocalDate Fecha, int CodigoJ, String CodAnimal) throws SQLException
+    {
+        PreparedStatement Sentencia = PoolConexiones.Sentencias(Con).Obtener(
+                "INSERT IGNORE INTO reservasjuego (FECHA, CODIGOJ, CODANIMAL, RESERVADO)"
+                + " SELECT ?, ?, ?, IFNULL(ROUND(SUM(VALOR)), 0) FROM hislottojuego"
+                + " WHERE FECHA = ? AND CODIGOJ = ? AND CODANIMAL = ? AND ESTADOP = 'A'");
+        Sentencia.setDate(1, java.sql.Date.valueOf(Fecha));
+        Sentencia.setInt(2, CodigoJ);
+        Sentencia.setString(3, CodAnimal);
+        Sentencia.setDate(4, java.sql.Date.valueOf(Fecha));
+        Sentencia.setInt(5, CodigoJ);
+        Sentencia.setString(6, CodAnimal);
+        return Sentencia.executeUpdate() > 0;
+    }
+}
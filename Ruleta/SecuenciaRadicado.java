@@ -0,0 +1,163 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package Ruleta;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+
+/**
+ * Asigna los numeros de radicado desde el contador de la tabla consecutivos.
+ * Cada terminal reserva un bloque de numeros con un solo UPDATE y los va
+ * entregando en memoria, de modo que dos cajas nunca reciben el mismo numero
+ * y la venta no tiene que recorrer jugarlotto con MAX(NUM).
+ *
+ * @author DESINCO
+ */
+public class SecuenciaRadicado {
+
+    public static final int ANCHO = 8;
+    public static final String RADICADO = "RADICADO";
+
+    private static SecuenciaRadicado Radicado;
+
+    private final String Nombre;
+    // 0 = el tamaño de lotto.radicado.bloque en la configuracion vigente
+    private final int Bloque;
+
+    // Bloque reservado: Proximo..Limite inclusive
+    private long Proximo = 1;
+    private long Limite = 0;
+    // Numeros entregados y no usados (ventana cerrada sin guardar)
+    private final ArrayDeque<Long> Devueltos = new ArrayDeque<Long>();
+
+    public SecuenciaRadicado(String Nombre, int Bloque)
+    {
+        this.Nombre = Nombre;
+        this.Bloque = Bloque;
+    }
+
+    public static synchronized SecuenciaRadicado Radicado()
+    {
+        if (Radicado == null)
+        {
+            Radicado = new SecuenciaRadicado(RADICADO, 0);
+        }
+        return Radicado;
+    }
+
+    /**
+     * Entrega el siguiente numero libre. Solo va a la base de datos cuando
+     * se agota el bloque reservado.
+     */
+    public synchronized long Siguiente() throws SQLException
+    {
+        if (!Devueltos.isEmpty())
+        {
+            return Devueltos.pollFirst();
+        }
+        if (Proximo > Limite)
+        {
+            Reservar();
+        }
+        return Proximo++;
+    }
+
+    /**
+     * Regresa un numero que se entrego pero no llego a usarse, para que lo
+     * tome la siguiente venta de esta terminal.
+     */
+    public synchronized void Devolver(long Numero)
+    {
+        if (Numero > 0 && !Devueltos.contains(Numero))
+        {
+            Devueltos.offerFirst(Numero);
+        }
+    }
+
+    private void Reservar() throws SQLException
+    {
+        // Conexion propia en autocommit: el bloqueo de la fila del contador
+        // dura solo lo que tarda el UPDATE, no la transaccion del ticket
+        int Tamano = Bloque > 0 ? Bloque : Math.max(1, ConfiguracionBD.Actual().Entero("lotto.radicado.bloque"));
+        Conexion.IniciarPool();
+        Connection Con = PoolConexiones.Principal().Prestar();
+        try
+        {
+            long Ultimo = Avanzar(Con, Tamano);
+            if (Ultimo < 0)
+            {
+                Sembrar(Con);
+                Ultimo = Avanzar(Con, Tamano);
+            }
+            if (Ultimo < 0)
+            {
+                throw new SQLException("No existe el contador " + Nombre + " en la tabla consecutivos");
+            }
+            Limite = Ultimo;
+            Proximo = Ultimo - Tamano + 1;
+        }
+        finally
+        {
+            Con.close();
+        }
+    }
+
+    // Suma el bloque al contador y devuelve el nuevo valor, o -1 si no hay fila
+    private long Avanzar(Connection Con, int Tamano) throws SQLException
+    {
+        PreparedStatement Sentencia = PoolConexiones.Sentencias(Con).Obtener(
+                "UPDATE consecutivos SET VALOR = LAST_INSERT_ID(VALOR + ?) WHERE NOMBRE = ?");
+        Sentencia.setInt(1, Tamano);
+        Sentencia.setString(2, Nombre);
+        if (Sentencia.executeUpdate() == 0)
+        {
+            return -1;
+        }
+        ResultSet Rst = PoolConexiones.Sentencias(Con).Obtener("SELECT LAST_INSERT_ID()").executeQuery();
+        try
+        {
+            Rst.next();
+            return Rst.getLong(1);
+        }
+        finally
+        {
+            Rst.close();
+        }
+    }
+
+    // Crea la fila del contador a partir del mayor NUM o RADICADO existente,
+    // igual que create_consecutivos.sql
+    private void Sembrar(Connection Con) throws SQLException
+    {
+        PreparedStatement Sentencia = PoolConexiones.Sentencias(Con).Obtener(
+                "INSERT IGNORE INTO consecutivos (NOMBRE, VALOR) SELECT ?,"
+                + " GREATEST(IFNULL(MAX(NUM), 0), IFNULL(MAX(CAST(RADICADO AS UNSIGNED)), 0)) FROM jugarlotto");
+        Sentencia.setString(1, Nombre);
+        Sentencia.executeUpdate();
+    }
+
+    /**
+     * Escribe el numero con ceros a la izquierda en Destino[0..ANCHO) sin
+     * crear objetos intermedios.
+     */
+    public static void Formatear(long Numero, char[] Destino)
+    {
+        for (int x = ANCHO - 1; x >= 0; x--)
+        {
+            Destino[x] = (char) ('0' + (Numero % 10));
+            Numero /= 10;
+        }
+    }
+
+    public static String Formatear(long Numero)
+    {
+        char[] Destino = new char[ANCHO];
+        Formatear(Numero, Destino);
+        return new String(Destino);
+    }
+}
@@ -0,0 +1,34 @@
+/*
+ * To change this template, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package Ruleta;
+
+/**
+ * Trabajo de base de datos dividido en dos partes: Consultar() corre en un
+ * hilo del EjecutorBD y Mostrar() recibe el resultado en el hilo de Swing.
+ *
+ * @author DESINCO
+ */
+public abstract class TareaBD<T> {
+
+    /**
+     * Acceso a la base de datos. No debe tocar componentes de la ventana.
+     */
+    public abstract T Consultar() throws Exception;
+
+    /**
+     * Pinta el resultado; se llama en el hilo de eventos de Swing.
+     */
+    public void Mostrar(T Resultado)
+    {
+    }
+
+    /**
+     * Se llama en el hilo de eventos de Swing si Consultar() fallo.
+     */
+    public void Fallo(Exception err)
+    {
+        err.printStackTrace();
+    }
+}
@@ -221,7 +221,34 @@ function ejecutarAnulacion($conn, $radicado, $fecha, $motivo = null, $usuario =
             ];
         }
 
-        // 2. Actualizar hislottojuego
+        // 2. Restar de los acumulados del cierre las jugadas que siguen activas
+        $stmtAcum = $conn->prepare(
+            "INSERT INTO cierreacumulado (FECHA, CODIGOH, SUCURSAL, CODANIMAL, APOSTADO)
+             SELECT h.FECHA, h.CODIGOJ,
+                    COALESCE(b.CODIGO, IF(h.SUCURSAL REGEXP '^[0-9]+$', CAST(h.SUCURSAL AS UNSIGNED), 0)) AS CODSUC,
+                    h.CODANIMAL, -SUM(h.VALOR)
+             FROM hislottojuego h
+             LEFT JOIN bodegas b ON b.BODEGA = h.SUCURSAL
+             WHERE h.RADICADO = :radicado AND h.FECHA = :fecha AND h.ESTADOP = 'A' AND h.ESTADOC = 'A'
+             GROUP BY h.FECHA, h.CODIGOJ, CODSUC, h.CODANIMAL
+             ORDER BY h.CODIGOJ, h.CODANIMAL
+             ON DUPLICATE KEY UPDATE APOSTADO = APOSTADO + VALUES(APOSTADO)"
+        );
+        $stmtAcum->execute(['radicado' => $radicado, 'fecha' => $fecha]);
+
+        // 3. Devolver lo apostado al tope por animal (reservasjuego)
+        $stmtReservas = $conn->prepare(
+            "UPDATE reservasjuego r
+             JOIN (SELECT FECHA, CODIGOJ, CODANIMAL, SUM(VALOR) AS VALOR
+                   FROM hislottojuego
+                   WHERE RADICADO = :radicado AND FECHA = :fecha AND ESTADOP = 'A' AND ESTADOC = 'A'
+                   GROUP BY FECHA, CODIGOJ, CODANIMAL) h
+               ON r.FECHA = h.FECHA AND r.CODIGOJ = h.CODIGOJ AND r.CODANIMAL = h.CODANIMAL
+             SET r.RESERVADO = GREATEST(r.RESERVADO - ROUND(h.VALOR), 0)"
+        );
+        $stmtReservas->execute(['radicado' => $radicado, 'fecha' => $fecha]);
+
+        // 4. Actualizar hislottojuego
         $stmtUpdHis = $conn->prepare(
             "UPDATE hislottojuego
              SET ESTADOP = 'I', ESTADOC = 'I'
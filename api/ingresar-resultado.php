@@ -203,7 +203,9 @@ function guardarResultado($conn, $data) {
                 ];
             }*/
 
-            // Si la hora no ha pasado, actualizar el ganador existente
+            // Si la hora no ha pasado, actualizar el ganador existente y
+            // liquidarlo en la misma transaccion
+            $conn->beginTransaction();
             $stmtUpdate = $conn->prepare(
                 "UPDATE ingresarganadores
                  SET CODIGOA = :codigoA, ANIMAL = :animal
@@ -215,6 +217,8 @@ function guardarResultado($conn, $data) {
                 'codigoH' => $data['codigoHorario'],
                 'fecha'   => $data['fecha']
             ]);
+            liquidarSorteo($conn, $data['fecha'], $data['codigoHorario'], $data['codigoAnimal']);
+            $conn->commit();
 
             return [
                 'success' => true,
@@ -222,8 +226,10 @@ function guardarResultado($conn, $data) {
             ];
         }
 
-        // Insertar en ingresarganadores
+        // Insertar en ingresarganadores y liquidar en la misma transaccion:
+        // no queda un resultado sin sus ganadores
         // NOTA: Se usa DESCRIOCIONH respetando el nombre de la columna en el esquema SQL (posible typo original)
+        $conn->beginTransaction();
         $stmt = $conn->prepare(
             "INSERT INTO ingresarganadores (CODIGOA, ANIMAL, CODIGOH, DESCRIOCIONH, FECHA, ESTADO)
              VALUES (:codigoA, :animal, :codigoH, :descH, :fecha, 'A')"
@@ -236,6 +242,8 @@ function guardarResultado($conn, $data) {
             'descH'   => $data['descripcionHorario'],
             'fecha'   => $data['fecha']
         ]);
+        liquidarSorteo($conn, $data['fecha'], $data['codigoHorario'], $data['codigoAnimal']);
+        $conn->commit();
 
         return [
             'success' => true,
@@ -243,6 +251,9 @@ function guardarResultado($conn, $data) {
         ];
 
     } catch (PDOException $e) {
+        if ($conn->inTransaction()) {
+            $conn->rollBack();
+        }
         return [
             'success' => false,
             'error' => 'Error al guardar el resultado',
@@ -251,6 +262,38 @@ function guardarResultado($conn, $data) {
     }
 }
 
+/**
+ * Deja los tickets ganadores del sorteo en ganadoresliquidados, igual que
+ * MotorLiquidacion en la terminal: reemplaza lo liquidado antes para ese
+ * (fecha, horario), asi que corregir el resultado vuelve a liquidar. Corre
+ * dentro de la transaccion que guarda el resultado.
+ */
+function liquidarSorteo($conn, $fecha, $codigoH, $codigoA) {
+    $stmtPuntos = $conn->query("SELECT VALOR FROM parametros WHERE NOMBRE = 'PUNTOSPAGO' LIMIT 1");
+    $puntos = (int) ($stmtPuntos->fetchColumn() ?: 0);
+
+    $stmtBorrar = $conn->prepare("DELETE FROM ganadoresliquidados WHERE FECHA = :fecha AND CODIGOH = :codigoH");
+    $stmtBorrar->execute(['fecha' => $fecha, 'codigoH' => $codigoH]);
+
+    $stmtLiquidar = $conn->prepare(
+        "INSERT INTO ganadoresliquidados (FECHA, CODIGOH, RADICADO, CODANIMAL, ANIMAL,
+             DESJUEGO, VALOR, PUNTOSPAGO, PAGO, SUCURSAL, HORA, LIQUIDADO)
+         SELECT FECHA, CODIGOJ, RADICADO, CODANIMAL, MAX(ANIMAL), MAX(DESJUEGO), ROUND(SUM(VALOR)), :puntos,
+             ROUND(SUM(VALOR)) * :puntos2, MAX(SUCURSAL), MIN(HORA), NOW()
+         FROM hislottojuego
+         WHERE FECHA = :fecha AND CODIGOJ = :codigoH AND CODANIMAL = :codigoA AND ESTADOP = 'A'
+         GROUP BY FECHA, CODIGOJ, CODANIMAL, RADICADO"
+    );
+    $stmtLiquidar->execute([
+        'puntos'  => $puntos,
+        'puntos2' => $puntos,
+        'fecha'   => $fecha,
+        'codigoH' => $codigoH,
+        'codigoA' => $codigoA
+    ]);
+    return $stmtLiquidar->rowCount();
+}
+
 /**
  * Lista los resultados históricos (ganadores) agrupados por fecha
  */
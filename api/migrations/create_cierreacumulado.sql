@@ -0,0 +1,48 @@
+-- =====================================================
+-- MIGRACION: Acumulados del cierre
+-- Fecha: 2026-10-18
+-- Descripcion: Lo apostado y lo pagado por sorteo, sucursal y animal,
+--              sumado al guardar cada ticket o pago y restado al anular
+--              (MotorCierre en la terminal, realizar-juego.php,
+--              anular-juego.php y pagos.php en la api). El cierre lee
+--              estas filas en vez de recorrer hislottojuego y pagos.
+--              Los animales se guardan con el codigo de texto de
+--              hislottojuego, donde 0 y 00 son animales distintos.
+-- =====================================================
+
+CREATE TABLE IF NOT EXISTS cierreacumulado (
+    FECHA DATE NOT NULL,
+    CODIGOH INT NOT NULL,
+    SUCURSAL INT NOT NULL,
+    CODANIMAL VARCHAR(20) NOT NULL,
+    APOSTADO DECIMAL(14,2) NOT NULL DEFAULT 0,
+    PAGADO DECIMAL(14,2) NOT NULL DEFAULT 0,
+    PRIMARY KEY (FECHA, CODIGOH, SUCURSAL, CODANIMAL)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+-- Acumular lo ya vendido y pagado. Las jugadas antiguas guardan en
+-- SUCURSAL el nombre de la bodega en vez del codigo, y las que no se
+-- encuentran en bodegas quedan en la sucursal 0
+INSERT INTO cierreacumulado (FECHA, CODIGOH, SUCURSAL, CODANIMAL, APOSTADO)
+SELECT h.FECHA, h.CODIGOJ,
+       COALESCE(b.CODIGO, IF(h.SUCURSAL REGEXP '^[0-9]+$', CAST(h.SUCURSAL AS UNSIGNED), 0)) AS CODSUC,
+       h.CODANIMAL, ROUND(SUM(h.VALOR))
+FROM hislottojuego h
+LEFT JOIN bodegas b ON b.BODEGA = h.SUCURSAL
+WHERE h.ESTADOP = 'A' AND h.ESTADOC = 'A'
+GROUP BY h.FECHA, h.CODIGOJ, CODSUC, h.CODANIMAL
+ON DUPLICATE KEY UPDATE APOSTADO = VALUES(APOSTADO);
+
+-- pagos.CODANIMAL era numerico y guardaba 00 como 0: el codigo del animal
+-- se toma de la liquidacion del premio
+INSERT INTO cierreacumulado (FECHA, CODIGOH, SUCURSAL, CODANIMAL, PAGADO)
+SELECT p.FECHA_SORTEO, p.CODIGOJ, p.SUCURSAL,
+       COALESCE(g.CODANIMAL, CAST(p.CODANIMAL AS CHAR)) AS CODANI, SUM(p.VALOR_GANADO)
+FROM pagos p
+LEFT JOIN ganadoresliquidados g ON g.FECHA = p.FECHA_SORTEO AND g.CODIGOH = p.CODIGOJ AND g.RADICADO = p.RADICADO
+WHERE p.ESTADO = 'A'
+GROUP BY p.FECHA_SORTEO, p.CODIGOJ, p.SUCURSAL, CODANI
+ON DUPLICATE KEY UPDATE PAGADO = VALUES(PAGADO);
+
+-- El cierre guarda el mismo codigo de texto del animal ganador
+ALTER TABLE cierrejuego MODIFY CODANIMAL_GANADOR VARCHAR(20) NULL;
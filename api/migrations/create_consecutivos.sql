@@ -0,0 +1,23 @@
+-- =====================================================
+-- MIGRACION: Contador de radicados
+-- Fecha: 2026-10-18
+-- Descripcion: Reemplaza SELECT MAX(NUM) por un contador en tabla.
+--              Cada terminal reserva bloques con
+--              UPDATE ... SET VALOR = LAST_INSERT_ID(VALOR + n)
+-- =====================================================
+
+CREATE TABLE IF NOT EXISTS consecutivos (
+    NOMBRE VARCHAR(30) NOT NULL,
+    VALOR BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (NOMBRE)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+-- Sembrar el contador con el mayor numero ya usado
+INSERT INTO consecutivos (NOMBRE, VALOR)
+SELECT 'RADICADO', GREATEST(IFNULL(MAX(NUM), 0), IFNULL(MAX(CAST(RADICADO AS UNSIGNED)), 0))
+FROM jugarlotto
+ON DUPLICATE KEY UPDATE VALOR = GREATEST(consecutivos.VALOR, VALUES(VALOR));
+
+-- Evitar radicados repetidos a futuro
+-- (los duplicados historicos deben depurarse antes, si existen este paso falla)
+ALTER TABLE jugarlotto ADD UNIQUE KEY IF NOT EXISTS unique_radicado (RADICADO);
@@ -0,0 +1,40 @@
+-- =====================================================
+-- MIGRACION: Ganadores liquidados
+-- Fecha: 2026-10-18
+-- Descripcion: Tickets ganadores de cada sorteo calculados una sola vez
+--              al ingresar el resultado (MotorLiquidacion en la terminal,
+--              liquidarSorteo() en la api). Las consultas de ganadores
+--              leen esta tabla por llave en vez de cruzar hislottojuego
+--              con ingresarganadores en cada refresco.
+-- =====================================================
+
+CREATE TABLE IF NOT EXISTS ganadoresliquidados (
+    FECHA DATE NOT NULL,
+    CODIGOH INT NOT NULL,
+    RADICADO VARCHAR(20) NOT NULL,
+    CODANIMAL VARCHAR(20) NOT NULL,
+    ANIMAL VARCHAR(100) NOT NULL DEFAULT '',
+    DESJUEGO VARCHAR(500) NOT NULL DEFAULT '',
+    VALOR DECIMAL(12,2) NOT NULL,
+    PUNTOSPAGO INT NOT NULL,
+    PAGO DECIMAL(14,2) NOT NULL,
+    SUCURSAL VARCHAR(500) NOT NULL DEFAULT '',
+    HORA TIME NOT NULL,
+    LIQUIDADO DATETIME NOT NULL,
+    PRIMARY KEY (FECHA, CODIGOH, RADICADO),
+    KEY idx_ganadores_radicado (RADICADO)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+-- La liquidacion lee solo las jugadas del animal ganador de un sorteo
+ALTER TABLE hislottojuego ADD KEY IF NOT EXISTS idx_hislotto_sorteo (FECHA, CODIGOJ, CODANIMAL);
+
+-- Liquidar los resultados ya ingresados
+INSERT IGNORE INTO ganadoresliquidados (FECHA, CODIGOH, RADICADO, CODANIMAL, ANIMAL,
+    DESJUEGO, VALOR, PUNTOSPAGO, PAGO, SUCURSAL, HORA, LIQUIDADO)
+SELECT h.FECHA, h.CODIGOJ, h.RADICADO, h.CODANIMAL, MAX(h.ANIMAL), MAX(h.DESJUEGO), ROUND(SUM(h.VALOR)), p.PUNTOS,
+    ROUND(SUM(h.VALOR)) * p.PUNTOS, MAX(h.SUCURSAL), MIN(h.HORA), NOW()
+FROM ingresarganadores g
+JOIN hislottojuego h ON h.FECHA = g.FECHA AND h.CODIGOJ = g.CODIGOH AND h.CODANIMAL = g.CODIGOA
+CROSS JOIN (SELECT CAST(VALOR AS UNSIGNED) AS PUNTOS FROM parametros WHERE NOMBRE = 'PUNTOSPAGO' LIMIT 1) p
+WHERE g.ESTADO = 'A' AND h.ESTADOP = 'A'
+GROUP BY h.FECHA, h.CODIGOJ, h.CODANIMAL, h.RADICADO, p.PUNTOS;
@@ -0,0 +1,22 @@
+-- =====================================================
+-- MIGRACION: Tope por animal y sorteo
+-- Fecha: 2026-10-18
+-- Descripcion: Lo apostado a cada animal en cada sorteo del dia,
+--              compartido por todas las terminales. Cada jugada reserva
+--              su valor con UPDATE ... WHERE RESERVADO + valor <= tope.
+--              El tope es el parametro 14 (0 = sin tope).
+-- =====================================================
+
+CREATE TABLE IF NOT EXISTS reservasjuego (
+    FECHA DATE NOT NULL,
+    CODIGOJ INT NOT NULL,
+    CODANIMAL VARCHAR(20) NOT NULL,
+    RESERVADO BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (FECHA, CODIGOJ, CODANIMAL)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+-- Parametro del tope, sin tope hasta que se configure
+INSERT INTO parametros (CODIGO, NOMBRE, VALOR)
+SELECT 14, 'TOPE POR ANIMAL Y SORTEO', '0'
+FROM DUAL
+WHERE NOT EXISTS (SELECT 1 FROM parametros WHERE CODIGO = 14);
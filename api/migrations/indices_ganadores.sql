@@ -0,0 +1,20 @@
+-- =====================================================
+-- MIGRACION: Indices de la consulta de ganadores
+-- Fecha: 2026-10-18
+-- Descripcion: GanadoresDAO pagina ganadoresliquidados por su llave
+--              primaria (FECHA, CODIGOH, RADICADO), que no necesita
+--              indices nuevos. El resultado activo de un sorteo lo buscan
+--              MotorLiquidacion y MotorCierre por idx_ingresar_sorteo, y
+--              la liquidacion y las reservas leen las jugadas de un animal
+--              por idx_hislotto_sorteo (FECHA, CODIGOJ, CODANIMAL).
+--              Con EXPLAIN, las consultas de GanadoresDAO deben leer
+--              ganadoresliquidados por PRIMARY (tipo range), sin Using
+--              temporary ni Using filesort.
+-- =====================================================
+
+ALTER TABLE ingresarganadores ADD KEY IF NOT EXISTS idx_ingresar_sorteo (FECHA, CODIGOH, CODIGOA, ESTADO);
+
+ALTER TABLE hislottojuego ADD KEY IF NOT EXISTS idx_hislotto_sorteo (FECHA, CODIGOJ, CODANIMAL);
+
+-- Indice cubridor de la version que cruzaba hislottojuego en cada consulta
+ALTER TABLE hislottojuego DROP KEY IF EXISTS idx_hislotto_ganadores;
@@ -0,0 +1,49 @@
+-- =====================================================
+-- MIGRACION: Un solo pago activo por premio
+-- Fecha: 2026-10-18
+-- Descripcion: Llave unica sobre (RADICADO, FECHA_SORTEO, CODIGOJ) para los
+--              pagos activos, de modo que dos cajas no paguen el mismo
+--              premio (PagosDAO en la terminal, pagos.php en la api). Un
+--              pago cancelado (ESTADO distinto de 'A') deja PREMIO_ACTIVO
+--              en NULL y no cuenta para la llave. Tambien el indice por
+--              RADICADO de hislottojuego, que no tenia ninguno.
+--              pagos.CODANIMAL pasa a texto como en hislottojuego, donde
+--              0 y 00 son animales distintos.
+-- =====================================================
+
+ALTER TABLE hislottojuego ADD KEY IF NOT EXISTS idx_hislotto_radicado (RADICADO, FECHA);
+
+-- Pagos repetidos ya existentes: queda activo el primero
+UPDATE pagos p
+JOIN pagos q ON q.RADICADO = p.RADICADO AND q.FECHA_SORTEO = p.FECHA_SORTEO AND q.CODIGOJ = p.CODIGOJ
+    AND q.ESTADO = 'A' AND q.ID < p.ID
+SET p.ESTADO = 'C', p.OBSERVACIONES = CONCAT(IFNULL(p.OBSERVACIONES, ''), ' [pago duplicado]')
+WHERE p.ESTADO = 'A';
+
+-- El codigo del animal como texto, antes de la llave unica. Los pagos que
+-- ya guardaron 00 como 0 recuperan el codigo de la liquidacion del premio
+ALTER TABLE pagos MODIFY CODANIMAL VARCHAR(20) NOT NULL;
+
+UPDATE pagos p
+JOIN ganadoresliquidados g ON g.FECHA = p.FECHA_SORTEO AND g.CODIGOH = p.CODIGOJ AND g.RADICADO = p.RADICADO
+SET p.CODANIMAL = g.CODANIMAL
+WHERE p.CODANIMAL <> g.CODANIMAL AND CAST(p.CODANIMAL AS UNSIGNED) = CAST(g.CODANIMAL AS UNSIGNED);
+
+ALTER TABLE pagos ADD COLUMN IF NOT EXISTS PREMIO_ACTIVO TINYINT AS (IF(ESTADO = 'A', 1, NULL)) PERSISTENT;
+
+ALTER TABLE pagos ADD UNIQUE KEY IF NOT EXISTS uq_pagos_premio (RADICADO, FECHA_SORTEO, CODIGOJ, PREMIO_ACTIVO);
+
+-- Lo pagado en cierreacumulado sin los pagos repetidos: solo se recalculan
+-- los acumulados de los premios que tuvieron un pago duplicado, con lo
+-- pagado activo (volver a correrla deja los mismos valores)
+UPDATE cierreacumulado c
+JOIN (SELECT DISTINCT FECHA_SORTEO, CODIGOJ, SUCURSAL, CODANIMAL
+      FROM pagos
+      WHERE ESTADO = 'C' AND OBSERVACIONES LIKE '%[pago duplicado]%') d
+  ON d.FECHA_SORTEO = c.FECHA AND d.CODIGOJ = c.CODIGOH AND d.SUCURSAL = c.SUCURSAL AND d.CODANIMAL = c.CODANIMAL
+LEFT JOIN (SELECT FECHA_SORTEO, CODIGOJ, SUCURSAL, CODANIMAL, SUM(VALOR_GANADO) AS PAGADO
+           FROM pagos
+           WHERE ESTADO = 'A'
+           GROUP BY FECHA_SORTEO, CODIGOJ, SUCURSAL, CODANIMAL) a
+  ON a.FECHA_SORTEO = c.FECHA AND a.CODIGOJ = c.CODIGOH AND a.SUCURSAL = c.SUCURSAL AND a.CODANIMAL = c.CODANIMAL
+SET c.PAGADO = IFNULL(a.PAGADO, 0);
@@ -21,7 +21,14 @@ try {
     $migrations = [
         '00_create_pagos_table.sql',
         'add_cierrejuego_columns.sql',
-        'update_schema.sql'
+        'update_schema.sql',
+        'create_consecutivos.sql',
+        'create_reservasjuego.sql',
+        'valores_decimal.sql',
+        'create_ganadoresliquidados.sql',
+        'indices_ganadores.sql',
+        'create_cierreacumulado.sql',
+        'pagos_unico.sql'
     ];
 
     $migrationsDir = __DIR__;
@@ -44,14 +51,16 @@ try {
         try {
             $sql = file_get_contents($filePath);
 
+            // Quitar las líneas de comentario antes de dividir: un statement
+            // precedido por un comentario no debe descartarse completo
+            $sql = preg_replace('/^\s*--.*$/m', '', $sql);
+
             // Dividir por punto y coma y ejecutar cada statement
             $statements = array_filter(
                 array_map('trim', explode(';', $sql)),
                 function($stmt) {
-                    // Ignorar comentarios y statements vacíos
-                    return !empty($stmt) &&
-                           !preg_match('/^\s*--/', $stmt) &&
-                           !preg_match('/^\s*$/', $stmt);
+                    // Ignorar statements vacíos
+                    return $stmt !== '';
                 }
             );
 
@@ -83,6 +92,41 @@ try {
         }
     }
 
+    // Comprobar que las migraciones dejaron creadas sus tablas e indices
+    $esperados = [
+        ['consecutivos', null],
+        ['reservasjuego', null],
+        ['ganadoresliquidados', null],
+        ['ingresarganadores', 'idx_ingresar_sorteo'],
+        ['hislottojuego', 'idx_hislotto_sorteo'],
+        ['cierreacumulado', null]
+    ];
+
+    foreach ($esperados as $esperado) {
+        list($tabla, $indice) = $esperado;
+        if ($indice === null) {
+            $stmt = $db->prepare(
+                "SELECT COUNT(*) FROM information_schema.TABLES
+                 WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ?"
+            );
+            $stmt->execute([$tabla]);
+        } else {
+            $stmt = $db->prepare(
+                "SELECT COUNT(*) FROM information_schema.STATISTICS
+                 WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND INDEX_NAME = ?"
+            );
+            $stmt->execute([$tabla, $indice]);
+        }
+        $nombre = $indice === null ? "la tabla {$tabla}" : "el indice {$indice} de {$tabla}";
+        if ((int) $stmt->fetchColumn() === 0) {
+            echo "❌ ERROR: no existe {$nombre}\n";
+            $errors++;
+        } else {
+            echo "✓ Existe {$nombre}\n";
+        }
+    }
+    echo "\n";
+
     echo "=================================================\n";
     echo "Resumen:\n";
     echo "  Total migraciones: {$totalMigrations}\n";
@@ -0,0 +1,16 @@
+-- =====================================================
+-- MIGRACION: Valores de juego en DECIMAL
+-- Fecha: 2026-10-18
+-- Descripcion: hislottojuego.VALOR y jugarlotto.TOTALJUEGO pasan de
+--              float(9,3) a DECIMAL(12,2). El float pierde precision
+--              por encima de un millon y las sumas de reportes y
+--              liquidaciones no cuadraban. Con DECIMAL son exactas.
+--              La terminal maneja los valores como pesos enteros (long).
+-- =====================================================
+
+-- Los valores guardados son pesos enteros, ROUND descarta el ruido del float
+UPDATE hislottojuego SET VALOR = ROUND(VALOR) WHERE VALOR <> ROUND(VALOR);
+UPDATE jugarlotto SET TOTALJUEGO = ROUND(TOTALJUEGO) WHERE TOTALJUEGO <> ROUND(TOTALJUEGO);
+
+ALTER TABLE hislottojuego MODIFY VALOR DECIMAL(12,2) NOT NULL;
+ALTER TABLE jugarlotto MODIFY TOTALJUEGO DECIMAL(12,2) NOT NULL;
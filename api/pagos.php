@@ -238,6 +238,20 @@ try {
                 $pagoIds[] = $pagoId;
                 $totalPagado += $ganador['VALOR_GANADO'];
 
+                // Sumar el premio a los acumulados del cierre (MotorCierre en la terminal)
+                $stmt = $db->prepare("
+                    INSERT INTO cierreacumulado (FECHA, CODIGOH, SUCURSAL, CODANIMAL, PAGADO)
+                    VALUES (?, ?, ?, ?, ?)
+                    ON DUPLICATE KEY UPDATE PAGADO = PAGADO + VALUES(PAGADO)
+                ");
+                $stmt->execute([
+                    $ganador['FECHA_SORTEO'],
+                    $ganador['CODIGOJ'],
+                    $ganador['SUCURSAL'],
+                    $ganador['CODANIMAL'],
+                    $ganador['VALOR_GANADO']
+                ]);
+
                 // Actualizar el cierre correspondiente (incrementar pagos reales, reducir pendientes)
                 $stmt = $db->prepare("
                     UPDATE cierrejuego
@@ -59,13 +59,17 @@ function sendError($message, $statusCode = 400, $details = null) {
 /**
  * Obtiene el consecutivo del próximo radicado
  * Replica: ConsecutivoRadicado()
+ *
+ * Solo informa el siguiente valor del contador; el número definitivo se
+ * asigna al guardar con asignarConsecutivo().
  */
 function obtenerConsecutivo($conn) {
     try {
-        $stmt = $conn->query("SELECT MAX(NUM) AS CONSECUTIVO FROM jugarlotto");
+        $stmt = $conn->prepare("SELECT VALOR FROM consecutivos WHERE NOMBRE = 'RADICADO'");
+        $stmt->execute();
         $result = $stmt->fetch(PDO::FETCH_ASSOC);
         
-        $consecutivo = ($result['CONSECUTIVO'] ?? 0) + 1;
+        $consecutivo = ($result['VALOR'] ?? 0) + 1;
         
         // Formatear con ceros a la izquierda (8 dígitos)
         $radicado = str_pad($consecutivo, 8, '0', STR_PAD_LEFT);
@@ -86,6 +90,22 @@ function obtenerConsecutivo($conn) {
     }
 }
 
+/**
+ * Toma el siguiente número del contador de radicados (el mismo que usa la
+ * aplicación de escritorio). Se llama fuera de la transacción del juego
+ * para que el bloqueo de la fila del contador sea mínimo.
+ */
+function asignarConsecutivo($conn) {
+    $stmt = $conn->prepare(
+        "UPDATE consecutivos SET VALOR = LAST_INSERT_ID(VALOR + 1) WHERE NOMBRE = 'RADICADO'"
+    );
+    $stmt->execute();
+    if ($stmt->rowCount() === 0) {
+        throw new PDOException('No existe el contador RADICADO en la tabla consecutivos');
+    }
+    return (int)$conn->query("SELECT LAST_INSERT_ID()")->fetchColumn();
+}
+
 /**
  * Lista todos los animales de la ruleta activos
  * Replica: MostrarTabla()
@@ -273,6 +293,105 @@ function verificarCierreSucursal($conn, $codigoSucursal, $fecha) {
     }
 }
 
+/**
+ * Reserva lo apostado por sorteo y animal contra el tope compartido
+ * (reservasjuego, parametro 14), igual que ReservasJuego en la terminal:
+ * un solo UPDATE condicionado por animal, sembrando la fila desde
+ * hislottojuego la primera vez. Va dentro de la transaccion del juego.
+ * Devuelve null si todo cabe, o el mensaje de la jugada que no cabe.
+ */
+function reservarTope($conn, $fecha, $juegos) {
+    $stmt = $conn->query("SELECT VALOR FROM parametros WHERE CODIGO = 14");
+    $fila = $stmt->fetch(PDO::FETCH_ASSOC);
+    $texto = trim($fila['VALOR'] ?? '');
+    if (preg_match('/^\d{1,3}([.,]\d{3})+$/', $texto)) {
+        $texto = str_replace(['.', ','], '', $texto);
+    }
+    $tope = (int) round(floatval($texto));
+    if ($tope <= 0) {
+        return null;
+    }
+
+    $valores = [];
+    foreach ($juegos as $juego) {
+        $clave = sprintf('%06d|%s', $juego['codigoHorario'], $juego['codigoAnimal']);
+        $valores[$clave] = ($valores[$clave] ?? 0) + (int) round(floatval($juego['valor']));
+    }
+    ksort($valores);
+
+    $stmtSumar = $conn->prepare(
+        "UPDATE reservasjuego SET RESERVADO = RESERVADO + :valor
+         WHERE FECHA = :fecha AND CODIGOJ = :codigoJ AND CODANIMAL = :codAnimal AND RESERVADO + :valor2 <= :tope"
+    );
+    $stmtSembrar = $conn->prepare(
+        "INSERT IGNORE INTO reservasjuego (FECHA, CODIGOJ, CODANIMAL, RESERVADO)
+         SELECT :fecha, :codigoJ, :codAnimal, IFNULL(ROUND(SUM(VALOR)), 0) FROM hislottojuego
+         WHERE FECHA = :fecha2 AND CODIGOJ = :codigoJ2 AND CODANIMAL = :codAnimal2 AND ESTADOP = 'A'"
+    );
+    foreach ($valores as $clave => $valor) {
+        list($codigoJ, $codAnimal) = explode('|', $clave, 2);
+        $sumar = [
+            'valor' => $valor,
+            'valor2' => $valor,
+            'tope' => $tope,
+            'fecha' => $fecha,
+            'codigoJ' => (int) $codigoJ,
+            'codAnimal' => $codAnimal
+        ];
+        $stmtSumar->execute($sumar);
+        if ($stmtSumar->rowCount() > 0) {
+            continue;
+        }
+        // No cabe, o es la primera jugada a ese animal en el sorteo
+        $stmtSembrar->execute([
+            'fecha' => $fecha,
+            'codigoJ' => (int) $codigoJ,
+            'codAnimal' => $codAnimal,
+            'fecha2' => $fecha,
+            'codigoJ2' => (int) $codigoJ,
+            'codAnimal2' => $codAnimal
+        ]);
+        if ($stmtSembrar->rowCount() > 0) {
+            $stmtSumar->execute($sumar);
+            if ($stmtSumar->rowCount() > 0) {
+                continue;
+            }
+        }
+        return "El animal $codAnimal ya alcanzo el tope de apuestas del sorteo $codigoJ";
+    }
+    return null;
+}
+
+/**
+ * Suma lo apostado por sorteo y animal a cierreacumulado, dentro de la
+ * transaccion del juego; en orden fijo para que dos ventas simultaneas no se
+ * bloqueen en cruz
+ */
+function acumularCierre($conn, $fecha, $sucursal, $juegos) {
+    $valores = [];
+    foreach ($juegos as $juego) {
+        $clave = sprintf('%06d|%s', $juego['codigoHorario'], $juego['codigoAnimal']);
+        $valores[$clave] = ($valores[$clave] ?? 0) + floatval($juego['valor']);
+    }
+    ksort($valores);
+
+    $stmt = $conn->prepare(
+        "INSERT INTO cierreacumulado (FECHA, CODIGOH, SUCURSAL, CODANIMAL, APOSTADO)
+         VALUES (:fecha, :codigoH, :sucursal, :codAnimal, :valor)
+         ON DUPLICATE KEY UPDATE APOSTADO = APOSTADO + VALUES(APOSTADO)"
+    );
+    foreach ($valores as $clave => $valor) {
+        list($codigoH, $codAnimal) = explode('|', $clave, 2);
+        $stmt->execute([
+            'fecha' => $fecha,
+            'codigoH' => (int) $codigoH,
+            'sucursal' => $sucursal,
+            'codAnimal' => $codAnimal,
+            'valor' => $valor
+        ]);
+    }
+}
+
 /**
  * Guarda el juego completo en la base de datos
  * Replica: Guardar() y HisGuardar()
@@ -327,14 +446,24 @@ function guardarJuego($conn, $data) {
             ];
         }
         
+        // Obtener el consecutivo para NUM y RADICADO desde el contador
+        $num = asignarConsecutivo($conn);
+        $data['radicado'] = str_pad($num, 8, '0', STR_PAD_LEFT);
+        
         // Iniciar transacción
         $conn->beginTransaction();
         
         try {
-            // Obtener el consecutivo para NUM
-            $stmtMax = $conn->query("SELECT MAX(NUM) AS CONSECUTIVO FROM jugarlotto");
-            $resultMax = $stmtMax->fetch(PDO::FETCH_ASSOC);
-            $num = ($resultMax['CONSECUTIVO'] ?? 0) + 1;
+            // 0. Reservar contra el tope por animal; si algo no cabe no se guarda nada
+            $errorTope = reservarTope($conn, $data['fecha'], $data['juegos']);
+            if ($errorTope !== null) {
+                $conn->rollBack();
+                return [
+                    'success' => false,
+                    'error' => $errorTope,
+                    'codigo_error' => 'TOPE_ANIMAL'
+                ];
+            }
             
             // 1. Insertar en jugarlotto (tabla principal)
             $stmtJuego = $conn->prepare(
@@ -377,6 +506,9 @@ function guardarJuego($conn, $data) {
                 ]);
             }
             
+            // 3. Sumar a los acumulados del cierre (MotorCierre en la terminal)
+            acumularCierre($conn, $data['fecha'], $data['sucursal'], $data['juegos']);
+            
             // Confirmar transacción
             $conn->commit();
             